@@ -0,0 +1,75 @@
+package io.whits.javadev.simple;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * In-memory input and output shared by the benchmarks.
+ */
+final class BenchmarkIO {
+    private BenchmarkIO() {
+    }
+
+    /**
+     * A stream which repeats the given lines forever, so a benchmark never
+     * runs out of answers.
+     * @param lines - the answers to repeat, in order
+     * @return an endless stream of the answers
+     */
+    static InputStream repeating(String... lines) {
+        StringBuilder sb = new StringBuilder();
+        // Repeat the pattern enough to fill a few reader buffers per cycle
+        while (sb.length() < 64 * 1024) {
+            for (String line : lines) {
+                sb.append(line).append('\n');
+            }
+        }
+        final byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        return new InputStream() {
+            private int pos;
+
+            @Override
+            public int read() {
+                int b = data[pos];
+                pos = (pos + 1) % data.length;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                int n = Math.min(len, data.length - pos);
+                System.arraycopy(data, pos, b, off, n);
+                pos = (pos + n) % data.length;
+                return n;
+            }
+        };
+    }
+
+    /**
+     * A sink which throws away everything written to it.
+     * @return a discarding output sink
+     */
+    static OutputSink discard() {
+        return new OutputSink(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }, StandardCharsets.UTF_8, 8192);
+    }
+
+    /**
+     * A SmartScanner answering from the repeated lines and printing nowhere.
+     * @param lines - the answers to repeat, in order
+     * @return a scanner for the benchmark
+     */
+    static SmartScanner scanner(String... lines) {
+        SmartScanner s = new SmartScanner(repeating(lines));
+        s.setOutput(discard());
+        return s;
+    }
+}
@@ -0,0 +1,46 @@
+package io.whits.javadev.simple;
+
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading one line through each input engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineSourceBenchmark {
+    private LineSource bytes;
+    private LineSource scanner;
+
+    @Setup
+    public void setup() {
+        bytes = new ByteLineReader(BenchmarkIO.repeating("12345", "a somewhat longer answer line"));
+        scanner = new ScannerLineSource(new Scanner(
+            BenchmarkIO.repeating("12345", "a somewhat longer answer line")));
+    }
+
+    @Benchmark
+    public String byteLineReader() {
+        return bytes.nextLine();
+    }
+
+    @Benchmark
+    public String scanner() {
+        return scanner.nextLine();
+    }
+}
@@ -0,0 +1,68 @@
+package io.whits.javadev.simple;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>CommandLineMenu.run</code> rendering a menu, dispatching to the last
+ * option and rendering again before leaving.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MenuBenchmark {
+    @Param({"10", "100"})
+    public int options;
+
+    private CommandLineMenu menu;
+    private int dispatched;
+
+    @Setup
+    public void setup() {
+        ArrayList<MenuOption> o = new ArrayList<MenuOption>();
+        for (int k = 0; k < options; k++) {
+            final String name = "Option " + k;
+            o.add(new MenuOption() {
+                public String getName() {
+                    return name;
+                }
+
+                public String getDescription() {
+                    return "Does thing number " + name;
+                }
+
+                public String[] getFlags() {
+                    return new String[0];
+                }
+
+                public void run() {
+                    dispatched++;
+                }
+            });
+        }
+        menu = new CommandLineMenu("Main", "The main menu", "Pick something to do.", new String[0], o);
+        StaticSmartScanner.setInput(BenchmarkIO.repeating(String.valueOf(options), "0"));
+        StaticSmartScanner.setOutput(BenchmarkIO.discard());
+    }
+
+    @Benchmark
+    public int renderAndDispatch() {
+        menu.run();
+        return dispatched;
+    }
+}
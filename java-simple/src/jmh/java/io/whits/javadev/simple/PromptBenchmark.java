@@ -0,0 +1,90 @@
+package io.whits.javadev.simple;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One prompt/answer cycle of each SmartScanner method. The invalid variants
+ * answer once with garbage and once correctly, so they measure a full retry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PromptBenchmark {
+    private static final Pattern DATE = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
+
+    private SmartScanner validInt;
+    private SmartScanner invalidInt;
+    private SmartScanner validDouble;
+    private SmartScanner invalidDouble;
+    private SmartScanner validBoolean;
+    private SmartScanner invalidBoolean;
+    private SmartScanner matching;
+    private SmartScanner sanitized;
+
+    @Setup
+    public void setup() {
+        validInt = BenchmarkIO.scanner("42");
+        invalidInt = BenchmarkIO.scanner("forty-two", "42");
+        validDouble = BenchmarkIO.scanner("3.14159");
+        invalidDouble = BenchmarkIO.scanner("3.14.159", "3.14159");
+        validBoolean = BenchmarkIO.scanner("  Yes ");
+        invalidBoolean = BenchmarkIO.scanner("maybe", "no");
+        matching = BenchmarkIO.scanner("17/10/2026", "2026-10-17");
+        sanitized = BenchmarkIO.scanner("   Some Mixed CASE Answer  ");
+    }
+
+    @Benchmark
+    public int intValid() {
+        return validInt.smartForceNextInt("Pick a number", 0, 100);
+    }
+
+    @Benchmark
+    public int intInvalid() {
+        return invalidInt.smartForceNextInt("Pick a number", 0, 100);
+    }
+
+    @Benchmark
+    public double doubleValid() {
+        return validDouble.smartForceNextDouble("Pick a number", 0, 100);
+    }
+
+    @Benchmark
+    public double doubleInvalid() {
+        return invalidDouble.smartForceNextDouble("Pick a number", 0, 100);
+    }
+
+    @Benchmark
+    public boolean booleanValid() {
+        return validBoolean.smartForceNextBoolean("Continue?");
+    }
+
+    @Benchmark
+    public boolean booleanInvalid() {
+        return invalidBoolean.smartForceNextBoolean("Continue?");
+    }
+
+    @Benchmark
+    public String stringMatching() {
+        return matching.smartForceNextStringMatching("Date (yyyy-mm-dd)", DATE);
+    }
+
+    @Benchmark
+    public String stringSanitized() {
+        return sanitized.smartNextStringSanitized("Say something");
+    }
+}
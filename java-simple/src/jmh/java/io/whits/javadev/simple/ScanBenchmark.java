@@ -0,0 +1,93 @@
+package io.whits.javadev.simple;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Splitting a megabyte of answers into lines: word at a time, byte at a
+ * time, through ByteLineReader and through java.util.Scanner.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScanBenchmark {
+    @Param({"8", "80"})
+    public int lineLength;
+
+    private byte[] data;
+    private ByteScanner wide;
+    private ByteScanner scalar;
+
+    @Setup
+    public void setup() {
+        StringBuilder line = new StringBuilder();
+        while (line.length() < lineLength) {
+            line.append("answer ");
+        }
+        line.setLength(lineLength);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 1024 * 1024) {
+            sb.append(line).append('\n');
+        }
+        data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        wide = ByteScanner.lineBreaks();
+        scalar = new ByteScanner(new byte[] {'\n', '\r'}, false);
+    }
+
+    private int countLines(ByteScanner s) {
+        int n = 0;
+        int at = 0;
+        while ((at = s.indexOf(data, at, data.length)) >= 0) {
+            at++;
+            n++;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int wordAtATime() {
+        return countLines(wide);
+    }
+
+    @Benchmark
+    public int byteAtATime() {
+        return countLines(scalar);
+    }
+
+    @Benchmark
+    public int byteLineReader() {
+        ByteLineReader r = new ByteLineReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8, 65536);
+        int n = 0;
+        while (r.hasNextLine()) {
+            n += r.nextLineView().length();
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int scanner() {
+        Scanner s = new Scanner(new ByteArrayInputStream(data), "UTF-8");
+        int n = 0;
+        while (s.hasNextLine()) {
+            n += s.nextLine().length();
+        }
+        return n;
+    }
+}
@@ -0,0 +1,351 @@
+package io.whits.javadev.simple;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/** <strong>Checks a whole answer file before it is replayed.</strong><p>
+ *
+ * An <code>AnswerFileValidator</code> is given the <code>{@link LineRule}</code>
+ * for each prompt a program asks, in order. Line <i>n</i> of the file is
+ * checked against rule <i>n</i> modulo the number of rules, so a program
+ * which asks the same questions in a loop needs each rule only once.<p>
+ *
+ * The file is memory-mapped and cut into chunks which start on line
+ * boundaries. With a single rule the chunks are validated straight away on a
+ * <code>ForkJoinPool</code>. With several, a first parallel pass counts the
+ * lines in each chunk so every chunk knows which rule its first line gets.
+ * The chunks' findings are merged in file order, so the report reads top to
+ * bottom whatever order the work finished in.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class AnswerFileValidator {
+    private static final long MIN_CHUNK = 1024 * 1024;
+
+    private final LineRule[] rules;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private long chunkSize;
+    private int maxProblems = 1000;
+
+    /** <strong>One bad line.</strong> */
+    public static final class Problem {
+        private long lineNumber;
+        private final String expected;
+        private final String input;
+        private final String reason;
+
+        private Problem(long lineNumber, String expected, String input, String reason) {
+            this.lineNumber = lineNumber;
+            this.expected = expected;
+            this.input = input;
+            this.reason = reason;
+        }
+
+        public long getLineNumber() {
+            return this.lineNumber;
+        }
+
+        public String getExpected() {
+            return this.expected;
+        }
+
+        public String getInput() {
+            return this.input;
+        }
+
+        public String getReason() {
+            return this.reason;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Line %d: expected %s, got \"%s\": %s",
+                this.lineNumber, this.expected, this.input, this.reason);
+        }
+    }
+
+    /** <strong>Everything found in a file.</strong> */
+    public static final class Report {
+        private final long lines;
+        private final long problemCount;
+        private final List<Problem> problems;
+
+        private Report(long lines, long problemCount, List<Problem> problems) {
+            this.lines = lines;
+            this.problemCount = problemCount;
+            this.problems = Collections.unmodifiableList(problems);
+        }
+
+        /**
+         * Check whether every line passed
+         * @return true if nothing was wrong
+         */
+        public boolean isValid() {
+            return this.problemCount == 0;
+        }
+
+        /**
+         * Get how many lines were checked
+         * @return the number of lines in the file
+         */
+        public long getLines() {
+            return this.lines;
+        }
+
+        /**
+         * Get how many lines failed, including any not listed
+         * @return the number of bad lines
+         */
+        public long getProblemCount() {
+            return this.problemCount;
+        }
+
+        /**
+         * Get the bad lines, in file order, up to the validator's limit
+         * @return the first bad lines
+         */
+        public List<Problem> getProblems() {
+            return this.problems;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%,d lines checked, %,d not valid%n", this.lines, this.problemCount));
+            for (Problem p : this.problems) {
+                sb.append(p).append(String.format("%n"));
+            }
+            if (this.problemCount > this.problems.size()) {
+                sb.append(String.format("and %,d more%n", this.problemCount - this.problems.size()));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * @param rules - what each line is expected to be, repeating from the
+     * first rule after the last
+     */
+    public AnswerFileValidator(LineRule... rules) {
+        if (rules.length == 0) {
+            throw new IllegalArgumentException("A validator needs at least one rule");
+        }
+        this.rules = rules.clone();
+    }
+
+    /**
+     * Set the pool the chunks are validated on
+     * @param pool - the pool to use, the common pool by default
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Set how big the chunks should be
+     * @param bytes - the size to aim for, or 0 to pick one from the file size
+     * and the pool's parallelism
+     */
+    public void setChunkSize(long bytes) {
+        this.chunkSize = bytes;
+    }
+
+    /**
+     * Set how many bad lines are kept in a report. Any beyond that are only counted.
+     * @param max - the most problems to list, 1000 by default
+     */
+    public void setMaxProblems(int max) {
+        this.maxProblems = max;
+    }
+
+    /**
+     * Validate a file decoded with the platform charset.
+     * @param path - the answer file
+     * @return what was found
+     * @throws UncheckedIOException if the file can't be read
+     */
+    public Report validate(Path path) {
+        return this.validate(path, Charset.defaultCharset());
+    }
+
+    /**
+     * Validate a file.
+     * @param path - the answer file
+     * @param cs - the charset the file is written in
+     * @return what was found
+     * @throws UncheckedIOException if the file can't be read
+     */
+    public Report validate(Path path, Charset cs) {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = this.chunks(ch);
+            long[] firstLines = new long[bounds.length - 1];
+            if (this.rules.length > 1) {
+                long[] counts = new long[firstLines.length];
+                this.pool.invoke(new CountLines(ch, cs, bounds, counts, 0, counts.length));
+                for (int k = 1; k < firstLines.length; k++) {
+                    firstLines[k] = firstLines[k - 1] + counts[k - 1];
+                }
+            }
+            Part all = this.pool.invoke(new Validate(ch, cs, bounds, firstLines, 0, firstLines.length));
+            return new Report(all.lines, all.problemCount, all.problems);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Cut the file into chunks starting on lines
+     * @return the offsets the chunks start at, followed by the file size
+     */
+    private long[] chunks(FileChannel ch) throws IOException {
+        long size = ch.size();
+        long target = this.chunkSize > 0 ? this.chunkSize
+            : Math.max(MIN_CHUNK, size / (this.pool.getParallelism() * 4L));
+        ArrayList<Long> starts = new ArrayList<Long>();
+        starts.add(0L);
+        long at = 0;
+        while (size - at > target) {
+            at = MappedLineSource.nextLineStart(ch, at + target, size);
+            if (at < 0) {
+                break;
+            }
+            starts.add(at);
+        }
+        long[] bounds = new long[starts.size() + 1];
+        for (int k = 0; k < starts.size(); k++) {
+            bounds[k] = starts.get(k);
+        }
+        bounds[starts.size()] = size;
+        return bounds;
+    }
+
+    /** Counts the lines in a run of chunks. */
+    private static final class CountLines extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel ch;
+        private final Charset cs;
+        private final long[] bounds;
+        private final long[] counts;
+        private final int from;
+        private final int to;
+
+        private CountLines(FileChannel ch, Charset cs, long[] bounds, long[] counts, int from, int to) {
+            this.ch = ch;
+            this.cs = cs;
+            this.bounds = bounds;
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int mid = (this.from + this.to) >>> 1;
+                invokeAll(new CountLines(this.ch, this.cs, this.bounds, this.counts, this.from, mid),
+                    new CountLines(this.ch, this.cs, this.bounds, this.counts, mid, this.to));
+                return;
+            }
+            MappedLineSource src = new MappedLineSource(this.ch, this.cs, this.bounds[this.from],
+                this.bounds[this.from + 1], MappedLineSource.DEFAULT_WINDOW);
+            long n = 0;
+            while (src.hasNextLine()) {
+                src.nextLineView();
+                n++;
+            }
+            this.counts[this.from] = n;
+        }
+    }
+
+    /** What a run of chunks held, with line numbers counted from its start. */
+    private static final class Part {
+        private long lines;
+        private long problemCount;
+        private ArrayList<Problem> problems = new ArrayList<Problem>();
+    }
+
+    /** Validates a run of chunks. */
+    private final class Validate extends RecursiveTask<Part> {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel ch;
+        private final Charset cs;
+        private final long[] bounds;
+        private final long[] firstLines;
+        private final int from;
+        private final int to;
+
+        private Validate(FileChannel ch, Charset cs, long[] bounds, long[] firstLines, int from, int to) {
+            this.ch = ch;
+            this.cs = cs;
+            this.bounds = bounds;
+            this.firstLines = firstLines;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Part compute() {
+            if (this.to - this.from > 1) {
+                int mid = (this.from + this.to) >>> 1;
+                Validate left = new Validate(this.ch, this.cs, this.bounds, this.firstLines, this.from, mid);
+                left.fork();
+                Part right = new Validate(this.ch, this.cs, this.bounds, this.firstLines, mid, this.to).compute();
+                return merge(left.join(), right);
+            }
+            return this.check();
+        }
+
+        private Part check() {
+            Part part = new Part();
+            LineRule[] r = rules;
+            NumberParser numbers = new NumberParser();
+            MappedLineSource src = new MappedLineSource(this.ch, this.cs, this.bounds[this.from],
+                this.bounds[this.from + 1], MappedLineSource.DEFAULT_WINDOW);
+            int rule = (int) (this.firstLines[this.from] % r.length);
+            long n = 0;
+            while (src.hasNextLine()) {
+                CharSequence line = src.nextLineView();
+                n++;
+                String reason = r[rule].check(line, numbers);
+                if (reason != null) {
+                    part.problemCount++;
+                    if (part.problems.size() < maxProblems) {
+                        part.problems.add(new Problem(n, r[rule].getExpected(), line.toString(), reason));
+                    }
+                }
+                if (++rule == r.length) {
+                    rule = 0;
+                }
+            }
+            part.lines = n;
+            return part;
+        }
+    }
+
+    /**
+     * Join two neighbouring parts, numbering the second part's lines on from
+     * the first's and keeping the earliest problems.
+     */
+    private Part merge(Part left, Part right) {
+        for (Problem p : right.problems) {
+            if (left.problems.size() >= this.maxProblems) {
+                break;
+            }
+            p.lineNumber += left.lines;
+            left.problems.add(p);
+        }
+        left.lines += right.lines;
+        left.problemCount += right.problemCount;
+        return left;
+    }
+}
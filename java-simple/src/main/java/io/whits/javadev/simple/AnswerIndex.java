@@ -0,0 +1,212 @@
+package io.whits.javadev.simple;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/** <strong>Answers looked up by the prompt they answer.</strong><p>
+ *
+ * An answer file for unattended runs normally has to list answers in the
+ * order the prompts are asked. With an <code>AnswerIndex</code> each answer
+ * is filed under its prompt instead, so prompts which are reordered, or
+ * only asked sometimes, still get the right answer. The file looks like a
+ * properties file:
+ * <pre>
+ * # Comments start with # or !
+ * Your name = Ada
+ * Select an option = 2
+ * Select an option = 1
+ * &#64;5e2fd1a0 = yes
+ * </pre>
+ * Each line is a prompt's text, <code>=</code>, and the answer. A prompt
+ * listed more than once gets its answers in order, one each time it is
+ * asked, those filed under its text before those filed under its hash. A
+ * prompt whose text contains <code>=</code>, or is too long to type, can be
+ * given as <code>&#64;</code> and the hex
+ * <code>String.hashCode()</code> of its text, from
+ * <code>{@link #keyOf(String)}</code>. Surrounding whitespace is dropped from
+ * prompts, and leading whitespace from answers.<p>
+ *
+ * The file is read once into hash maps, so finding an answer takes constant
+ * time. An index remembers how many answers to each prompt it has given,
+ * so it should be used by one SmartScanner at a time.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ * @see SmartScanner#setAnswers(AnswerIndex, AnswerIndex.OnMiss)
+ */
+public final class AnswerIndex {
+    /** <strong>What to do when a prompt has no answer in the index.</strong> */
+    public enum OnMiss {
+        /** Read the answer from input as usual. */
+        READ_INPUT,
+        /** Stop with a <code>NoSuchElementException</code>. */
+        FAIL
+    }
+
+    /** The answers filed under one prompt. */
+    private static final class Answers {
+        private final ArrayList<String> values = new ArrayList<String>(1);
+        private int next;
+    }
+
+    private final HashMap<String, Answers> byText = new HashMap<String, Answers>();
+    private final HashMap<Integer, Answers> byHash = new HashMap<Integer, Answers>();
+    private int size;
+
+    private AnswerIndex() {
+    }
+
+    /**
+     * Read an answer file written in UTF-8
+     * @param path - the file
+     * @return the index
+     * @throws UncheckedIOException if the file can't be read
+     * @throws IllegalArgumentException if a line is not a prompt and an answer
+     */
+    public static AnswerIndex load(Path path) {
+        return load(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read an answer file
+     * @param path - the file
+     * @param cs - the charset the file is written in
+     * @return the index
+     * @throws UncheckedIOException if the file can't be read
+     * @throws IllegalArgumentException if a line is not a prompt and an answer
+     */
+    public static AnswerIndex load(Path path, Charset cs) {
+        try (BufferedReader r = Files.newBufferedReader(path, cs)) {
+            return read(r);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read answers from text in the answer file format
+     * @param text - the answers
+     * @return the index
+     * @throws IllegalArgumentException if a line is not a prompt and an answer
+     */
+    public static AnswerIndex parse(String text) {
+        try {
+            return read(new StringReader(text));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static AnswerIndex read(Reader in) throws IOException {
+        AnswerIndex index = new AnswerIndex();
+        BufferedReader r = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        String line;
+        int number = 0;
+        while ((line = r.readLine()) != null) {
+            number++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.charAt(0) == '#' || trimmed.charAt(0) == '!') {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Line %d of the answer file is not prompt = answer: %s", number, line));
+            }
+            String key = line.substring(0, equals).trim();
+            int start = equals + 1;
+            while (start < line.length() && line.charAt(start) <= ' ') {
+                start++;
+            }
+            index.add(key, line.substring(start));
+        }
+        return index;
+    }
+
+    private void add(String key, String answer) {
+        Answers a;
+        if (key.length() > 1 && key.charAt(0) == '@' && isHex(key, 1)) {
+            Integer hash = (int) Long.parseLong(key.substring(1), 16);
+            a = this.byHash.get(hash);
+            if (a == null) {
+                a = new Answers();
+                this.byHash.put(hash, a);
+            }
+        } else {
+            a = this.byText.get(key);
+            if (a == null) {
+                a = new Answers();
+                this.byText.put(key, a);
+            }
+        }
+        a.values.add(answer);
+        this.size++;
+    }
+
+    private static boolean isHex(String s, int from) {
+        if (s.length() - from > 8) {
+            return false;
+        }
+        for (int k = from; k < s.length(); k++) {
+            if (Character.digit(s.charAt(k), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the key a prompt can be filed under without writing out its text
+     * @param prompt - the prompt's text
+     * @return <code>&#64;</code> followed by the prompt's hash in hex
+     */
+    public static String keyOf(String prompt) {
+        return String.format("@%08x", prompt.trim().hashCode());
+    }
+
+    /**
+     * Take the next answer to a prompt
+     * @param prompt - the prompt being asked
+     * @return the answer, or null if there are no more for this prompt
+     */
+    String next(String prompt) {
+        String key = prompt.trim();
+        Answers a = this.byText.get(key);
+        if ((a == null || a.next == a.values.size()) && !this.byHash.isEmpty()) {
+            // Answers filed by hash follow any filed by text
+            a = this.byHash.get(key.hashCode());
+        }
+        if (a == null || a.next == a.values.size()) {
+            return null;
+        }
+        return a.values.get(a.next++);
+    }
+
+    /**
+     * Get how many answers the index holds
+     * @return the number of answers, given or not
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Start giving every prompt's answers from the first again, for another run
+     */
+    public void rewind() {
+        for (Answers a : this.byText.values()) {
+            a.next = 0;
+        }
+        for (Answers a : this.byHash.values()) {
+            a.next = 0;
+        }
+    }
+}
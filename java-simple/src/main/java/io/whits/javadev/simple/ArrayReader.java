@@ -0,0 +1,221 @@
+package io.whits.javadev.simple;
+
+import java.util.Arrays;
+
+/** <strong>Collects delimited numbers from lines into primitive arrays.</strong><p>
+ *
+ * Used by SmartScanner's <code>nextIntArray</code> family. Values may be
+ * separated by whitespace, commas or semicolons. Each one is parsed in place
+ * with a <code>{@link NumberParser}</code> and appended to a primitive buffer
+ * which grows as needed and is kept for the next read, so nothing is boxed.
+ * Every value which fails to parse or is out of range is noted, and reported
+ * together once all the lines are read. Values are checked by the same
+ * <code>{@link IntPrompt}</code> and <code>{@link DoublePrompt}</code> single
+ * values are, so they are turned down in the same words.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+final class ArrayReader {
+    static final int INTS = 0;
+    static final int LONGS = 1;
+    static final int DOUBLES = 2;
+    // Only this many problems are listed, the rest are counted
+    private static final int LISTED_PROBLEMS = 10;
+
+    private final NumberParser numbers;
+    private final Attempt attempt;
+    private int kind;
+    private IntPrompt intPrompt;
+    private long lower;
+    private long upper;
+    private DoublePrompt doublePrompt;
+    private int[] ints = new int[0];
+    private long[] longs = new long[0];
+    private double[] doubles = new double[0];
+    private int size;
+    private final StringBuilder problems = new StringBuilder();
+    private int problemCount;
+    private String firstProblem;
+    private long firstProblemLine;
+
+    ArrayReader(NumberParser numbers) {
+        this.numbers = numbers;
+        this.attempt = new Attempt(numbers);
+    }
+
+    /**
+     * Start collecting ints
+     * @param p - what each value must be
+     */
+    void start(IntPrompt p) {
+        this.kind = INTS;
+        this.intPrompt = p;
+        this.clear();
+    }
+
+    /**
+     * Start collecting longs
+     * @param lower - the smallest value allowed
+     * @param upper - the largest value allowed
+     */
+    void start(long lower, long upper) {
+        this.kind = LONGS;
+        this.lower = lower;
+        this.upper = upper;
+        this.clear();
+    }
+
+    /**
+     * Start collecting doubles
+     * @param p - what each value must be, usually from <code>DoublePrompt.within</code>
+     */
+    void start(DoublePrompt p) {
+        this.kind = DOUBLES;
+        this.doublePrompt = p;
+        this.clear();
+    }
+
+    /**
+     * Forget the values collected so far, to read them again
+     */
+    void clear() {
+        this.size = 0;
+        this.problems.setLength(0);
+        this.problemCount = 0;
+        this.firstProblem = null;
+    }
+
+    /**
+     * Parse every value on a line
+     * @param line - the line of input
+     * @param lineNumber - where the line was in the input, for error reports
+     */
+    void add(CharSequence line, long lineNumber) {
+        int end = line.length();
+        int k = 0;
+        while (true) {
+            while (k < end && isDelimiter(line.charAt(k))) {
+                k++;
+            }
+            if (k == end) {
+                return;
+            }
+            int start = k;
+            while (k < end && !isDelimiter(line.charAt(k))) {
+                k++;
+            }
+            this.parse(line, start, k, lineNumber);
+        }
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c <= ' ' || c == ',' || c == ';';
+    }
+
+    private void parse(CharSequence line, int start, int end, long lineNumber) {
+        NumberParser n = this.numbers;
+        Attempt a = this.attempt;
+        a.reset();
+        switch (this.kind) {
+            case INTS:
+                if (!n.parseInt(line, start, end)) {
+                    this.problem(line, start, end, lineNumber, n.errorText());
+                } else if (!this.intPrompt.check(n.intValue(), a)) {
+                    this.problem(line, start, end, lineNumber, a.reason);
+                } else {
+                    if (this.size == this.ints.length) {
+                        this.ints = Arrays.copyOf(this.ints, Math.max(16, this.size * 2));
+                    }
+                    this.ints[this.size++] = n.intValue();
+                }
+                break;
+            case LONGS:
+                if (!n.parseLong(line, start, end)) {
+                    this.problem(line, start, end, lineNumber, n.errorText());
+                } else if (!IntPrompt.inRange(n.longValue(), this.lower, this.upper, a)) {
+                    this.problem(line, start, end, lineNumber, a.reason);
+                } else {
+                    if (this.size == this.longs.length) {
+                        this.longs = Arrays.copyOf(this.longs, Math.max(16, this.size * 2));
+                    }
+                    this.longs[this.size++] = n.longValue();
+                }
+                break;
+            default:
+                if (!n.parseDouble(line, start, end)) {
+                    this.problem(line, start, end, lineNumber, n.errorText());
+                } else if (!this.doublePrompt.check(n.doubleValue(), a)) {
+                    this.problem(line, start, end, lineNumber, a.reason);
+                } else {
+                    if (this.size == this.doubles.length) {
+                        this.doubles = Arrays.copyOf(this.doubles, Math.max(16, this.size * 2));
+                    }
+                    this.doubles[this.size++] = n.doubleValue();
+                }
+        }
+    }
+
+    private void problem(CharSequence line, int start, int end, long lineNumber, String reason) {
+        int position = this.size + this.problemCount + 1;
+        this.problemCount++;
+        String value = line.subSequence(start, end).toString();
+        if (this.firstProblem == null) {
+            this.firstProblem = value;
+            this.firstProblemLine = lineNumber;
+        }
+        if (this.problemCount <= LISTED_PROBLEMS) {
+            this.problems.append(String.format("value #%d (%s): %s%n", position, value, reason));
+        }
+    }
+
+    /**
+     * Check whether any value was rejected
+     * @return true if there is something to report
+     */
+    boolean failed() {
+        return this.problemCount > 0;
+    }
+
+    /**
+     * Describe every rejected value
+     * @return one line per problem, up to a limit
+     */
+    String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d of %d values were not valid:%n",
+            this.problemCount, this.size + this.problemCount));
+        sb.append(this.problems);
+        if (this.problemCount > LISTED_PROBLEMS) {
+            sb.append(String.format("and %d more%n", this.problemCount - LISTED_PROBLEMS));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get the first rejected value
+     * @return the value as it was typed, or null if there was none
+     */
+    String firstProblem() {
+        return this.firstProblem;
+    }
+
+    /**
+     * Get where the first rejected value was
+     * @return the line number of the first rejected value
+     */
+    long firstProblemLine() {
+        return this.firstProblemLine;
+    }
+
+    int[] toIntArray() {
+        return Arrays.copyOf(this.ints, this.size);
+    }
+
+    long[] toLongArray() {
+        return Arrays.copyOf(this.longs, this.size);
+    }
+
+    double[] toDoubleArray() {
+        return Arrays.copyOf(this.doubles, this.size);
+    }
+}
@@ -0,0 +1,64 @@
+package io.whits.javadev.simple;
+
+/** <strong>One try at answering a prompt.</strong><p>
+ *
+ * A prompt's stages are handed an <code>Attempt</code> along with each line
+ * the user types. They parse the line with its <code>{@link NumberParser}</code>,
+ * and if the line is no good they say why with <code>reject</code>. Each
+ * SmartScanner keeps one and reuses it for every answer, so checking an
+ * answer allocates nothing unless it is rejected.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public final class Attempt {
+    private final NumberParser numbers;
+    String reason;
+    String advice;
+    int intValue;
+    double doubleValue;
+    Object value;
+
+    Attempt(NumberParser numbers) {
+        this.numbers = numbers;
+    }
+
+    void reset() {
+        this.reason = null;
+        this.advice = null;
+        this.value = null;
+    }
+
+    /**
+     * Get a parser for numbers in the line
+     * @return the scanner's parser, owned by the calling thread
+     */
+    public NumberParser numbers() {
+        return this.numbers;
+    }
+
+    /**
+     * Turn the answer down, telling the user why before they try again
+     * @param reason - what was wrong, as shown in batch mode errors
+     */
+    public void reject(String reason) {
+        this.reject(reason, String.format("That is not a valid value: %s. Try again.\n\n", reason));
+    }
+
+    /**
+     * Turn the answer down
+     * @param reason - what was wrong, as shown in batch mode errors
+     * @param advice - what to print before the user tries again
+     */
+    public void reject(String reason, String advice) {
+        this.reason = reason;
+        this.advice = advice;
+    }
+
+    /**
+     * Check whether the answer has been turned down
+     * @return true once <code>reject</code> has been called
+     */
+    public boolean isRejected() {
+        return this.reason != null;
+    }
+}
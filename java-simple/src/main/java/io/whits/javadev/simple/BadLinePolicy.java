@@ -0,0 +1,15 @@
+package io.whits.javadev.simple;
+
+/** <strong>What a stream of values does with a line that isn't one.</strong><p>
+ *
+ * Used by SmartScanner's <code>ints</code>, <code>longs</code> and
+ * <code>doubles</code> streams, where nobody can be asked again.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public enum BadLinePolicy {
+    /** Leave the line out and carry on. */
+    SKIP,
+    /** Stop with a <code>{@link BatchInputException}</code> naming the line. */
+    FAIL
+}
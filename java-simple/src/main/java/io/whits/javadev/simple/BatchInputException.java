@@ -0,0 +1,53 @@
+package io.whits.javadev.simple;
+
+/** <strong>Thrown in batch mode when an answer is not valid.</strong><p>
+ *
+ * An interactive SmartScanner tells the user what went wrong and asks again.
+ * Nobody is there to answer again in batch mode, so the SmartScanner stops
+ * with this exception instead, which records which prompt failed, what the
+ * answer was and on which line of input it appeared.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class BatchInputException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String prompt;
+    private final String input;
+    private final String reason;
+    private final long lineNumber;
+
+    /**
+     * @param prompt - the prompt which was being answered, or null if the
+     * input was read without one
+     * @param input - the rejected answer
+     * @param reason - why the answer was rejected
+     * @param lineNumber - the line of input the answer was read from, starting at 1
+     */
+    public BatchInputException(String prompt, String input, String reason, long lineNumber) {
+        super(prompt == null
+            ? String.format("Line %d: invalid answer \"%s\": %s", lineNumber, input, reason)
+            : String.format("Line %d: invalid answer \"%s\" to \"%s\": %s",
+                lineNumber, input, prompt, reason));
+        this.prompt = prompt;
+        this.input = input;
+        this.reason = reason;
+        this.lineNumber = lineNumber;
+    }
+
+    public String getPrompt() {
+        return this.prompt;
+    }
+
+    public String getInput() {
+        return this.input;
+    }
+
+    public String getReason() {
+        return this.reason;
+    }
+
+    public long getLineNumber() {
+        return this.lineNumber;
+    }
+}
@@ -0,0 +1,132 @@
+package io.whits.javadev.simple;
+
+import java.util.Arrays;
+
+/** <strong>Recognizes yes and no answers without allocating.</strong><p>
+ *
+ * A <code>BooleanRecognizer</code> is built from a list of words meaning yes
+ * and a list meaning no, which are compiled into a trie over ASCII. Answers
+ * are matched case-insensitively and ignoring surrounding whitespace (as
+ * <code>String.trim()</code> sees it) by walking the trie over the
+ * characters where they are, so no trimmed or lower cased copy is made.
+ * Case is folded for ASCII letters only, so an answer is classified the same
+ * way whatever the default locale is.<p>
+ *
+ * Recognizers are immutable and can be shared between threads.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class BooleanRecognizer {
+    /** The answer meant no. */
+    public static final int NO = 0;
+    /** The answer meant yes. */
+    public static final int YES = 1;
+    /** The answer was neither. */
+    public static final int UNRECOGNIZED = -1;
+
+    private static final BooleanRecognizer STANDARD = new BooleanRecognizer(
+        new String[] {"yes", "y", "1", "true", "t"},
+        new String[] {"no", "n", "0", "false", "f"});
+
+    // next[node * 128 + c] is the child of node for c, or 0 if there is none
+    private final int[] next;
+    // What reaching each node means, if the answer ends there
+    private final byte[] meaning;
+
+    /**
+     * @param yes - the words meaning yes
+     * @param no - the words meaning no
+     * @throws IllegalArgumentException if a word is empty, has surrounding
+     * whitespace or anything other than printable ASCII, or is in both lists
+     */
+    public BooleanRecognizer(String[] yes, String[] no) {
+        int nodes = 1;
+        for (String w : yes) {
+            nodes += w.length();
+        }
+        for (String w : no) {
+            nodes += w.length();
+        }
+        int[] trie = new int[nodes * 128];
+        byte[] ends = new byte[nodes];
+        Arrays.fill(ends, (byte) UNRECOGNIZED);
+        int used = 1;
+        for (int pass = 0; pass < 2; pass++) {
+            String[] words = pass == 0 ? yes : no;
+            byte value = (byte) (pass == 0 ? YES : NO);
+            for (String w : words) {
+                if (w.isEmpty() || w.charAt(0) <= ' ' || w.charAt(w.length() - 1) <= ' ') {
+                    throw new IllegalArgumentException(String.format(
+                        "\"%s\" cannot be empty or start or end with whitespace", w));
+                }
+                int node = 0;
+                for (int k = 0; k < w.length(); k++) {
+                    int c = fold(w.charAt(k));
+                    if (c < ' ' || c > '~') {
+                        throw new IllegalArgumentException(String.format(
+                            "\"%s\" must be printable ASCII", w));
+                    }
+                    if (trie[node * 128 + c] == 0) {
+                        trie[node * 128 + c] = used++;
+                    }
+                    node = trie[node * 128 + c];
+                }
+                if (ends[node] != UNRECOGNIZED && ends[node] != value) {
+                    throw new IllegalArgumentException(String.format(
+                        "\"%s\" cannot mean both yes and no", w));
+                }
+                ends[node] = value;
+            }
+        }
+        this.next = Arrays.copyOf(trie, used * 128);
+        this.meaning = Arrays.copyOf(ends, used);
+    }
+
+    /**
+     * Get the recognizer SmartScanner uses unless told otherwise, which
+     * accepts <code>yes/y/1/true/t</code> and <code>no/n/0/false/f</code>.
+     * @return the shared standard recognizer
+     */
+    public static BooleanRecognizer standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Classify a whole answer.
+     * @param s - the answer
+     * @return <code>{@link #YES}</code>, <code>{@link #NO}</code> or
+     * <code>{@link #UNRECOGNIZED}</code>
+     */
+    public int recognize(CharSequence s) {
+        return this.recognize(s, 0, s.length());
+    }
+
+    /**
+     * Classify part of an answer.
+     * @param s - the text holding the answer
+     * @param start - the index of the first character (inclusive)
+     * @param end - the index after the last character (exclusive)
+     * @return <code>{@link #YES}</code>, <code>{@link #NO}</code> or
+     * <code>{@link #UNRECOGNIZED}</code>
+     */
+    public int recognize(CharSequence s, int start, int end) {
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int node = 0;
+        for (int k = start; k < end; k++) {
+            int c = fold(s.charAt(k));
+            if (c >= 128 || (node = this.next[node * 128 + c]) == 0) {
+                return UNRECOGNIZED;
+            }
+        }
+        return this.meaning[node];
+    }
+
+    private static int fold(char c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+}
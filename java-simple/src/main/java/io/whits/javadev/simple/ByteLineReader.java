@@ -0,0 +1,375 @@
+package io.whits.javadev.simple;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/** <strong>A buffered line reader working directly on bytes.</strong><p>
+ *
+ * <code>ByteLineReader</code> reads from an <code>InputStream</code> or a
+ * blocking <code>ReadableByteChannel</code> into a single reusable byte buffer
+ * and looks for line breaks in it without any regex or <code>CharBuffer</code>
+ * work. Only the bytes of a finished line are decoded into a String.<p>
+ *
+ * Lines may end in <code>\n</code>, <code>\r\n</code> or a lone
+ * <code>\r</code>. The charset must be ASCII compatible (UTF-8, ISO-8859-1,
+ * windows-1252 and so on), which is true of every console charset in practice.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class ByteLineReader implements LineSource {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final ByteScanner LINE_BREAKS = ByteScanner.lineBreaks();
+
+    private final InputStream in;
+    private final ReadableByteChannel channel;
+    private final Charset charset;
+    private byte[] buf;
+    private ByteBuffer channelView;
+    // buf read as little-endian words by the scanner, kept so no line allocates
+    private ByteBuffer words;
+    // Unread bytes are buf[pos, limit)
+    private int pos;
+    private int limit;
+    private boolean eof;
+    // A line ended in \r at the end of the buffer, so a following \n belongs to it
+    private boolean skipLF;
+    // Set by locateLine(), the current line is buf[pos, lineEnd) and the next starts at nextPos
+    private boolean located;
+    private int lineEnd;
+    private int nextPos;
+    private boolean endsInLoneCR;
+    // Handed out by nextLineView() for lines which need no decoding
+    private final LineView view = new LineView();
+    private final boolean latin1;
+
+    /**
+     * Read lines from a stream using the platform charset.
+     * @param in - the stream to read from
+     */
+    public ByteLineReader(InputStream in) {
+        this(in, Charset.defaultCharset(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Read lines from a stream.
+     * @param in - the stream to read from
+     * @param cs - the charset lines are decoded with
+     */
+    public ByteLineReader(InputStream in, Charset cs) {
+        this(in, cs, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Read lines from a stream.
+     * @param in - the stream to read from
+     * @param cs - the charset lines are decoded with
+     * @param bufferSize - the initial size of the buffer, it grows to fit long lines
+     */
+    public ByteLineReader(InputStream in, Charset cs, int bufferSize) {
+        this(in, null, cs, bufferSize);
+    }
+
+    /**
+     * Read lines from a blocking channel using the platform charset.
+     * @param ch - the channel to read from
+     */
+    public ByteLineReader(ReadableByteChannel ch) {
+        this(ch, Charset.defaultCharset(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Read lines from a blocking channel.
+     * @param ch - the channel to read from
+     * @param cs - the charset lines are decoded with
+     * @param bufferSize - the initial size of the buffer, it grows to fit long lines
+     */
+    public ByteLineReader(ReadableByteChannel ch, Charset cs, int bufferSize) {
+        this(null, ch, cs, bufferSize);
+    }
+
+    private ByteLineReader(InputStream in, ReadableByteChannel ch, Charset cs, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.in = in;
+        this.channel = ch;
+        this.charset = cs;
+        this.buf = new byte[bufferSize];
+        this.latin1 = StandardCharsets.ISO_8859_1.equals(cs);
+    }
+
+    /**
+     * Get the charset lines are decoded with
+     * @return the charset used by this reader
+     */
+    public Charset getCharset() {
+        return this.charset;
+    }
+
+    public String nextLine() {
+        if (!this.locateLine(true)) {
+            throw new NoSuchElementException("No line found");
+        }
+        String line = new String(this.buf, this.pos, this.lineEnd - this.pos, this.charset);
+        this.consumeLine();
+        return line;
+    }
+
+    /**
+     * Read the next line without copying it, if it is plain ASCII (or any
+     * ISO-8859-1). Other lines are decoded into a String as usual.
+     * @return the next line, only valid until the reader is next used
+     * @throws NoSuchElementException if the input is exhausted
+     */
+    @Override
+    public CharSequence nextLineView() {
+        if (!this.locateLine(true)) {
+            throw new NoSuchElementException("No line found");
+        }
+        if (!this.latin1 && !ByteScanner.isAscii(this.words(), this.pos, this.lineEnd)) {
+            return this.nextLine();
+        }
+        this.view.set(this.buf, this.pos, this.lineEnd);
+        this.consumeLine();
+        return this.view;
+    }
+
+    public boolean hasNextLine() {
+        return this.locateLine(true);
+    }
+
+    @Override
+    public boolean hasBufferedLine() {
+        return this.locateLine(false);
+    }
+
+    public void close() {
+        try {
+            if (this.in != null) {
+                this.in.close();
+            } else {
+                this.channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get a stream of the bytes this reader has not handed out yet, starting
+     * with what is already buffered. This is how a <code>java.util.Scanner</code>
+     * can take over from a ByteLineReader without losing input, after which
+     * the reader itself should no longer be used.
+     * @return a stream continuing where this reader stopped
+     */
+    public InputStream asInputStream() {
+        return new InputStream() {
+            private final InputStream rest = in != null ? in : Channels.newInputStream(channel);
+
+            private boolean dropPendingLF() {
+                if (skipLF && (pos < limit || fill())) {
+                    if (buf[pos] == '\n') {
+                        pos++;
+                    }
+                    skipLF = false;
+                }
+                located = false;
+                endsInLoneCR = false;
+                return pos < limit;
+            }
+
+            @Override
+            public int read() throws IOException {
+                if (this.dropPendingLF()) {
+                    return buf[pos++] & 0xFF;
+                }
+                return this.rest.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                if (this.dropPendingLF()) {
+                    int n = Math.min(len, limit - pos);
+                    System.arraycopy(buf, pos, b, off, n);
+                    pos += n;
+                    return n;
+                }
+                return this.rest.read(b, off, len);
+            }
+
+            @Override
+            public int available() throws IOException {
+                return (limit - pos) + this.rest.available();
+            }
+
+            @Override
+            public void close() throws IOException {
+                this.rest.close();
+            }
+        };
+    }
+
+    /**
+     * Find the bounds of the next line, reading more input when the buffer
+     * does not contain a full one.
+     * @param mayBlock - false to give up rather than read more input
+     * @return false if the input is exhausted, or if a line is not buffered
+     * and <code>mayBlock</code> is false
+     */
+    private boolean locateLine(boolean mayBlock) {
+        if (this.located) {
+            return true;
+        }
+        if (this.skipLF) {
+            if (this.pos == this.limit && (!mayBlock || !this.fill())) {
+                return false;
+            }
+            if (this.buf[this.pos] == '\n') {
+                this.pos++;
+            }
+            this.skipLF = false;
+        }
+        int scan = this.pos;
+        while (true) {
+            int found = LINE_BREAKS.indexOf(this.words(), scan, this.limit);
+            if (found >= 0) {
+                this.lineEnd = found;
+                if (this.buf[found] == '\n') {
+                    this.nextPos = found + 1;
+                } else if (found + 1 < this.limit) {
+                    this.nextPos = this.buf[found + 1] == '\n' ? found + 2 : found + 1;
+                } else {
+                    // Don't block just to find out if a \n follows, skip it later
+                    this.nextPos = found + 1;
+                    this.endsInLoneCR = true;
+                }
+                return this.located = true;
+            }
+            scan = this.limit;
+            int scanned = scan - this.pos;
+            if (!mayBlock && !this.eof) {
+                return false;
+            }
+            if (!this.fill()) {
+                if (this.pos == this.limit) {
+                    return false;
+                }
+                // Whatever is left is the last line
+                this.lineEnd = this.limit;
+                this.nextPos = this.limit;
+                return this.located = true;
+            }
+            scan = this.pos + scanned;
+        }
+    }
+
+    private void consumeLine() {
+        this.pos = this.nextPos;
+        this.skipLF = this.endsInLoneCR;
+        this.endsInLoneCR = false;
+        this.located = false;
+    }
+
+    /**
+     * Move unread bytes to the start of the buffer, growing it if it is full,
+     * and read as much as one call to the underlying input gives.
+     * @return false if nothing more could be read
+     */
+    private boolean fill() {
+        if (this.eof) {
+            return false;
+        }
+        if (this.pos > 0) {
+            System.arraycopy(this.buf, this.pos, this.buf, 0, this.limit - this.pos);
+            this.limit -= this.pos;
+            this.pos = 0;
+        }
+        if (this.limit == this.buf.length) {
+            byte[] bigger = new byte[this.buf.length * 2];
+            System.arraycopy(this.buf, 0, bigger, 0, this.limit);
+            this.buf = bigger;
+            this.channelView = null;
+            this.words = null;
+        }
+        try {
+            int n;
+            do {
+                n = this.read(this.limit, this.buf.length - this.limit);
+            } while (n == 0);
+            if (n < 0) {
+                this.eof = true;
+                return false;
+            }
+            this.limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer words() {
+        if (this.words == null) {
+            this.words = ByteBuffer.wrap(this.buf).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return this.words;
+    }
+
+    private int read(int off, int len) throws IOException {
+        if (this.in != null) {
+            return this.in.read(this.buf, off, len);
+        }
+        if (this.channelView == null) {
+            this.channelView = ByteBuffer.wrap(this.buf);
+        }
+        // Through Buffer so this still links against Java 8's ByteBuffer
+        Buffer view = this.channelView;
+        view.limit(off + len);
+        view.position(off);
+        return this.channel.read(this.channelView);
+    }
+
+    /** One byte per char view of part of the buffer. */
+    private static final class LineView implements CharSequence {
+        private byte[] bytes;
+        private int start;
+        private int end;
+
+        private void set(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int length() {
+            return this.end - this.start;
+        }
+
+        public char charAt(int index) {
+            if (index < 0 || index >= this.end - this.start) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + this.length());
+            }
+            return (char) (this.bytes[this.start + index] & 0xFF);
+        }
+
+        public CharSequence subSequence(int from, int to) {
+            return this.toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(this.bytes, this.start, this.end - this.start, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
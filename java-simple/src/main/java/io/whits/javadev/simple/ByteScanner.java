@@ -0,0 +1,205 @@
+package io.whits.javadev.simple;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** <strong>Finds line breaks and delimiters eight bytes at a time.</strong><p>
+ *
+ * A <code>ByteScanner</code> looks for any of a few target bytes in a byte
+ * array or buffer. Rather than testing bytes one by one it reads a whole
+ * <code>long</code> and tests all eight bytes in it with a few arithmetic
+ * operations (SIMD within a register), only dropping to one byte at a time
+ * for the last few bytes of a range. This needs nothing beyond Java 8 and
+ * works the same on every JVM.<p>
+ *
+ * <code>{@link ByteLineReader}</code> and <code>{@link MappedLineSource}</code>
+ * use one to find the ends of lines. Scanners are immutable and can be shared
+ * between threads.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public final class ByteScanner {
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long ONES = 0x0101010101010101L;
+    private static final ByteScanner LINE_BREAKS = new ByteScanner(new byte[] {'\n', '\r'}, true);
+
+    private final byte[] targets;
+    // Each target repeated in all eight bytes of a long
+    private final long[] patterns;
+    private final boolean wide;
+
+    ByteScanner(byte[] targets, boolean wide) {
+        if (targets.length == 0) {
+            throw new IllegalArgumentException("A scanner needs at least one byte to look for");
+        }
+        this.targets = targets.clone();
+        this.patterns = new long[targets.length];
+        for (int k = 0; k < targets.length; k++) {
+            this.patterns[k] = (targets[k] & 0xFFL) * ONES;
+        }
+        this.wide = wide;
+    }
+
+    /**
+     * Get a scanner for <code>\n</code> and <code>\r</code>, which between
+     * them end every line.
+     * @return the shared line break scanner
+     */
+    public static ByteScanner lineBreaks() {
+        return LINE_BREAKS;
+    }
+
+    /**
+     * Get a scanner for some bytes, such as a line break and the delimiters
+     * between values. Each extra byte adds a little to every word tested, so
+     * keep the list short.
+     * @param targets - the bytes to look for
+     * @return a new scanner
+     */
+    public static ByteScanner of(byte... targets) {
+        return new ByteScanner(targets, true);
+    }
+
+    /**
+     * Find the first target in part of an array. Searching the same array
+     * over and over is quicker through a little-endian <code>ByteBuffer</code>
+     * wrapping it, made once, as words are read from it in one load.
+     * @param a - the bytes to search
+     * @param from - the first index to look at
+     * @param to - the index to stop at, exclusive
+     * @return the index of the first target, or -1 if there isn't one
+     */
+    public int indexOf(byte[] a, int from, int to) {
+        int k = from;
+        if (this.wide && to - from >= 8) {
+            for (; k <= to - 8; k += 8) {
+                long m = this.matches(littleEndianLong(a, k));
+                if (m != 0) {
+                    return k + (Long.numberOfTrailingZeros(m) >>> 3);
+                }
+            }
+        }
+        for (; k < to; k++) {
+            if (this.isTarget(a[k])) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the first target in part of a buffer, without moving its position
+     * @param b - the bytes to search
+     * @param from - the first index to look at
+     * @param to - the index to stop at, exclusive
+     * @return the index of the first target, or -1 if there isn't one
+     */
+    public int indexOf(ByteBuffer b, int from, int to) {
+        int k = from;
+        if (this.wide && to - from >= 8) {
+            boolean little = b.order() == ByteOrder.LITTLE_ENDIAN;
+            for (; k <= to - 8; k += 8) {
+                long m = this.matches(b.getLong(k));
+                if (m != 0) {
+                    // The byte at k is the lowest in a little-endian word and the highest in a big-endian one
+                    return k + ((little ? Long.numberOfTrailingZeros(m) : Long.numberOfLeadingZeros(m)) >>> 3);
+                }
+            }
+        }
+        for (; k < to; k++) {
+            if (this.isTarget(b.get(k))) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check whether part of an array is plain 7-bit ASCII
+     * @param a - the bytes to check
+     * @param from - the first index to look at
+     * @param to - the index to stop at, exclusive
+     * @return true if no byte has its high bit set
+     */
+    public static boolean isAscii(byte[] a, int from, int to) {
+        int k = from;
+        if (to - from >= 8) {
+            long high = 0;
+            for (; k <= to - 8; k += 8) {
+                high |= littleEndianLong(a, k);
+            }
+            if ((high & HIGH_BITS) != 0) {
+                return false;
+            }
+        }
+        int high = 0;
+        for (; k < to; k++) {
+            high |= a[k];
+        }
+        return high >= 0;
+    }
+
+    /**
+     * Check whether part of a buffer is plain 7-bit ASCII
+     * @param b - the bytes to check
+     * @param from - the first index to look at
+     * @param to - the index to stop at, exclusive
+     * @return true if no byte has its high bit set
+     */
+    public static boolean isAscii(ByteBuffer b, int from, int to) {
+        int k = from;
+        long high = 0;
+        for (; k <= to - 8; k += 8) {
+            high |= b.getLong(k);
+        }
+        for (; k < to; k++) {
+            high |= b.get(k);
+        }
+        return (high & HIGH_BITS) == 0;
+    }
+
+    /**
+     * Read eight bytes of an array as a word, the first byte lowest. Done by
+     * hand rather than by wrapping the array, so scanning allocates nothing.
+     */
+    private static long littleEndianLong(byte[] a, int k) {
+        return (a[k] & 0xFFL)
+            | (a[k + 1] & 0xFFL) << 8
+            | (a[k + 2] & 0xFFL) << 16
+            | (a[k + 3] & 0xFFL) << 24
+            | (a[k + 4] & 0xFFL) << 32
+            | (a[k + 5] & 0xFFL) << 40
+            | (a[k + 6] & 0xFFL) << 48
+            | (long) a[k + 7] << 56;
+    }
+
+    /**
+     * Test all eight bytes of a word at once.
+     * @return a word with the high bit set in every byte which is a target,
+     * and nothing else set
+     */
+    private long matches(long word) {
+        long found = 0;
+        for (long p : this.patterns) {
+            // Bytes equal to the target become zero
+            long x = word ^ p;
+            // The high bit of each byte is set if its low seven bits are not all zero...
+            long t = (x & LOW_BITS) + LOW_BITS;
+            // ...so a byte is zero if neither that nor its own high bit is set.
+            // Unlike the usual (x - ONES) & ~x trick no borrow runs between bytes,
+            // so the result is exact in either byte order.
+            found |= ~(t | x | LOW_BITS);
+        }
+        return found;
+    }
+
+    private boolean isTarget(byte b) {
+        for (byte t : this.targets) {
+            if (b == t) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,58 +1,312 @@
 package io.whits.javadev.simple;
 
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 
 public class CommandLineMenu implements MenuOption {
     private String name;
     private String description;
     private String infoText;
-    //private String[] flags;
+    private String[] flags;
     private ArrayList<MenuOption> options;
+    // Shared by every session showing this menu, so replaced as a whole
+    private volatile Frame frame;
+    private volatile FlagIndex flagIndex;
+
+    /** The rendered menu, and what it was rendered from. */
+    private static final class Frame {
+        private final byte[] bytes;
+        private final Charset charset;
+        private final MenuOption[] options;
+
+        private Frame(byte[] bytes, Charset charset, MenuOption[] options) {
+            this.bytes = bytes;
+            this.charset = charset;
+            this.options = options;
+        }
+    }
+
+    /** Where each flag in this menu's tree leads, and what it was built from. */
+    private static final class FlagIndex {
+        private final HashMap<String, int[]> paths;
+        private final MenuOption[] options;
+
+        private FlagIndex(HashMap<String, int[]> paths, MenuOption[] options) {
+            this.paths = paths;
+            this.options = options;
+        }
+    }
 
     /**
      * <p><strong></strong></p>
      * @param n the name of the CLM, used when being called from another CLM
      * @param d the description of the CLM, used when being called from another CLM
      * @param i The text to be displayed on the menu.
-     * @param f CLI flags, used if CLI flag parsing is implemented.
+     * @param f CLI flags that lead to this menu, such as <code>--report</code>
      * @param o The MenuOptions this CLM can run
      */
     public CommandLineMenu(String n, String d, String i, String[] f, ArrayList<MenuOption> o) {
         this.name = n;
         this.description = d;
-        //this.flags = f;
+        this.flags = f == null ? new String[0] : f;
         this.infoText = i;
         this.options = o;
     }
 
+    /**
+     * Show this menu until the user leaves it. Submenus are entered with a
+     * <code>{@link MenuNavigator}</code>, so they do not nest on the Java stack,
+     * and their <code>run()</code> is not called. A subclass which overrides
+     * this is the exception: chosen from another menu, its <code>run()</code>
+     * is called as before, at the cost of a stack frame per level.
+     */
     public void run() {
-        while (true) {
-            /*
-            * TODO: Implement some way of dynamically being able to skip menus if
-            * a valid jcommander tag is passed.
-            */
-            System.out.printf("%s\n", this.description);
-            System.out.printf("%s\n\n", this.infoText);
-            for (int k = 0; k < this.options.size(); k++) {
-                System.out.printf("[%d]\t%s - %s\n", 
-                    k+1, 
-                    this.options.get(k).getName(),
-                    this.options.get(k).getDescription());
+        new MenuNavigator(this).run();
+    }
+
+    /**
+     * Show the menu once and read the user's choice.
+     * @return the option picked, or null to leave the menu
+     */
+    MenuOption choose() {
+        SessionJournal journal = StaticSmartScanner.getJournal();
+        if (journal != null) {
+            journal.record(SessionJournal.MENU, this.getName());
+        }
+        if (!StaticSmartScanner.hasTypeahead()) {
+            // A menu passed through on the way somewhere is never seen, so isn't drawn
+            OutputSink out = StaticSmartScanner.getOutput();
+            out.write(this.frame(out.getCharset()));
+        }
+        // This feels like a bad practice, but I'm too rushed to think of a better way
+        int selection = StaticSmartScanner.smartForceNextInt(
+            "Select an option", 
+            0, 
+            this.options.size());
+        
+        // 0 is always 'back/exit', menus should be able to be returned to.
+        MenuOption chosen = selection == 0 ? null : this.options.get(selection-1);
+        Metrics metrics = StaticSmartScanner.getMetrics();
+        if (metrics != null) {
+            metrics.chose(this, chosen);
+        }
+        return chosen;
+    }
+
+    /** <strong>Run the menu, skipping straight to an option named by flags.</strong><p>
+     *
+     * Each flag is looked up among everything reachable from the menu reached
+     * so far, so <code>--report --monthly</code> and, when it is unambiguous,
+     * just <code>--monthly</code> both run the monthly report without showing
+     * a single menu. The closest option wins when several share a flag. If
+     * the last flag names a menu, that menu is run interactively.<p>
+     *
+     * Anything after a lone <code>--</code> is ignored, so it can be left for
+     * the program. With no flags this is the same as <code>{@link #run()}</code>.
+     * @param args - the command line, usually straight from <code>main</code>
+     * @throws IllegalArgumentException if a flag is not found, or follows a
+     * flag which does not lead to a menu
+     */
+    public void run(String[] args) {
+        ArrayList<MenuOption> path = this.resolve(args);
+        if (path.isEmpty()) {
+            this.run();
+        } else {
+            path.get(path.size() - 1).run();
+        }
+    }
+
+    /**
+     * Work out which options a command line steps through, without running any.
+     * @param args - the command line, as for <code>{@link #run(String[])}</code>
+     * @return every option on the way, ending with the one to run. Empty if
+     * there were no flags.
+     * @throws IllegalArgumentException if a flag is not found, or follows a
+     * flag which does not lead to a menu
+     */
+    public ArrayList<MenuOption> resolve(String[] args) {
+        ArrayList<MenuOption> path = new ArrayList<MenuOption>();
+        CommandLineMenu menu = this;
+        String previous = null;
+        for (String arg : args) {
+            if (arg.equals("--")) {
+                break;
+            }
+            if (arg.length() < 2 || arg.charAt(0) != '-') {
+                throw new IllegalArgumentException(String.format(
+                    "Expected a flag but got \"%s\"", arg));
+            }
+            if (menu == null) {
+                throw new IllegalArgumentException(String.format(
+                    "%s does not lead to a menu, so %s cannot follow it", previous, arg));
+            }
+            int start = path.size();
+            if (!menu.follow(arg, path)) {
+                throw new IllegalArgumentException(String.format(
+                    "Unknown flag %s in %s", arg, menu.getName()));
+            }
+            for (int k = start; k < path.size(); k++) {
+                MenuOption o = path.get(k);
+                menu = o instanceof CommandLineMenu ? (CommandLineMenu) o : null;
+            }
+            previous = arg;
+        }
+        return path;
+    }
+
+    /**
+     * Append the options leading from this menu to the one with a flag.
+     * @return false if nothing below this menu has the flag
+     */
+    private boolean follow(String flag, ArrayList<MenuOption> path) {
+        FlagIndex cached = this.flagIndex;
+        FlagIndex index = this.flagIndex();
+        int[] steps = index.paths.get(flag);
+        int start = path.size();
+        if (steps != null && this.walk(steps, flag, path)) {
+            return true;
+        }
+        if (index != cached) {
+            // Built just now, so the flag really is missing
+            return false;
+        }
+        // Something deeper in the tree, such as a submenu's options, may
+        // have changed since the index was built
+        while (path.size() > start) {
+            path.remove(path.size() - 1);
+        }
+        this.flagIndex = null;
+        steps = this.flagIndex().paths.get(flag);
+        return steps != null && this.walk(steps, flag, path);
+    }
+
+    private boolean walk(int[] steps, String flag, ArrayList<MenuOption> path) {
+        MenuOption o = this;
+        for (int step : steps) {
+            if (!(o instanceof CommandLineMenu) || step >= ((CommandLineMenu) o).options.size()) {
+                return false;
             }
-            System.out.printf("[0]\tLeave this menu");
-            // This feels like a bad practice, but I'm too rushed to think of a better way
-            int selection = StaticSmartScanner.smartForceNextInt(
-                "Select an option", 
-                0, 
-                this.options.size());
-            
-            // 0 is always 'back/exit', menus should be able to be returned to.
-            if (selection == 0) {
-                return;
+            o = ((CommandLineMenu) o).options.get(step);
+            path.add(o);
+        }
+        return hasFlag(o, flag);
+    }
+
+    private static boolean hasFlag(MenuOption o, String flag) {
+        String[] f = o.getFlags();
+        if (f != null) {
+            for (String candidate : f) {
+                if (flag.equals(candidate)) {
+                    return true;
+                }
             }
-            this.options.get(selection-1).run();
         }
+        return false;
+    }
+
+    /**
+     * Get the flag index, building it breadth first over the whole tree so
+     * the closest option with a flag is the one kept.
+     */
+    private FlagIndex flagIndex() {
+        FlagIndex cached = this.flagIndex;
+        if (cached != null && !this.optionsChanged(cached.options)) {
+            return cached;
+        }
+        HashMap<String, int[]> paths = new HashMap<String, int[]>();
+        IdentityHashMap<MenuOption, Boolean> seen = new IdentityHashMap<MenuOption, Boolean>();
+        ArrayDeque<CommandLineMenu> menus = new ArrayDeque<CommandLineMenu>();
+        ArrayDeque<int[]> prefixes = new ArrayDeque<int[]>();
+        menus.add(this);
+        prefixes.add(new int[0]);
+        seen.put(this, Boolean.TRUE);
+        while (!menus.isEmpty()) {
+            CommandLineMenu m = menus.poll();
+            int[] prefix = prefixes.poll();
+            for (int k = 0; k < m.options.size(); k++) {
+                MenuOption o = m.options.get(k);
+                int[] steps = new int[prefix.length + 1];
+                System.arraycopy(prefix, 0, steps, 0, prefix.length);
+                steps[prefix.length] = k;
+                String[] f = o.getFlags();
+                if (f != null) {
+                    for (String flag : f) {
+                        if (!paths.containsKey(flag)) {
+                            paths.put(flag, steps);
+                        }
+                    }
+                }
+                // Menus can appear in more than one place, only search them once
+                if (o instanceof CommandLineMenu && seen.put(o, Boolean.TRUE) == null) {
+                    menus.add((CommandLineMenu) o);
+                    prefixes.add(steps);
+                }
+            }
+        }
+        cached = new FlagIndex(paths, this.options.toArray(new MenuOption[0]));
+        this.flagIndex = cached;
+        return cached;
+    }
+
+    /**
+     * Get the options this CLM can run. Adding, removing or replacing options
+     * is noticed the next time the menu is shown.
+     * @return the live list of options
+     */
+    public ArrayList<MenuOption> getOptions() {
+        return this.options;
+    }
+
+    /**
+     * Throw away the cached menu text and flag index, so they are built again
+     * next time. Call this if an option's name, description or flags change.
+     */
+    public void invalidateFrame() {
+        this.frame = null;
+        this.flagIndex = null;
+    }
+
+    /**
+     * Get the whole menu as encoded bytes, rendering it only if the options
+     * have changed since last time.
+     * @param cs - the charset the menu will be written in
+     * @return the menu text, ready to be written in one go
+     */
+    private byte[] frame(Charset cs) {
+        Frame cached = this.frame;
+        if (cached != null && cs.equals(cached.charset) && !this.optionsChanged(cached.options)) {
+            return cached.bytes;
+        }
+        StringBuilder sb = new StringBuilder();
+        Formatter f = new Formatter(sb);
+        f.format("%s\n", this.description);
+        f.format("%s\n\n", this.infoText);
+        for (int k = 0; k < this.options.size(); k++) {
+            f.format("[%d]\t%s - %s\n", 
+                k+1, 
+                this.options.get(k).getName(),
+                this.options.get(k).getDescription());
+        }
+        f.format("[0]\tLeave this menu");
+        cached = new Frame(sb.toString().getBytes(cs), cs, this.options.toArray(new MenuOption[0]));
+        this.frame = cached;
+        return cached.bytes;
+    }
 
+    private boolean optionsChanged(MenuOption[] rendered) {
+        if (rendered.length != this.options.size()) {
+            return true;
+        }
+        for (int k = 0; k < rendered.length; k++) {
+            if (rendered[k] != this.options.get(k)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public String getName() {
@@ -68,11 +322,11 @@ public class CommandLineMenu implements MenuOption {
     }
     
     /**
-     * Currently returns a useless value. Will be updated once I care enough
-     * to figure out jcommander
-     * @return a 0 length string array.
+     * Get the flags that lead to this menu from the command line.
+     * @return the flags given to the constructor, see
+     * <code>{@link #run(String[])}</code>
      */
     public String[] getFlags() {
-        return new String[0];
+        return this.flags.clone();
     }
 }
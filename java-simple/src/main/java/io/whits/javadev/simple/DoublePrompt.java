@@ -0,0 +1,160 @@
+package io.whits.javadev.simple;
+
+import java.util.Arrays;
+
+/** <strong>A prompt for a double, which never boxes it.</strong><p>
+ *
+ * A <code>DoublePrompt</code> parses the answer with SmartScanner's
+ * <code>{@link NumberParser}</code>, checks it against an optional range and
+ * then against any extra checks, in the order they were added. Prompts are
+ * immutable, so one built up front can be asked any number of times from
+ * any thread:
+ * <pre>
+ * private static final DoublePrompt PRICE = DoublePrompt.atLeast(0).where(new DoublePrompt.Check() {
+ *     public String check(double value) {
+ *         return Math.rint(value * 100) == value * 100 ? null : "must be in whole cents";
+ *     }
+ * });
+ * ...
+ * double price = scanner.ask("Price", PRICE);
+ * </pre>
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public final class DoublePrompt extends PromptStage {
+    private static final DoublePrompt ANY = new DoublePrompt(false, Double.NEGATIVE_INFINITY,
+        false, Double.POSITIVE_INFINITY, new Check[0]);
+
+    /** <strong>An extra rule for a double answer.</strong> */
+    public interface Check {
+        /**
+         * @param value - the parsed answer
+         * @return null if the value is fine, otherwise why it isn't
+         */
+        String check(double value);
+    }
+
+    private final boolean hasLower;
+    private final double lower;
+    private final boolean hasUpper;
+    private final double upper;
+    private final Check[] checks;
+
+    private DoublePrompt(boolean hasLower, double lower, boolean hasUpper, double upper, Check[] checks) {
+        this.hasLower = hasLower;
+        this.lower = lower;
+        this.hasUpper = hasUpper;
+        this.upper = upper;
+        this.checks = checks;
+    }
+
+    /**
+     * Accept any double, including NaN and the infinities
+     * @return the prompt
+     */
+    public static DoublePrompt any() {
+        return ANY;
+    }
+
+    /**
+     * Accept doubles no smaller than a limit
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @return the prompt
+     */
+    public static DoublePrompt atLeast(double rangeLower) {
+        return new DoublePrompt(true, rangeLower, false, Double.POSITIVE_INFINITY, ANY.checks);
+    }
+
+    /**
+     * Accept doubles within a range
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return the prompt
+     */
+    public static DoublePrompt between(double rangeLower, double rangeUpper) {
+        return new DoublePrompt(true, rangeLower, true, rangeUpper, ANY.checks);
+    }
+
+    /**
+     * Accept doubles within a range, or anything at all, NaN included, when
+     * both bounds are infinite. Arrays and streams of doubles read this way.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return the prompt
+     */
+    static DoublePrompt within(double rangeLower, double rangeUpper) {
+        if (rangeLower == Double.NEGATIVE_INFINITY && rangeUpper == Double.POSITIVE_INFINITY) {
+            return ANY;
+        }
+        return between(rangeLower, rangeUpper);
+    }
+
+    /**
+     * Add a rule, checked after the range and any earlier rules
+     * @param c - the rule
+     * @return a new prompt which also checks <code>c</code>
+     */
+    public DoublePrompt where(Check c) {
+        Check[] more = Arrays.copyOf(this.checks, this.checks.length + 1);
+        more[this.checks.length] = c;
+        return new DoublePrompt(this.hasLower, this.lower, this.hasUpper, this.upper, more);
+    }
+
+    @Override
+    String expected() {
+        if (this.hasUpper) {
+            return String.format("a number between %,f and %,f", this.lower, this.upper);
+        }
+        return this.hasLower ? String.format("a number of at least %,f", this.lower) : "a number";
+    }
+
+    @Override
+    boolean takesOneWord() {
+        return true;
+    }
+
+    @Override
+    String kind() {
+        return "double";
+    }
+
+    @Override
+    boolean accept(CharSequence line, Attempt a) {
+        NumberParser n = a.numbers();
+        if (!n.parseDouble(line)) {
+            a.reject(n.errorText(), String.format("That is not a valid value. Try again.%n"
+                + "Detailed error below:%n%s%n%n", n.errorText()));
+            return false;
+        }
+        return this.check(n.doubleValue(), a);
+    }
+
+    /**
+     * Check a double which has already been parsed, such as one of several on a line
+     * @param value - the answer
+     * @param a - where to leave the value, or why it was rejected
+     * @return true if the value is accepted
+     */
+    boolean check(double value, Attempt a) {
+        if (this.hasUpper) {
+            if (!(value >= this.lower && value <= this.upper)) {
+                a.reject(String.format("must be between %,f and %,f", this.lower, this.upper),
+                    String.format("Please enter a value between %,f and %,f.\n", this.lower, this.upper));
+                return false;
+            }
+        } else if (this.hasLower && !(value >= this.lower)) {
+            a.reject(String.format("must be at least %,f", this.lower),
+                String.format("Please enter a value greater than %,f.\n", this.lower));
+            return false;
+        }
+        for (Check c : this.checks) {
+            String reason = c.check(value);
+            if (reason != null) {
+                a.reject(reason);
+                return false;
+            }
+        }
+        a.doubleValue = value;
+        return true;
+    }
+}
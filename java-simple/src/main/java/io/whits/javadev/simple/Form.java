@@ -0,0 +1,270 @@
+package io.whits.javadev.simple;
+
+import java.util.Arrays;
+
+/** <strong>Many named answers, asked for all at once.</strong><p>
+ *
+ * A <code>Form</code> is a list of named fields, each checked by a
+ * <code>{@link Prompt}</code>, <code>{@link IntPrompt}</code> or
+ * <code>{@link DoublePrompt}</code>. <code>SmartScanner.fill</code> shows
+ * every field once and takes the answers as <code>name=value</code> pairs,
+ * one per line or several on a line separated by <code>;</code>, so a whole
+ * form can be pasted in one go. If some answers are wrong or missing, only
+ * those fields are asked for again:
+ * <pre>
+ * private static final Form ORDER = new Form()
+ *     .field("item", Prompt.matching(Pattern.compile("^[A-Z]{3}-\\d{4}$")))
+ *     .field("count", IntPrompt.between(1, 99))
+ *     .field("price", DoublePrompt.atLeast(0))
+ *     .field("gift", Prompt.yesOrNo(BooleanRecognizer.standard()));
+ * ...
+ * Form.Record r = scanner.fill("New order", ORDER);
+ * // item=ABC-1234; count=3; price=9.99; gift=no
+ * int count = r.getInt("count");
+ * </pre>
+ * Forms are immutable; <code>field</code> returns a new form. Field names
+ * are matched ignoring case, and can't contain <code>=</code> or <code>;</code>.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public final class Form {
+    private final String[] names;
+    private final PromptStage[] stages;
+    // Every field, as shown the first time
+    private final String rendered;
+
+    /**
+     * Start an empty form
+     */
+    public Form() {
+        this(new String[0], new PromptStage[0]);
+    }
+
+    private Form(String[] names, PromptStage[] stages) {
+        this.names = names;
+        this.stages = stages;
+        this.rendered = this.render(null);
+    }
+
+    /**
+     * Add an int field
+     * @param name - what the field is called in answers
+     * @param p - how to check the answer
+     * @return a new form with the field at the end
+     */
+    public Form field(String name, IntPrompt p) {
+        return this.with(name, p);
+    }
+
+    /**
+     * Add a double field
+     * @param name - what the field is called in answers
+     * @param p - how to check the answer
+     * @return a new form with the field at the end
+     */
+    public Form field(String name, DoublePrompt p) {
+        return this.with(name, p);
+    }
+
+    /**
+     * Add a field of any other type
+     * @param name - what the field is called in answers
+     * @param p - how to parse and check the answer
+     * @return a new form with the field at the end
+     */
+    public Form field(String name, Prompt<?> p) {
+        return this.with(name, p);
+    }
+
+    private Form with(String name, PromptStage p) {
+        if (name.isEmpty() || !name.trim().equals(name)
+                || name.indexOf('=') >= 0 || name.indexOf(';') >= 0) {
+            throw new IllegalArgumentException("Not a usable field name: \"" + name + "\"");
+        }
+        if (this.indexOf(name) >= 0) {
+            throw new IllegalArgumentException("The form already has a field called " + name);
+        }
+        String[] n = Arrays.copyOf(this.names, this.names.length + 1);
+        PromptStage[] s = Arrays.copyOf(this.stages, this.stages.length + 1);
+        n[this.names.length] = name;
+        s[this.stages.length] = p;
+        return new Form(n, s);
+    }
+
+    /**
+     * Get how many fields there are
+     * @return the number of fields
+     */
+    public int size() {
+        return this.names.length;
+    }
+
+    /**
+     * Get a field's name
+     * @param k - the field's position, from 0
+     * @return the name it was added with
+     */
+    public String getName(int k) {
+        return this.names[k];
+    }
+
+    /**
+     * Find a field
+     * @param name - the field's name, in any case
+     * @return its position, or -1 if there is no such field
+     */
+    public int indexOf(String name) {
+        for (int k = 0; k < this.names.length; k++) {
+            if (this.names[k].equalsIgnoreCase(name)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    PromptStage stage(int k) {
+        return this.stages[k];
+    }
+
+    /**
+     * List fields with what each accepts
+     * @param wanted - which fields to list, or null for all of them
+     * @return the text to show
+     */
+    String render(boolean[] wanted) {
+        if (wanted == null && this.rendered != null) {
+            return this.rendered;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < this.names.length; k++) {
+            if (wanted == null || wanted[k]) {
+                sb.append(String.format("  %s: %s%n", this.names[k], this.stages[k].expected()));
+            }
+        }
+        sb.append(String.format("Answer with name=value, one per line or separated by ';'.%n"));
+        return sb.toString();
+    }
+
+    /**
+     * Find where a value ends. A value runs up to a <code>;</code> followed by
+     * the name of a field and <code>=</code>, so a lone <code>;</code> can
+     * still be part of it.
+     * @param text - the line
+     * @param from - where the value starts
+     * @return the index just past the value
+     */
+    int valueEnd(String text, int from) {
+        int k = from;
+        while ((k = text.indexOf(';', k)) >= 0) {
+            int equals = text.indexOf('=', k + 1);
+            if (equals >= 0 && this.indexOf(text.substring(k + 1, equals).trim()) >= 0) {
+                return k;
+            }
+            k++;
+        }
+        return text.length();
+    }
+
+    Record newRecord() {
+        return new Record(this);
+    }
+
+    /** <strong>The answers to a form.</strong><p>
+     * Int and double answers are kept unboxed, side by side in one array.
+     */
+    public static final class Record {
+        private final Form form;
+        private final long[] numbers;
+        private final Object[] values;
+
+        private Record(Form form) {
+            this.form = form;
+            this.numbers = new long[form.size()];
+            this.values = new Object[form.size()];
+        }
+
+        void store(int k, Attempt a) {
+            PromptStage s = this.form.stages[k];
+            if (s instanceof IntPrompt) {
+                this.numbers[k] = a.intValue;
+            } else if (s instanceof DoublePrompt) {
+                this.numbers[k] = Double.doubleToRawLongBits(a.doubleValue);
+            } else {
+                this.values[k] = a.value;
+            }
+        }
+
+        private int field(String name, Class<?> kind) {
+            int k = this.form.indexOf(name);
+            if (k < 0) {
+                throw new IllegalArgumentException("The form has no field called " + name);
+            }
+            if (kind != null && !kind.isInstance(this.form.stages[k])) {
+                throw new IllegalArgumentException(String.format("%s is not %s field", name,
+                    kind == IntPrompt.class ? "an int" : "a double"));
+            }
+            return k;
+        }
+
+        /**
+         * Get an int answer
+         * @param name - the field, added with an IntPrompt
+         * @return the answer
+         */
+        public int getInt(String name) {
+            return (int) this.numbers[this.field(name, IntPrompt.class)];
+        }
+
+        /**
+         * Get a double answer
+         * @param name - the field, added with a DoublePrompt
+         * @return the answer
+         */
+        public double getDouble(String name) {
+            return Double.longBitsToDouble(this.numbers[this.field(name, DoublePrompt.class)]);
+        }
+
+        /**
+         * Get any answer, boxing ints and doubles
+         * @param name - the field
+         * @return the answer
+         */
+        public Object get(String name) {
+            return this.get(this.field(name, null));
+        }
+
+        /**
+         * Get an answer of a known type
+         * @param <T> the answer's type
+         * @param name - the field
+         * @param type - the answer's class, such as <code>Boolean.class</code>
+         * @return the answer
+         */
+        public <T> T get(String name, Class<T> type) {
+            return type.cast(this.get(name));
+        }
+
+        private Object get(int k) {
+            PromptStage s = this.form.stages[k];
+            if (s instanceof IntPrompt) {
+                return (int) this.numbers[k];
+            }
+            if (s instanceof DoublePrompt) {
+                return Double.longBitsToDouble(this.numbers[k]);
+            }
+            return this.values[k];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("{");
+            for (int k = 0; k < this.values.length; k++) {
+                if (k > 0) {
+                    sb.append(", ");
+                }
+                sb.append(this.form.names[k]).append('=').append(this.get(k));
+            }
+            return sb.append('}').toString();
+        }
+    }
+}
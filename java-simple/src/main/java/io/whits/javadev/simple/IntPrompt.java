@@ -0,0 +1,161 @@
+package io.whits.javadev.simple;
+
+import java.util.Arrays;
+
+/** <strong>A prompt for an int, which never boxes it.</strong><p>
+ *
+ * An <code>IntPrompt</code> parses the answer with SmartScanner's
+ * <code>{@link NumberParser}</code>, checks it against an optional range and
+ * then against any extra checks, in the order they were added. Prompts are
+ * immutable, so one built up front can be asked any number of times from
+ * any thread:
+ * <pre>
+ * private static final IntPrompt EVEN = IntPrompt.between(0, 100).where(new IntPrompt.Check() {
+ *     public String check(int value) {
+ *         return value % 2 == 0 ? null : "must be even";
+ *     }
+ * });
+ * ...
+ * int n = scanner.ask("Pick an even number", EVEN);
+ * </pre>
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public final class IntPrompt extends PromptStage {
+    private static final IntPrompt ANY = new IntPrompt(false, Integer.MIN_VALUE, false, Integer.MAX_VALUE, new Check[0]);
+
+    /** <strong>An extra rule for an int answer.</strong> */
+    public interface Check {
+        /**
+         * @param value - the parsed answer
+         * @return null if the value is fine, otherwise why it isn't
+         */
+        String check(int value);
+    }
+
+    private final boolean hasLower;
+    private final int lower;
+    private final boolean hasUpper;
+    private final int upper;
+    private final Check[] checks;
+
+    private IntPrompt(boolean hasLower, int lower, boolean hasUpper, int upper, Check[] checks) {
+        this.hasLower = hasLower;
+        this.lower = lower;
+        this.hasUpper = hasUpper;
+        this.upper = upper;
+        this.checks = checks;
+    }
+
+    /**
+     * Accept any int
+     * @return the prompt
+     */
+    public static IntPrompt any() {
+        return ANY;
+    }
+
+    /**
+     * Accept ints no smaller than a limit
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @return the prompt
+     */
+    public static IntPrompt atLeast(int rangeLower) {
+        return new IntPrompt(true, rangeLower, false, Integer.MAX_VALUE, ANY.checks);
+    }
+
+    /**
+     * Accept ints within a range
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return the prompt
+     */
+    public static IntPrompt between(int rangeLower, int rangeUpper) {
+        return new IntPrompt(true, rangeLower, true, rangeUpper, ANY.checks);
+    }
+
+    /**
+     * Add a rule, checked after the range and any earlier rules
+     * @param c - the rule
+     * @return a new prompt which also checks <code>c</code>
+     */
+    public IntPrompt where(Check c) {
+        Check[] more = Arrays.copyOf(this.checks, this.checks.length + 1);
+        more[this.checks.length] = c;
+        return new IntPrompt(this.hasLower, this.lower, this.hasUpper, this.upper, more);
+    }
+
+    @Override
+    String expected() {
+        if (this.hasUpper) {
+            return String.format("an int between %,d and %,d", this.lower, this.upper);
+        }
+        return this.hasLower ? String.format("an int of at least %,d", this.lower) : "an int";
+    }
+
+    @Override
+    boolean takesOneWord() {
+        return true;
+    }
+
+    @Override
+    String kind() {
+        return "int";
+    }
+
+    @Override
+    boolean accept(CharSequence line, Attempt a) {
+        NumberParser n = a.numbers();
+        if (!n.parseInt(line)) {
+            a.reject(n.errorText(), String.format("That is not a valid value. Try again.%n"
+                + "Detailed error below:%n%s%n%n", n.errorText()));
+            return false;
+        }
+        return this.check(n.intValue(), a);
+    }
+
+    /**
+     * Check an int which has already been parsed, such as one of several on a line
+     * @param value - the answer
+     * @param a - where to leave the value, or why it was rejected
+     * @return true if the value is accepted
+     */
+    boolean check(int value, Attempt a) {
+        if (this.hasUpper) {
+            if (!inRange(value, this.lower, this.upper, a)) {
+                return false;
+            }
+        } else if (this.hasLower && value < this.lower) {
+            a.reject(String.format("must be at least %,d", this.lower),
+                String.format("Please enter a value greater than %,d\n", this.lower));
+            return false;
+        }
+        for (Check c : this.checks) {
+            String reason = c.check(value);
+            if (reason != null) {
+                a.reject(reason);
+                return false;
+            }
+        }
+        a.intValue = value;
+        return true;
+    }
+
+    /**
+     * Check a whole number against a range, so ints and longs are turned
+     * down in the same words
+     * @param value - the parsed answer
+     * @param lower - the smallest value allowed
+     * @param upper - the largest value allowed
+     * @param a - where to say why the value is no good
+     * @return true if the value is in range
+     */
+    static boolean inRange(long value, long lower, long upper, Attempt a) {
+        if (value < lower || value > upper) {
+            a.reject(String.format("must be between %,d and %,d", lower, upper),
+                String.format("Please enter a value between %,d and %,d.\n", lower, upper));
+            return false;
+        }
+        return true;
+    }
+}
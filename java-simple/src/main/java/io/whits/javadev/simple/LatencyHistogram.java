@@ -0,0 +1,123 @@
+package io.whits.javadev.simple;
+
+/** <strong>Counts of how long something took, for percentiles.</strong><p>
+ *
+ * Times are counted in buckets rather than kept, so recording is a few
+ * shifts and an increment, and a histogram takes the same few kilobytes
+ * however many times it holds. Each power of two is split into 16 buckets,
+ * so a percentile is within about 6% of the real time. Times from 2^40
+ * nanoseconds (about 18 minutes) up all share the last bucket.<p>
+ *
+ * A histogram is not thread safe. Give each thread its own and
+ * <code>{@link #add(LatencyHistogram) add}</code> them together afterwards.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+
+    // How many buckets every histogram has
+    static final int BUCKETS = bucket(Long.MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long max;
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent >= MAX_EXPONENT) {
+            return (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+        }
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // The largest time that lands in a bucket
+    private static long highest(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        if (exponent >= MAX_EXPONENT) {
+            return Long.MAX_VALUE;
+        }
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    /**
+     * Count one time
+     * @param nanos - how long it took
+     */
+    public void record(long nanos) {
+        this.counts[bucket(nanos)]++;
+        this.count++;
+        if (nanos > this.max) {
+            this.max = nanos;
+        }
+    }
+
+    /**
+     * Count times already sorted into a bucket, for copying a histogram
+     * kept some other way
+     */
+    void add(int bucket, long n, long max) {
+        this.counts[bucket] += n;
+        this.count += n;
+        this.max = Math.max(this.max, max);
+    }
+
+    /**
+     * Count every time another histogram holds
+     * @param other - the histogram to add, which is left as it was
+     */
+    public void add(LatencyHistogram other) {
+        for (int k = 0; k < this.counts.length; k++) {
+            this.counts[k] += other.counts[k];
+        }
+        this.count += other.count;
+        this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * Get how many times were recorded
+     * @return the number of times
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Get the longest time recorded, exactly
+     * @return the longest time in nanoseconds, or 0 if there are none
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Get a percentile
+     * @param p - the percentile, from 0 to 100, such as 99.9
+     * @return a time in nanoseconds which at least <code>p</code> percent of
+     * times were no longer than, or 0 if there are none
+     */
+    public long percentile(double p) {
+        if (!(p >= 0 && p <= 100)) {
+            throw new IllegalArgumentException("Not a percentile: " + p);
+        }
+        long wanted = Math.max(1, (long) Math.ceil(this.count * p / 100));
+        long seen = 0;
+        for (int k = 0; k < this.counts.length; k++) {
+            seen += this.counts[k];
+            if (seen >= wanted) {
+                return Math.min(highest(k), this.max);
+            }
+        }
+        return 0;
+    }
+}
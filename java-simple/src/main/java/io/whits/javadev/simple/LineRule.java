@@ -0,0 +1,141 @@
+package io.whits.javadev.simple;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** <strong>What one line of an answer file is expected to be.</strong><p>
+ *
+ * Each rule accepts exactly what the matching SmartScanner prompt accepts,
+ * and rejects a line with the same reason batch mode would give. Rules are
+ * immutable and can be shared between threads.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ * @see AnswerFileValidator
+ */
+public abstract class LineRule {
+    private final String expected;
+
+    /**
+     * @param expected - what the rule accepts, for reports, such as "an int"
+     */
+    protected LineRule(String expected) {
+        this.expected = expected;
+    }
+
+    /**
+     * Check a line
+     * @param line - the line, without its line break
+     * @param numbers - a parser the rule may use, owned by the calling thread
+     * @return null if the line is fine, otherwise why it isn't
+     */
+    public abstract String check(CharSequence line, NumberParser numbers);
+
+    /**
+     * Describe what the rule accepts
+     * @return a short description, such as "an int between 1 and 5"
+     */
+    public String getExpected() {
+        return this.expected;
+    }
+
+    @Override
+    public String toString() {
+        return this.expected;
+    }
+
+    /**
+     * Accept any line, for answers such as free text.
+     * @return the rule
+     */
+    public static LineRule anyLine() {
+        return new LineRule("any text") {
+            public String check(CharSequence line, NumberParser numbers) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Accept what <code>smartForceNextInt(String, int, int)</code> accepts.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return the rule
+     */
+    public static LineRule intBetween(int rangeLower, int rangeUpper) {
+        return of(IntPrompt.between(rangeLower, rangeUpper));
+    }
+
+    /**
+     * Accept what <code>smartForceNextInt(String)</code> accepts.
+     * @return the rule
+     */
+    public static LineRule anyInt() {
+        return of(IntPrompt.any());
+    }
+
+    /**
+     * Accept what <code>smartForceNextDouble(String, double, double)</code> accepts.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return the rule
+     */
+    public static LineRule doubleBetween(double rangeLower, double rangeUpper) {
+        return of(DoublePrompt.between(rangeLower, rangeUpper));
+    }
+
+    /**
+     * Accept what <code>smartForceNextDouble(String)</code> accepts.
+     * @return the rule
+     */
+    public static LineRule anyDouble() {
+        return of(DoublePrompt.any());
+    }
+
+    /**
+     * Check lines exactly as a prompt checks answers
+     */
+    private static LineRule of(final PromptStage p) {
+        return new LineRule(p.expected()) {
+            public String check(CharSequence line, NumberParser numbers) {
+                Attempt a = new Attempt(numbers);
+                return p.accept(line, a) ? null : a.reason;
+            }
+        };
+    }
+
+    /**
+     * Accept what <code>smartForceNextBoolean(String)</code> accepts.
+     * @param r - the words meaning yes and no
+     * @return the rule
+     */
+    public static LineRule yesOrNo(final BooleanRecognizer r) {
+        return new LineRule("yes or no") {
+            public String check(CharSequence line, NumberParser numbers) {
+                return r.recognize(line) == BooleanRecognizer.UNRECOGNIZED ? "not a yes or no answer" : null;
+            }
+        };
+    }
+
+    /**
+     * Accept what <code>smartForceNextStringMatching(String, Pattern)</code> accepts.
+     * @param e - the regex to validate against
+     * @return the rule
+     */
+    public static LineRule matching(final Pattern e) {
+        return new LineRule("text matching " + e.pattern()) {
+            // Each thread checking lines reuses its own matcher
+            private final ThreadLocal<Matcher> matchers = new ThreadLocal<Matcher>();
+
+            public String check(CharSequence line, NumberParser numbers) {
+                Matcher m = this.matchers.get();
+                if (m == null) {
+                    m = e.matcher("");
+                    this.matchers.set(m);
+                }
+                boolean found = m.reset(line).find();
+                m.reset("");
+                return found ? null : "does not match " + e.pattern();
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package io.whits.javadev.simple;
+
+import java.io.Closeable;
+
+/** <strong>A source of lines of user input.</strong><p>
+ *
+ * <code>LineSource</code> is the input engine behind
+ * <code>{@link io.whits.javadev.simple.SmartScanner SmartScanner}</code>. The
+ * default implementation is <code>{@link ByteLineReader}</code>, which finds
+ * line breaks directly in a reusable byte buffer. Existing code which hands a
+ * <code>java.util.Scanner</code> to SmartScanner goes through
+ * <code>{@link ScannerLineSource}</code> instead.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public interface LineSource extends Closeable {
+    /**
+     * Read the next line of input, without its line terminator.
+     * @return the next line
+     * @throws java.util.NoSuchElementException if the input is exhausted
+     */
+    public String nextLine();
+
+    /**
+     * Read the next line of input as a view which may reuse the source's own
+     * buffer, for callers which only look at the line and then let it go.
+     * Sources which can't avoid making a String should keep the default.
+     * @return the next line, only valid until the source is next used
+     * @throws java.util.NoSuchElementException if the input is exhausted
+     */
+    public default CharSequence nextLineView() {
+        return this.nextLine();
+    }
+
+    /**
+     * Check whether another line is available, blocking if needed.
+     * @return true if <code>nextLine</code> would return a line
+     */
+    public boolean hasNextLine();
+
+    /**
+     * Check whether a whole line is already buffered, so that reading it will
+     * not block. SmartScanner uses this to decide when pending output has to be
+     * flushed. Sources which can't tell should keep the default of false.
+     * @return true if <code>nextLine</code> is known to return without blocking
+     */
+    public default boolean hasBufferedLine() {
+        return false;
+    }
+
+    /**
+     * Close the source and whatever it reads from.
+     */
+    public void close();
+}
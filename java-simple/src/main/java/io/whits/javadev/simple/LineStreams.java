@@ -0,0 +1,407 @@
+package io.whits.javadev.simple;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/** <strong>Spliterators behind SmartScanner's streams.</strong><p>
+ *
+ * A <code>LineCursor</code> walks the lines of some input and can hand off a
+ * leading part of it. The value spliterators parse each line with their own
+ * <code>{@link NumberParser}</code> and check it against the same rules as
+ * <code>smartForceNextInt</code> and friends, so a parallel stream validates
+ * on every core.<p>
+ *
+ * Input from a <code>{@link MappedLineSource}</code> is split by byte range,
+ * each part starting just after a line break, so parts are read straight
+ * from the mapping in parallel. Any other source is read in order, with
+ * growing batches of lines copied off for other threads, much as
+ * <code>Spliterators.AbstractSpliterator</code> does. Either way a prefix is
+ * what is split off, so encounter order is kept.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+final class LineStreams {
+    private LineStreams() {
+    }
+
+    /**
+     * Make a cursor over the rest of a source's input. A mapped source is
+     * read by the cursor from then on, and left at its end.
+     * @param src - the input
+     * @param linesBefore - how many lines were read before, for line numbers
+     * @return a cursor at the source's next line
+     */
+    static LineCursor cursor(LineSource src, long linesBefore) {
+        if (src instanceof MappedLineSource) {
+            MappedLineSource m = (MappedLineSource) src;
+            LineCursor c = new MappedCursor(m.getChannel(), m.getCharset(),
+                m.position(), m.size(), m.position(), linesBefore);
+            m.skipToEnd();
+            return c;
+        }
+        return new SourceCursor(src, linesBefore);
+    }
+
+    /** Lines of input, one at a time, which can give up a leading part. */
+    abstract static class LineCursor {
+        /**
+         * Move to the next line
+         * @return false if there are no more
+         */
+        abstract boolean advance();
+
+        /**
+         * Get the current line
+         * @return the line, only valid until the next advance
+         */
+        abstract CharSequence line();
+
+        /**
+         * Work out where the current line was in the input. This may be slow,
+         * it is only needed to report a bad line.
+         * @return the line's number, starting at 1
+         */
+        abstract long lineNumber();
+
+        /**
+         * Split off the lines before this cursor's remaining lines
+         * @return a cursor over a leading part of the lines, or null
+         */
+        abstract LineCursor trySplit();
+
+        abstract long estimateSize();
+
+        int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+    }
+
+    /** Reads any LineSource in order. */
+    private static final class SourceCursor extends LineCursor {
+        private static final int BATCH_UNIT = 1024;
+        private static final int MAX_BATCH = 1 << 25;
+
+        private final LineSource src;
+        private long number;
+        private CharSequence line;
+        private int batch = BATCH_UNIT;
+
+        private SourceCursor(LineSource src, long linesBefore) {
+            this.src = src;
+            this.number = linesBefore;
+        }
+
+        boolean advance() {
+            if (!this.src.hasNextLine()) {
+                return false;
+            }
+            this.line = this.src.nextLineView();
+            this.number++;
+            return true;
+        }
+
+        CharSequence line() {
+            return this.line;
+        }
+
+        long lineNumber() {
+            return this.number;
+        }
+
+        LineCursor trySplit() {
+            String[] lines = new String[this.batch];
+            long first = this.number + 1;
+            int n = 0;
+            while (n < lines.length && this.advance()) {
+                lines[n++] = this.line.toString();
+            }
+            if (n == 0) {
+                return null;
+            }
+            this.batch = Math.min(this.batch + BATCH_UNIT, MAX_BATCH);
+            return new ArrayCursor(lines, 0, n, first);
+        }
+
+        long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /** Lines already copied out of a source. */
+    private static final class ArrayCursor extends LineCursor {
+        private final String[] lines;
+        private int next;
+        private final int end;
+        // The line number of lines[0]
+        private final long first;
+
+        private ArrayCursor(String[] lines, int from, int end, long first) {
+            this.lines = lines;
+            this.next = from;
+            this.end = end;
+            this.first = first;
+        }
+
+        boolean advance() {
+            if (this.next == this.end) {
+                return false;
+            }
+            this.next++;
+            return true;
+        }
+
+        CharSequence line() {
+            return this.lines[this.next - 1];
+        }
+
+        long lineNumber() {
+            return this.first + this.next - 1;
+        }
+
+        LineCursor trySplit() {
+            int half = (this.end - this.next) / 2;
+            if (half == 0) {
+                return null;
+            }
+            ArrayCursor prefix = new ArrayCursor(this.lines, this.next, this.next + half, this.first);
+            this.next += half;
+            return prefix;
+        }
+
+        long estimateSize() {
+            return this.end - this.next;
+        }
+
+        @Override
+        int characteristics() {
+            return super.characteristics() | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    /** Reads a byte range of a mapped file, starting on a line. */
+    private static final class MappedCursor extends LineCursor {
+        // Not worth splitting smaller than this
+        private static final long MIN_SPLIT = 64 * 1024;
+
+        private final FileChannel channel;
+        private final Charset charset;
+        private long from;
+        private final long to;
+        // Where the stream started, which is line linesBefore + 1
+        private final long base;
+        private final long linesBefore;
+        private MappedLineSource src;
+        private long lineStart;
+        private CharSequence line;
+
+        private MappedCursor(FileChannel channel, Charset charset, long from, long to, long base, long linesBefore) {
+            this.channel = channel;
+            this.charset = charset;
+            this.from = from;
+            this.to = to;
+            this.base = base;
+            this.linesBefore = linesBefore;
+        }
+
+        boolean advance() {
+            if (this.src == null) {
+                this.src = new MappedLineSource(this.channel, this.charset, this.from, this.to,
+                    MappedLineSource.DEFAULT_WINDOW);
+            }
+            if (!this.src.hasNextLine()) {
+                return false;
+            }
+            this.lineStart = this.src.position();
+            this.line = this.src.nextLineView();
+            return true;
+        }
+
+        CharSequence line() {
+            return this.line;
+        }
+
+        long lineNumber() {
+            MappedLineSource before = new MappedLineSource(this.channel, this.charset, this.base,
+                this.lineStart, MappedLineSource.DEFAULT_WINDOW);
+            long n = this.linesBefore + 1;
+            while (before.hasNextLine()) {
+                before.nextLineView();
+                n++;
+            }
+            return n;
+        }
+
+        LineCursor trySplit() {
+            if (this.src != null || this.to - this.from < MIN_SPLIT) {
+                return null;
+            }
+            long split = MappedLineSource.nextLineStart(this.channel,
+                this.from + (this.to - this.from) / 2, this.to);
+            if (split < 0) {
+                return null;
+            }
+            MappedCursor prefix = new MappedCursor(this.channel, this.charset, this.from, split,
+                this.base, this.linesBefore);
+            this.from = split;
+            return prefix;
+        }
+
+        long estimateSize() {
+            // At most one line per byte
+            return this.to - this.from;
+        }
+    }
+
+    /** Shared by the value spliterators: parsing, checking and bad lines. */
+    private abstract static class Values {
+        final LineCursor cursor;
+        final BadLinePolicy policy;
+        final NumberParser numbers = new NumberParser();
+        final Attempt attempt = new Attempt(this.numbers);
+
+        Values(LineCursor cursor, BadLinePolicy policy) {
+            this.cursor = cursor;
+            this.policy = policy;
+        }
+
+        void reject(CharSequence line, String reason) {
+            if (this.policy == BadLinePolicy.FAIL) {
+                throw new BatchInputException(null, line.toString(), reason, this.cursor.lineNumber());
+            }
+        }
+
+        public long estimateSize() {
+            return this.cursor.estimateSize();
+        }
+
+        public int characteristics() {
+            int c = this.cursor.characteristics();
+            // Skipped lines make the size a guess
+            return this.policy == BadLinePolicy.SKIP ? c & ~(Spliterator.SIZED | Spliterator.SUBSIZED) : c;
+        }
+    }
+
+    /** Every line, as a String. */
+    static final class Lines implements Spliterator<String> {
+        private final LineCursor cursor;
+
+        Lines(LineCursor cursor) {
+            this.cursor = cursor;
+        }
+
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (!this.cursor.advance()) {
+                return false;
+            }
+            action.accept(this.cursor.line().toString());
+            return true;
+        }
+
+        public Spliterator<String> trySplit() {
+            LineCursor prefix = this.cursor.trySplit();
+            return prefix == null ? null : new Lines(prefix);
+        }
+
+        public long estimateSize() {
+            return this.cursor.estimateSize();
+        }
+
+        public int characteristics() {
+            return this.cursor.characteristics();
+        }
+    }
+
+    /** One int per line, checked as an IntPrompt checks it. */
+    static final class Ints extends Values implements Spliterator.OfInt {
+        private final IntPrompt prompt;
+
+        Ints(LineCursor cursor, IntPrompt prompt, BadLinePolicy policy) {
+            super(cursor, policy);
+            this.prompt = prompt;
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            while (this.cursor.advance()) {
+                CharSequence line = this.cursor.line();
+                this.attempt.reset();
+                if (this.prompt.accept(line, this.attempt)) {
+                    action.accept(this.attempt.intValue);
+                    return true;
+                }
+                this.reject(line, this.attempt.reason);
+            }
+            return false;
+        }
+
+        public Spliterator.OfInt trySplit() {
+            LineCursor prefix = this.cursor.trySplit();
+            return prefix == null ? null : new Ints(prefix, this.prompt, this.policy);
+        }
+    }
+
+    /** One long per line. */
+    static final class Longs extends Values implements Spliterator.OfLong {
+        private final long lower;
+        private final long upper;
+
+        Longs(LineCursor cursor, long lower, long upper, BadLinePolicy policy) {
+            super(cursor, policy);
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            while (this.cursor.advance()) {
+                CharSequence line = this.cursor.line();
+                this.attempt.reset();
+                if (!this.numbers.parseLong(line)) {
+                    this.reject(line, this.numbers.errorText());
+                } else if (!IntPrompt.inRange(this.numbers.longValue(), this.lower, this.upper, this.attempt)) {
+                    this.reject(line, this.attempt.reason);
+                } else {
+                    action.accept(this.numbers.longValue());
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public Spliterator.OfLong trySplit() {
+            LineCursor prefix = this.cursor.trySplit();
+            return prefix == null ? null : new Longs(prefix, this.lower, this.upper, this.policy);
+        }
+    }
+
+    /** One double per line, checked as a DoublePrompt checks it. */
+    static final class Doubles extends Values implements Spliterator.OfDouble {
+        private final DoublePrompt prompt;
+
+        Doubles(LineCursor cursor, DoublePrompt prompt, BadLinePolicy policy) {
+            super(cursor, policy);
+            this.prompt = prompt;
+        }
+
+        public boolean tryAdvance(DoubleConsumer action) {
+            while (this.cursor.advance()) {
+                CharSequence line = this.cursor.line();
+                this.attempt.reset();
+                if (this.prompt.accept(line, this.attempt)) {
+                    action.accept(this.attempt.doubleValue);
+                    return true;
+                }
+                this.reject(line, this.attempt.reason);
+            }
+            return false;
+        }
+
+        public Spliterator.OfDouble trySplit() {
+            LineCursor prefix = this.cursor.trySplit();
+            return prefix == null ? null : new Doubles(prefix, this.prompt, this.policy);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package io.whits.javadev.simple;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+/** <strong>Runs many scripted sessions against a menu tree at once.</strong><p>
+ *
+ * Each session gets its own <code>{@link SmartScanner}</code> reading one of
+ * the scripts from memory and writing to nowhere, bound as a
+ * <code>{@link StaticSmartScanner.Session}</code>, so the menus and options
+ * run exactly as they would for a real user. Scripts are plain answers, one
+ * per line, or the input of a session recorded with a
+ * <code>{@link SessionJournal}</code>:
+ * <pre>
+ * LoadGenerator load = new LoadGenerator(mainMenu, Executors.newFixedThreadPool(64));
+ * load.addScript("1\nhello\n2\n1\n0\n0\n");
+ * load.addRecording(Paths.get("support-call.journal"));
+ * load.run(1000);                       // warm up
+ * System.out.print(load.run(10000));    // steps per second and percentiles
+ * </pre>
+ * Like <code>{@link MenuServer}</code>, sessions run as tasks on the
+ * <code>ExecutorService</code> passed in, so on a JDK with virtual threads a
+ * virtual thread executor runs thousands of sessions at once. Java 8 has
+ * none, so there any executor is used as it is.<p>
+ *
+ * A step is one menu shown, one choice read and the option chosen run. The
+ * report gives steps per second over the whole run, latency percentiles for
+ * every option of every menu, and the bytes allocated per step. Allocation
+ * is counted on the thread running each session, from its start to its end,
+ * so other work in the JVM is left out. Not every JVM counts it.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class LoadGenerator {
+    // Stands in for the menu's [0] in the per option latencies
+    private static final Object LEAVE = new Object();
+
+    private final CommandLineMenu root;
+    private final ExecutorService sessions;
+    private final ArrayList<byte[]> scripts = new ArrayList<byte[]>();
+
+    /**
+     * @param root - the menu every session starts in
+     * @param sessions - runs one task per session
+     */
+    public LoadGenerator(CommandLineMenu root, ExecutorService sessions) {
+        this.root = root;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Add a script of answers. Sessions take the scripts in turn.
+     * @param answers - what the user types, with a line break after each answer
+     * @return this generator
+     */
+    public LoadGenerator addScript(String answers) {
+        this.scripts.add(answers.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * Add the answers typed in a recorded session as a script
+     * @param journal - a file written by a <code>SessionJournal</code>
+     * @return this generator
+     * @throws UncheckedIOException if the journal can't be read
+     */
+    public LoadGenerator addRecording(Path journal) {
+        ByteArrayOutputStream script = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = SessionJournal.replay(journal)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                script.write(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.scripts.add(script.toByteArray());
+        return this;
+    }
+
+    /**
+     * Run sessions and wait for every one of them to end
+     * @param count - how many sessions to run
+     * @return what was measured
+     * @throws IllegalStateException if no scripts were added
+     * @throws IllegalStateException if interrupted while waiting
+     */
+    public Report run(int count) {
+        if (this.scripts.isEmpty()) {
+            throw new IllegalStateException("Add a script before running sessions");
+        }
+        final Report report = new Report();
+        final CountDownLatch done = new CountDownLatch(count);
+        long start = System.nanoTime();
+        for (int k = 0; k < count; k++) {
+            final byte[] script = this.scripts.get(k % this.scripts.size());
+            this.sessions.execute(new Runnable() {
+                public void run() {
+                    try {
+                        runSession(script, report);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sessions were running", e);
+        }
+        report.elapsed = System.nanoTime() - start;
+        return report;
+    }
+
+    private void runSession(byte[] script, Report report) {
+        SmartScanner s = new SmartScanner(new ByteLineReader(
+            new ByteArrayInputStream(script), StandardCharsets.UTF_8, 1024));
+        s.setOutput(new OutputSink(DISCARD, StandardCharsets.UTF_8, 8192));
+        final MenuNavigator navigator = new MenuNavigator(this.root);
+        final Recorder recorder = new Recorder();
+        navigator.setListener(recorder);
+        RuntimeException failure = null;
+        boolean ranOut = false;
+        long before = allocatedBytes();
+        try {
+            StaticSmartScanner.runInSession(s, new Runnable() {
+                public void run() {
+                    navigator.run();
+                }
+            });
+        } catch (NoSuchElementException e) {
+            if (s.getSource().hasNextLine()) {
+                // Thrown by an option itself, with answers still to come
+                failure = e;
+            } else {
+                // The script ended before the menus were left
+                ranOut = true;
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        long after = allocatedBytes();
+        // A counter the JVM reset or never kept gives nothing worth adding up
+        long allocated = before < 0 || after < before ? -1 : after - before;
+        report.merge(recorder, failure, ranOut, allocated);
+    }
+
+    /**
+     * Get how many bytes the current thread has allocated so far
+     * @return the count, or -1 if the JVM doesn't count allocations
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean counting = (com.sun.management.ThreadMXBean) threads;
+        if (!counting.isThreadAllocatedMemorySupported() || !counting.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return counting.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Output which is thrown away, since nobody reads it. */
+    private static final WritableByteChannel DISCARD = new WritableByteChannel() {
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            ((Buffer) src).position(src.limit());
+            return n;
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+    };
+
+    /** One session's latencies, kept apart so sessions never contend. */
+    private static final class Recorder implements MenuNavigator.Listener {
+        private final IdentityHashMap<CommandLineMenu, IdentityHashMap<Object, LatencyHistogram>> menus =
+            new IdentityHashMap<CommandLineMenu, IdentityHashMap<Object, LatencyHistogram>>();
+        private long steps;
+
+        public void stepped(CommandLineMenu menu, MenuOption chosen, long nanos) {
+            IdentityHashMap<Object, LatencyHistogram> options = this.menus.get(menu);
+            if (options == null) {
+                options = new IdentityHashMap<Object, LatencyHistogram>();
+                this.menus.put(menu, options);
+            }
+            Object key = chosen == null ? LEAVE : chosen;
+            LatencyHistogram h = options.get(key);
+            if (h == null) {
+                h = new LatencyHistogram();
+                options.put(key, h);
+            }
+            h.record(nanos);
+            this.steps++;
+        }
+    }
+
+    /** <strong>What a run of sessions measured.</strong><p>
+     * Latencies are kept per option, labelled with the menu's name and the
+     * option's, such as <code>"Main &gt; Echo"</code>. Leaving a menu is
+     * labelled <code>"Main &gt; [0]"</code>.
+     */
+    public static final class Report {
+        private final TreeMap<String, LatencyHistogram> latencies = new TreeMap<String, LatencyHistogram>();
+        private int sessions;
+        private int cutShort;
+        private int failed;
+        private RuntimeException firstFailure;
+        private long steps;
+        private long elapsed;
+        private long allocated;
+
+        private Report() {
+        }
+
+        private synchronized void merge(Recorder r, RuntimeException failure, boolean ranOut, long allocated) {
+            this.sessions++;
+            // One session not counted leaves the total meaningless
+            this.allocated = allocated < 0 || this.allocated < 0 ? -1 : this.allocated + allocated;
+            if (ranOut) {
+                this.cutShort++;
+            }
+            if (failure != null && this.failed++ == 0) {
+                this.firstFailure = failure;
+            }
+            this.steps += r.steps;
+            for (Map.Entry<CommandLineMenu, IdentityHashMap<Object, LatencyHistogram>> menu : r.menus.entrySet()) {
+                for (Map.Entry<Object, LatencyHistogram> option : menu.getValue().entrySet()) {
+                    Object key = option.getKey();
+                    String label = menu.getKey().getName() + " > "
+                        + (key == LEAVE ? "[0]" : ((MenuOption) key).getName());
+                    LatencyHistogram h = this.latencies.get(label);
+                    if (h == null) {
+                        h = new LatencyHistogram();
+                        this.latencies.put(label, h);
+                    }
+                    h.add(option.getValue());
+                }
+            }
+        }
+
+        /**
+         * Get how many sessions ran
+         * @return the number of sessions, including ones that failed
+         */
+        public synchronized int getSessions() {
+            return this.sessions;
+        }
+
+        /**
+         * Get how many sessions ran out of script before leaving the menus
+         * @return the number of sessions cut short
+         */
+        public synchronized int getCutShort() {
+            return this.cutShort;
+        }
+
+        /**
+         * Get how many sessions ended with an option throwing an exception
+         * @return the number of failed sessions
+         */
+        public synchronized int getFailed() {
+            return this.failed;
+        }
+
+        /**
+         * Get the first exception an option threw
+         * @return the exception, or null if no session failed
+         */
+        public synchronized RuntimeException getFirstFailure() {
+            return this.firstFailure;
+        }
+
+        /**
+         * Get how many steps every session took in total
+         * @return the number of steps
+         */
+        public synchronized long getSteps() {
+            return this.steps;
+        }
+
+        /**
+         * Get how long the run took, from the first session starting to the
+         * last one ending
+         * @return the time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return this.elapsed;
+        }
+
+        /**
+         * Get the throughput
+         * @return menu steps per second over the whole run
+         */
+        public double getStepsPerSecond() {
+            return this.getSteps() * 1e9 / Math.max(1, this.elapsed);
+        }
+
+        /**
+         * Get the allocation rate
+         * @return bytes allocated per step, or -1 if the JVM doesn't count them
+         */
+        public synchronized double getBytesPerStep() {
+            return this.allocated < 0 ? -1 : (double) this.allocated / Math.max(1, this.steps);
+        }
+
+        /**
+         * Get the latencies of one option
+         * @param menu - the menu's name
+         * @param option - the option's name, or null for leaving the menu
+         * @return the option's latencies, or null if it was never chosen
+         */
+        public synchronized LatencyHistogram getLatency(String menu, String option) {
+            return this.latencies.get(menu + " > " + (option == null ? "[0]" : option));
+        }
+
+        /**
+         * Get the latencies of every option chosen
+         * @return the latencies by label, sorted by label
+         */
+        public synchronized Map<String, LatencyHistogram> getLatencies() {
+            return new TreeMap<String, LatencyHistogram>(this.latencies);
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%,d sessions (%,d cut short, %,d failed), %,d steps in %,.3f s%n",
+                this.sessions, this.cutShort, this.failed, this.steps, this.elapsed / 1e9));
+            sb.append(String.format("%,.0f steps/s, ", this.getStepsPerSecond()));
+            if (this.allocated < 0) {
+                sb.append(String.format("allocation not measured%n"));
+            } else {
+                sb.append(String.format("%,.0f bytes allocated per step%n", this.getBytesPerStep()));
+            }
+            sb.append(String.format("%-32s %10s %10s %10s %10s %10s%n",
+                "Option", "count", "p50 us", "p90 us", "p99 us", "max us"));
+            for (Map.Entry<String, LatencyHistogram> e : this.latencies.entrySet()) {
+                LatencyHistogram h = e.getValue();
+                sb.append(String.format("%-32s %,10d %10.1f %10.1f %10.1f %10.1f%n", e.getKey(), h.getCount(),
+                    h.percentile(50) / 1e3, h.percentile(90) / 1e3, h.percentile(99) / 1e3, h.getMax() / 1e3));
+            }
+            return sb.toString();
+        }
+    }
+}
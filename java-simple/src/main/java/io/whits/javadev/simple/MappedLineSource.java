@@ -0,0 +1,378 @@
+package io.whits.javadev.simple;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/** <strong>Reads lines straight out of a memory-mapped file.</strong><p>
+ *
+ * <code>MappedLineSource</code> maps a file with <code>FileChannel.map</code>
+ * and finds line breaks in the mapping itself, so recorded answer files of
+ * any size are read at close to disk speed without going through a stream,
+ * and without the heap growing with the file. The file is mapped in windows
+ * (256 MiB by default) which move along as it is read; a window only has to
+ * hold the longest line.<p>
+ *
+ * <code>{@link #nextLineView()}</code> hands out plain ASCII lines as a view
+ * over the mapping without copying them at all. Other lines, and
+ * <code>{@link #nextLine()}</code>, copy just the line's bytes to decode them.<p>
+ *
+ * Line breaks and charsets are treated as in <code>{@link ByteLineReader}</code>.
+ * The file should not be changed while it is being read; its length is taken
+ * when it is opened.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class MappedLineSource implements LineSource {
+    static final long DEFAULT_WINDOW = 256L * 1024 * 1024;
+    private static final ByteScanner LINE_BREAKS = ByteScanner.lineBreaks();
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final boolean latin1;
+    // Where reading stops, the end of the file unless reading part of it
+    private final long end;
+    private long windowSize;
+    private MappedByteBuffer window;
+    // Where the window starts in the file
+    private long windowStart;
+    // The next unread byte, relative to the window
+    private int pos;
+    // Set by locateLine(), the current line is window[pos, lineEnd) and the next starts at nextPos
+    private boolean located;
+    private int lineEnd;
+    private int nextPos;
+    private boolean ascii;
+    private byte[] scratch = new byte[128];
+    private final MappedView view = new MappedView();
+
+    /**
+     * Map a file, decoding it with the platform charset.
+     * @param path - the file to read
+     * @throws UncheckedIOException if the file can't be opened or mapped
+     */
+    public MappedLineSource(Path path) {
+        this(path, Charset.defaultCharset());
+    }
+
+    /**
+     * Map a file.
+     * @param path - the file to read
+     * @param cs - the charset lines are decoded with
+     * @throws UncheckedIOException if the file can't be opened or mapped
+     */
+    public MappedLineSource(Path path, Charset cs) {
+        this(open(path), cs, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Map a file which is already open, starting from its current position.
+     * @param ch - the file to read, which the source now owns
+     * @param cs - the charset lines are decoded with
+     * @param windowSize - how much of the file to map at once. It grows if a
+     * line is longer than this.
+     * @throws UncheckedIOException if the file can't be mapped
+     */
+    public MappedLineSource(FileChannel ch, Charset cs, long windowSize) {
+        this(ch, cs, position(ch), -1, windowSize);
+    }
+
+    /**
+     * Read part of a file, as if it were the whole file.
+     * @param ch - the file to read, which the caller still owns
+     * @param cs - the charset lines are decoded with
+     * @param start - the offset to start reading at
+     * @param end - the offset to stop reading at, or -1 for the end of the file
+     * @param windowSize - how much of the file to map at once
+     */
+    MappedLineSource(FileChannel ch, Charset cs, long start, long end, long windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.channel = ch;
+        this.charset = cs;
+        this.latin1 = StandardCharsets.ISO_8859_1.equals(cs);
+        this.windowSize = Math.min(windowSize, Integer.MAX_VALUE);
+        try {
+            this.end = end < 0 ? ch.size() : end;
+            this.map(Math.min(start, this.end));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long position(FileChannel ch) {
+        try {
+            return ch.position();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FileChannel open(Path path) {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void map(long start) throws IOException {
+        this.windowStart = start;
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start,
+            Math.min(this.windowSize, this.end - start));
+        this.pos = 0;
+    }
+
+    /**
+     * Get the charset lines are decoded with
+     * @return the charset used by this source
+     */
+    public Charset getCharset() {
+        return this.charset;
+    }
+
+    /**
+     * Get how far through the file reading has got
+     * @return the offset in the file of the next unread byte
+     */
+    public long position() {
+        return this.windowStart + this.pos;
+    }
+
+    /**
+     * Get where reading stops
+     * @return the file's size in bytes when it was opened
+     */
+    public long size() {
+        return this.end;
+    }
+
+    /**
+     * Get the file being read
+     * @return the channel the file is mapped from
+     */
+    FileChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Find the first line in a file starting after an offset, without mapping it
+     * @param ch - the file
+     * @param offset - where to start looking
+     * @param end - where to stop looking
+     * @return the line's offset, or -1 if no line starts before <code>end</code>
+     */
+    static long nextLineStart(FileChannel ch, long offset, long end) {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        try {
+            long at = offset;
+            boolean afterCR = false;
+            while (at < end) {
+                // Through Buffer so this still links against Java 8's ByteBuffer
+                ((Buffer) buf).clear();
+                ((Buffer) buf).limit((int) Math.min(buf.capacity(), end - at));
+                int n = ch.read(buf, at);
+                if (n <= 0) {
+                    return -1;
+                }
+                for (int k = 0; k < n; k++, at++) {
+                    byte b = buf.get(k);
+                    if (afterCR) {
+                        return b == '\n' ? (at + 1 < end ? at + 1 : -1) : at;
+                    }
+                    if (b == '\n') {
+                        return at + 1 < end ? at + 1 : -1;
+                    }
+                    afterCR = b == '\r';
+                }
+            }
+            return -1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Give up on the rest of the file, as if it had all been read.
+     */
+    void skipToEnd() {
+        try {
+            this.map(this.end);
+            this.located = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String nextLine() {
+        if (!this.locateLine()) {
+            throw new NoSuchElementException("No line found");
+        }
+        int length = this.lineEnd - this.pos;
+        if (this.scratch.length < length) {
+            this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+        }
+        // Through Buffer so this still links against Java 8's ByteBuffer
+        ((Buffer) this.window).position(this.pos);
+        this.window.get(this.scratch, 0, length);
+        String line = new String(this.scratch, 0, length, this.charset);
+        this.consumeLine();
+        return line;
+    }
+
+    /**
+     * Read the next line without copying it, if it is plain ASCII (or any
+     * ISO-8859-1). Other lines are decoded into a String as usual.
+     * @return the next line, only valid until the source is next used
+     * @throws NoSuchElementException if the input is exhausted
+     */
+    @Override
+    public CharSequence nextLineView() {
+        if (!this.locateLine()) {
+            throw new NoSuchElementException("No line found");
+        }
+        if (!this.ascii && !this.latin1) {
+            return this.nextLine();
+        }
+        this.view.set(this.window, this.pos, this.lineEnd);
+        this.consumeLine();
+        return this.view;
+    }
+
+    public boolean hasNextLine() {
+        return this.locateLine();
+    }
+
+    /**
+     * The whole file is at hand, so a line is never waited for.
+     * @return true if there is another line
+     */
+    @Override
+    public boolean hasBufferedLine() {
+        return this.locateLine();
+    }
+
+    public void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get a stream of the bytes this source has not handed out yet, so that a
+     * <code>java.util.Scanner</code> can take over. The source should not be
+     * used afterwards.
+     * @return a stream continuing where this source stopped
+     */
+    public InputStream asInputStream() {
+        try {
+            return Channels.newInputStream(this.channel.position(this.position()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Find the end of the next line, moving the window along if the line
+     * runs past it.
+     * @return false if the file is exhausted
+     */
+    private boolean locateLine() {
+        if (this.located) {
+            return true;
+        }
+        try {
+            while (true) {
+                MappedByteBuffer w = this.window;
+                int limit = w.limit();
+                boolean windowReachesEnd = this.windowStart + limit == this.end;
+                if (this.pos == limit && windowReachesEnd) {
+                    return false;
+                }
+                int scan = LINE_BREAKS.indexOf(w, this.pos, limit);
+                // Need the byte after a \r to tell \r from \r\n
+                boolean needMore = scan >= 0 && w.get(scan) == '\r' && scan + 1 == limit && !windowReachesEnd;
+                if (scan >= 0 && !needMore) {
+                    this.lineEnd = scan;
+                    this.nextPos = w.get(scan) == '\r' && scan + 1 < limit && w.get(scan + 1) == '\n'
+                        ? scan + 2 : scan + 1;
+                    this.ascii = ByteScanner.isAscii(w, this.pos, scan);
+                    return this.located = true;
+                }
+                if (scan < 0 && windowReachesEnd) {
+                    // Whatever is left is the last line
+                    this.lineEnd = limit;
+                    this.nextPos = limit;
+                    this.ascii = ByteScanner.isAscii(w, this.pos, limit);
+                    return this.located = true;
+                }
+                if (this.pos == 0) {
+                    // The line fills the window, so it has to be bigger
+                    if (this.windowSize == Integer.MAX_VALUE) {
+                        throw new IllegalStateException("Line at offset " + this.windowStart
+                            + " is too long to map");
+                    }
+                    this.windowSize = Math.min(this.windowSize * 2, Integer.MAX_VALUE);
+                }
+                this.map(this.windowStart + this.pos);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void consumeLine() {
+        this.pos = this.nextPos;
+        this.located = false;
+    }
+
+    /** One byte per char view of part of the mapping. */
+    private static final class MappedView implements CharSequence {
+        private MappedByteBuffer bytes;
+        private int start;
+        private int end;
+
+        private void set(MappedByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int length() {
+            return this.end - this.start;
+        }
+
+        public char charAt(int index) {
+            if (index < 0 || index >= this.end - this.start) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + this.length());
+            }
+            return (char) (this.bytes.get(this.start + index) & 0xFF);
+        }
+
+        public CharSequence subSequence(int from, int to) {
+            return this.toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[this.end - this.start];
+            for (int k = 0; k < chars.length; k++) {
+                chars[k] = (char) (this.bytes.get(this.start + k) & 0xFF);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package io.whits.javadev.simple;
+
+import java.util.Arrays;
+
+/** <strong>Drives a menu tree without recursion.</strong><p>
+ *
+ * Entering a submenu used to call its <code>run()</code> from inside the
+ * parent's loop, so every level of menu was another Java stack frame. A
+ * <code>MenuNavigator</code> keeps the menus being shown on its own stack
+ * instead: choosing a <code>{@link CommandLineMenu}</code> pushes it and
+ * choosing <code>[0]</code> pops it. Menu graphs can be as deep as memory
+ * allows, and may even contain themselves.<p>
+ *
+ * A menu entered this way is shown directly, and its <code>run()</code> is
+ * never called. The exception is a subclass of <code>CommandLineMenu</code>
+ * which overrides <code>run()</code>, say to set something up around the
+ * menu: it is run like any other option, so its code still runs as it did
+ * when menus recursed.<p>
+ *
+ * Other options are run as before. While they run, the navigator is
+ * available from <code>{@link #current()}</code>, so an option can send the
+ * user <code>{@link #back(int) back}</code> a few levels or straight
+ * <code>{@link #toRoot() to the root}</code>, both in constant time. The
+ * position can also be saved with <code>{@link #snapshot()}</code> and
+ * returned to later with <code>{@link #restore(Position)}</code>.<p>
+ *
+ * A <code>{@link Listener}</code> can be told how long each step takes,
+ * which is how <code>{@link LoadGenerator}</code> times options.<p>
+ *
+ * A navigator belongs to the thread running it.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class MenuNavigator {
+    private static final ThreadLocal<MenuNavigator> running = new ThreadLocal<MenuNavigator>();
+    // Whether a kind of menu has its own run(), so must be run rather than entered
+    private static final ClassValue<Boolean> ownRun = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("run").getDeclaringClass() != CommandLineMenu.class;
+            } catch (NoSuchMethodException e) {
+                return Boolean.FALSE;
+            }
+        }
+    };
+
+    private CommandLineMenu[] stack;
+    private int depth;
+    // Set while a snapshot shares the stack array, so it is copied before a push
+    private boolean shared;
+    private Listener listener;
+
+    /** <strong>Told about every step a navigator takes.</strong> */
+    public interface Listener {
+        /**
+         * Called once an option has been chosen and has run. A step whose
+         * option throws is not reported, as it never finished.
+         * @param menu - the menu the option was chosen from
+         * @param chosen - the option, or null if the menu was left
+         * @param nanos - how long it took to show the menu, read the choice
+         * and run the option. Entering a submenu counts only its choosing.
+         */
+        void stepped(CommandLineMenu menu, MenuOption chosen, long nanos);
+    }
+
+    /** <strong>A saved position in the menus.</strong><p>
+     * Taking one costs no copying; the navigator copies its stack the next
+     * time it enters a menu, if ever.
+     */
+    public static final class Position {
+        private final CommandLineMenu[] stack;
+        private final int depth;
+
+        private Position(CommandLineMenu[] stack, int depth) {
+            this.stack = stack;
+            this.depth = depth;
+        }
+
+        /**
+         * Get how many menus deep this position is
+         * @return 0 if no menu was open, 1 for the root
+         */
+        public int getDepth() {
+            return this.depth;
+        }
+
+        /**
+         * Get the menu that was being shown
+         * @return the innermost menu, or null if no menu was open
+         */
+        public CommandLineMenu getMenu() {
+            return this.depth == 0 ? null : this.stack[this.depth - 1];
+        }
+    }
+
+    /**
+     * @param root - the menu to start in, and to leave when done
+     */
+    public MenuNavigator(CommandLineMenu root) {
+        this.stack = new CommandLineMenu[16];
+        this.stack[0] = root;
+        this.depth = 1;
+    }
+
+    /**
+     * Get the navigator running on this thread
+     * @return the innermost navigator currently in <code>run()</code>, or
+     * null if there is none
+     */
+    public static MenuNavigator current() {
+        return running.get();
+    }
+
+    /**
+     * Show menus until the user leaves the last one, or an option empties the
+     * stack with <code>{@link #exit()}</code>.
+     */
+    public void run() {
+        MenuNavigator outer = running.get();
+        running.set(this);
+        try {
+            while (this.depth > 0) {
+                this.step(this.stack[this.depth - 1]);
+            }
+        } finally {
+            if (outer == null) {
+                running.remove();
+            } else {
+                running.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Show a menu once and act on the choice. Only a step which finishes is
+     * timed; one whose option throws ends the run with the exception.
+     */
+    private void step(CommandLineMenu menu) {
+        Listener l = this.listener;
+        long start = l == null ? 0 : System.nanoTime();
+        Metrics m = StaticSmartScanner.getMetrics();
+        if (m != null) {
+            m.atDepth(this.depth);
+        }
+        MenuOption chosen = menu.choose();
+        if (chosen == null) {
+            this.depth--;
+        } else if (chosen instanceof CommandLineMenu && !ownRun.get(chosen.getClass())) {
+            this.push((CommandLineMenu) chosen);
+        } else if (m == null) {
+            chosen.run();
+        } else {
+            long ran = System.nanoTime();
+            chosen.run();
+            m.ran(chosen, System.nanoTime() - ran);
+        }
+        if (l != null) {
+            l.stepped(menu, chosen, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Set who is told about each step. Steps are only timed while there is one.
+     * @param l - the listener, or null for none
+     */
+    public void setListener(Listener l) {
+        this.listener = l;
+    }
+
+    /**
+     * Enter a menu, as if the user had picked it
+     * @param menu - shown next, and left back to the current menu
+     */
+    public void push(CommandLineMenu menu) {
+        if (this.shared || this.depth == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, Math.max(16, this.depth * 2));
+            this.shared = false;
+        }
+        this.stack[this.depth++] = menu;
+    }
+
+    /**
+     * Leave menus without showing them again
+     * @param levels - how many menus to leave. Leaving as many as are open
+     * ends <code>run()</code>.
+     */
+    public void back(int levels) {
+        if (levels < 0) {
+            throw new IllegalArgumentException("Cannot go back " + levels + " levels");
+        }
+        this.depth = Math.max(0, this.depth - levels);
+    }
+
+    /**
+     * Leave every menu but the one the navigator started in
+     */
+    public void toRoot() {
+        this.depth = Math.min(this.depth, 1);
+    }
+
+    /**
+     * Leave every menu, ending <code>run()</code> once the current option returns
+     */
+    public void exit() {
+        this.depth = 0;
+    }
+
+    /**
+     * Get how many menus are open
+     * @return 0 once every menu has been left, 1 in the root
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Get the menu being shown
+     * @return the innermost open menu, or null once every menu has been left
+     */
+    public CommandLineMenu getMenu() {
+        return this.depth == 0 ? null : this.stack[this.depth - 1];
+    }
+
+    /**
+     * Save the current position
+     * @return a position which can be restored, on this or any other navigator
+     */
+    public Position snapshot() {
+        this.shared = true;
+        return new Position(this.stack, this.depth);
+    }
+
+    /**
+     * Return to a saved position
+     * @param p - a position from <code>{@link #snapshot()}</code>
+     */
+    public void restore(Position p) {
+        this.stack = p.stack;
+        this.depth = p.depth;
+        this.shared = true;
+    }
+}
@@ -0,0 +1,513 @@
+package io.whits.javadev.simple;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.SocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** <strong>Serves a menu tree to many clients over sockets.</strong><p>
+ *
+ * <code>MenuServer</code> accepts connections on a non-blocking
+ * <code>ServerSocketChannel</code> and gives every connection its own
+ * <code>{@link SmartScanner}</code>, bound as a
+ * <code>{@link StaticSmartScanner.Session}</code> while the menu runs, so one
+ * <code>{@link CommandLineMenu}</code> tree can be shared by every client.<p>
+ *
+ * All socket I/O happens on a single selector thread. Menus are ordinary
+ * blocking code, so each session runs as a task on the
+ * <code>ExecutorService</code> passed in and blocks only on an in-memory
+ * queue the selector thread fills. Hand it a virtual thread executor on a
+ * JDK that has them to serve thousands of sessions; any other executor works
+ * with one pooled thread per active session.<p>
+ *
+ * Text is exchanged as UTF-8. A session ends when the menu returns or when
+ * the client hangs up.<p>
+ *
+ * Each connection holds at most about 64 KiB of input its session hasn't
+ * read yet; past that the server stops reading from that client until the
+ * session catches up. Likewise, once about 256 KiB of output is waiting for
+ * a client which isn't reading, the session's writes wait, so one client
+ * can't fill the heap.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class MenuServer implements Closeable {
+    // Input read but not yet taken by the session, before reading stops
+    static final int INBOUND_LIMIT = 64 * 1024;
+    // Output written but not yet sent, before the session's writes wait
+    static final int OUTBOUND_LIMIT = 256 * 1024;
+    // How much is read from a client at once
+    static final int READ_BUFFER = 16 * 1024;
+
+    private final MenuOption root;
+    private final ExecutorService sessions;
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<Connection>();
+    private final Queue<Connection> pendingReads = new ConcurrentLinkedQueue<Connection>();
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread ioThread;
+    private volatile boolean running;
+    // The most any connection has held, so the limits can be checked
+    private volatile int inboundHighWater;
+    private final AtomicLong outboundHighWater = new AtomicLong();
+
+    /**
+     * @param root - the menu every client is shown
+     * @param sessions - runs one task per connected client
+     */
+    public MenuServer(MenuOption root, ExecutorService sessions) {
+        this.root = root;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Listen for TCP connections, allowing a backlog of 1024 connections
+     * waiting to be accepted.
+     * @param address - the address to bind, such as
+     * <code>new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)</code>
+     */
+    public void start(SocketAddress address) {
+        this.start(address, 1024);
+    }
+
+    /**
+     * Listen for TCP connections.
+     * @param address - the address to bind
+     * @param backlog - how many connections may wait to be accepted. Clients
+     * beyond this can be left connected but never served when many arrive at once.
+     */
+    public void start(SocketAddress address, int backlog) {
+        try {
+            ServerSocketChannel ch = ServerSocketChannel.open();
+            ch.bind(address, backlog);
+            this.start(ch);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Accept connections on a channel which is already bound, for example a
+     * Unix domain socket channel.
+     * @param ch - the bound server channel, which the MenuServer now owns
+     */
+    public void start(ServerSocketChannel ch) {
+        if (this.running) {
+            throw new IllegalStateException("The server is already running");
+        }
+        try {
+            this.server = ch;
+            this.server.configureBlocking(false);
+            this.selector = Selector.open();
+            this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.running = true;
+        this.ioThread = new Thread(new Runnable() {
+            public void run() {
+                serve();
+            }
+        }, "MenuServer-io");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    /**
+     * Get the address the server is listening on
+     * @return the bound address, useful when binding to port 0
+     */
+    public SocketAddress getLocalAddress() {
+        try {
+            return this.server.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stop accepting clients and disconnect everyone. Sessions still running
+     * see the end of their input. The executor is left for the caller to shut down.
+     */
+    public void close() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        this.selector.wakeup();
+        try {
+            this.ioThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serve() {
+        ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER);
+        try {
+            while (this.running) {
+                this.selector.select();
+                Connection c;
+                while ((c = this.pendingWrites.poll()) != null) {
+                    c.enableWrites();
+                }
+                while ((c = this.pendingReads.poll()) != null) {
+                    c.resumeReads();
+                }
+                for (SelectionKey key : this.selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        this.accept();
+                        continue;
+                    }
+                    Connection conn = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        conn.readFrom(readBuffer);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        conn.writeTo();
+                    }
+                }
+                this.selector.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (SelectionKey key : this.selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).disconnect();
+                }
+            }
+            closeQuietly(this.server);
+            closeQuietly(this.selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch = this.server.accept();
+        if (ch == null) {
+            return;
+        }
+        ch.configureBlocking(false);
+        final Connection conn = new Connection(ch);
+        conn.key = ch.register(this.selector, SelectionKey.OP_READ, conn);
+        try {
+            this.sessions.execute(new Runnable() {
+                public void run() {
+                    runSession(conn);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Get the most input any client has had waiting for its session
+     * @return the largest number of bytes read but not yet taken
+     */
+    int getInboundHighWater() {
+        return this.inboundHighWater;
+    }
+
+    /**
+     * Get the most output any session has had waiting for its client
+     * @return the largest number of bytes written but not yet sent
+     */
+    long getOutboundHighWater() {
+        return this.outboundHighWater.get();
+    }
+
+    private void runSession(Connection conn) {
+        final MenuOption menu = this.root;
+        SmartScanner s = new SmartScanner(new ByteLineReader(conn.in, StandardCharsets.UTF_8, 1024));
+        s.setOutput(new OutputSink(conn.out, StandardCharsets.UTF_8, 8192));
+        try {
+            StaticSmartScanner.runInSession(s, new Runnable() {
+                public void run() {
+                    menu.run();
+                }
+            });
+        } catch (NoSuchElementException e) {
+            // The client hung up in the middle of a prompt
+        } catch (UncheckedIOException e) {
+            // Connection trouble ends the session just the same
+        } finally {
+            conn.finish();
+        }
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException e) {
+            // Nothing left to do with it
+        }
+    }
+
+    /**
+     * One client. The selector thread owns the socket; the session thread
+     * only touches the two queues in between.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final InboundStream in = new InboundStream(new Runnable() {
+            public void run() {
+                requestReads();
+            }
+        });
+        private final OutboundChannel out = new OutboundChannel();
+        // Only used on the selector thread
+        private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<ByteBuffer>();
+        private boolean readEnded;
+        private SelectionKey key;
+        // Set while reading has stopped because the session is behind
+        private volatile boolean readsPaused;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void readFrom(ByteBuffer buffer) {
+            // Through Buffer so this still links against Java 8's ByteBuffer
+            ((Buffer) buffer).clear();
+            int n;
+            try {
+                n = this.channel.read(buffer);
+            } catch (IOException e) {
+                n = -1;
+            }
+            if (n < 0) {
+                this.readEnded = true;
+                this.in.end();
+                this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_READ);
+                return;
+            }
+            ((Buffer) buffer).flip();
+            byte[] chunk = new byte[buffer.remaining()];
+            buffer.get(chunk);
+            int waiting = this.in.offer(chunk);
+            if (waiting > inboundHighWater) {
+                inboundHighWater = waiting;
+            }
+            if (waiting >= INBOUND_LIMIT) {
+                this.readsPaused = true;
+                this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_READ);
+                // The session may have caught up before it could see the pause
+                if (this.in.queued() < INBOUND_LIMIT) {
+                    this.resumeReads();
+                }
+            }
+        }
+
+        /** Called by the session each time it takes a chunk. */
+        private void requestReads() {
+            if (this.readsPaused && this.in.queued() < INBOUND_LIMIT) {
+                pendingReads.add(this);
+                selector.wakeup();
+            }
+        }
+
+        private void resumeReads() {
+            this.readsPaused = false;
+            if (this.key.isValid() && !this.readEnded) {
+                this.key.interestOps(this.key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+
+        private void enableWrites() {
+            if (this.key.isValid()) {
+                this.key.interestOps(this.key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void writeTo() {
+            ByteBuffer next;
+            while ((next = this.out.queued.poll()) != null) {
+                this.writing.add(next);
+            }
+            try {
+                while (!this.writing.isEmpty()) {
+                    ByteBuffer head = this.writing.peek();
+                    this.channel.write(head);
+                    if (head.hasRemaining()) {
+                        // The socket is full, wait until it is writable again
+                        return;
+                    }
+                    this.writing.poll();
+                    this.out.sent(head.capacity());
+                }
+            } catch (IOException e) {
+                this.disconnect();
+                return;
+            }
+            this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (this.out.finished && this.out.queued.isEmpty()) {
+                this.disconnect();
+            }
+        }
+
+        /** Called by the session once the menu is done. */
+        private void finish() {
+            this.out.finished = true;
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        private void disconnect() {
+            this.readEnded = true;
+            this.in.end();
+            this.key.cancel();
+            closeQuietly(this.channel);
+            this.out.sent(0);
+        }
+
+        /** Lets the session's OutputSink hand bytes to the selector thread. */
+        private final class OutboundChannel implements WritableByteChannel {
+            private final Queue<ByteBuffer> queued = new ConcurrentLinkedQueue<ByteBuffer>();
+            private volatile boolean finished;
+            // Bytes written but not yet sent, guarded by this
+            private long unsent;
+
+            public int write(ByteBuffer src) throws IOException {
+                int n = src.remaining();
+                synchronized (this) {
+                    // Hold the session here while the client isn't reading
+                    while (this.unsent >= OUTBOUND_LIMIT && channel.isOpen()) {
+                        try {
+                            this.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while waiting for the client to read");
+                        }
+                    }
+                    if (!channel.isOpen()) {
+                        throw new ClosedChannelException();
+                    }
+                    this.unsent += n;
+                    long u = this.unsent;
+                    for (long seen = outboundHighWater.get(); u > seen; seen = outboundHighWater.get()) {
+                        if (outboundHighWater.compareAndSet(seen, u)) {
+                            break;
+                        }
+                    }
+                }
+                ByteBuffer copy = ByteBuffer.allocate(n);
+                copy.put(src);
+                ((Buffer) copy).flip();
+                this.queued.add(copy);
+                pendingWrites.add(Connection.this);
+                selector.wakeup();
+                return n;
+            }
+
+            /** Called by the selector thread once bytes are sent, or the client is gone. */
+            private synchronized void sent(int n) {
+                this.unsent -= n;
+                this.notifyAll();
+            }
+
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            public void close() {
+                finish();
+            }
+        }
+    }
+
+    /** Blocking stream over the chunks the selector thread reads. */
+    private static final class InboundStream extends InputStream {
+        private static final byte[] END = new byte[0];
+        private final LinkedBlockingQueue<byte[]> chunks = new LinkedBlockingQueue<byte[]>();
+        // Bytes waiting in chunks, which the selector stops reading at
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Runnable onTake;
+        private byte[] current;
+        private int pos;
+        private boolean ended;
+
+        /**
+         * @param onTake - run on the session's thread after each chunk is taken
+         */
+        private InboundStream(Runnable onTake) {
+            this.onTake = onTake;
+        }
+
+        /**
+         * Queue a chunk read from the client
+         * @return how many bytes are now waiting
+         */
+        private int offer(byte[] chunk) {
+            int waiting = this.queued.addAndGet(chunk.length);
+            this.chunks.add(chunk);
+            return waiting;
+        }
+
+        private int queued() {
+            return this.queued.get();
+        }
+
+        private void end() {
+            this.chunks.add(END);
+        }
+
+        private boolean ready() throws IOException {
+            while (!this.ended && (this.current == null || this.pos == this.current.length)) {
+                try {
+                    this.current = this.chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the client");
+                }
+                this.pos = 0;
+                this.ended = this.current == END;
+                this.queued.addAndGet(-this.current.length);
+                this.onTake.run();
+            }
+            return !this.ended;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.ready() ? this.current[this.pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.ready()) {
+                return -1;
+            }
+            int n = Math.min(len, this.current.length - this.pos);
+            System.arraycopy(this.current, this.pos, b, off, n);
+            this.pos += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package io.whits.javadev.simple;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** <strong>Counts of what prompts and menus are doing.</strong><p>
+ *
+ * Hand a <code>Metrics</code> to <code>{@link SmartScanner#setMetrics(Metrics)}</code>,
+ * or <code>StaticSmartScanner.setMetrics</code>, and it counts:
+ * <ul>
+ * <li>prompts asked and answered, and how long each took to answer;</li>
+ * <li>answers rejected, by the type of value asked for, and how many times
+ * each prompt had to be asked again;</li>
+ * <li>how often each menu option is chosen, how long its <code>run()</code>
+ * takes, and how deep in the menus users are.</li>
+ * </ul>
+ * One <code>Metrics</code> is meant to be shared by every session, for
+ * example every SmartScanner a <code>{@link MenuServer}</code> makes.
+ * Counters are <code>LongAdder</code>s and histograms are arrays of atomic
+ * counts, so sessions never wait on each other to count. With no metrics
+ * set, each place something could be counted is a single null check.<p>
+ *
+ * <code>{@link #snapshot()}</code> copies everything out, and
+ * <code>{@link Snapshot#toText()}</code> writes a copy in the Prometheus text
+ * format. Counts taken while a snapshot is copied may or may not be in it.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public final class Metrics {
+    private final LongAdder prompts = new LongAdder();
+    private final LongAdder answers = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> failures = new ConcurrentHashMap<String, LongAdder>();
+    private final Histogram answerTime = new Histogram();
+    private final Histogram retries = new Histogram();
+    private final Histogram depth = new Histogram();
+    private final ConcurrentHashMap<MenuOption, OptionStats> options =
+        new ConcurrentHashMap<MenuOption, OptionStats>();
+
+    /** A histogram any thread can count into without locking. */
+    private static final class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(LatencyHistogram.BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        private void record(long value) {
+            this.counts.incrementAndGet(LatencyHistogram.bucket(value));
+            long m = this.max.get();
+            while (value > m && !this.max.compareAndSet(m, value)) {
+                m = this.max.get();
+            }
+        }
+
+        private void copyTo(LatencyHistogram h) {
+            long m = this.max.get();
+            for (int k = 0; k < LatencyHistogram.BUCKETS; k++) {
+                long n = this.counts.get(k);
+                if (n != 0) {
+                    h.add(k, n, m);
+                }
+            }
+        }
+    }
+
+    /** What is counted for one menu option. */
+    private static final class OptionStats {
+        private final LongAdder chosen = new LongAdder();
+        private final LongAdder left = new LongAdder();
+        private final Histogram runTime = new Histogram();
+    }
+
+    private OptionStats stats(MenuOption o) {
+        OptionStats s = this.options.get(o);
+        if (s == null) {
+            OptionStats made = new OptionStats();
+            s = this.options.putIfAbsent(o, made);
+            if (s == null) {
+                s = made;
+            }
+        }
+        return s;
+    }
+
+    /** Called the first time a prompt is shown, not when it is asked again. */
+    void prompted() {
+        this.prompts.increment();
+    }
+
+    /**
+     * Called once a prompt has an answer it accepts
+     * @param nanos - how long since the prompt was first shown
+     * @param tries - how many answers were rejected first
+     */
+    void answered(long nanos, int tries) {
+        this.answers.increment();
+        this.answerTime.record(nanos);
+        this.retries.record(tries);
+    }
+
+    /**
+     * Called for every answer rejected
+     * @param kind - what was asked for, such as "int"
+     */
+    void rejected(String kind) {
+        this.rejected.increment();
+        LongAdder a = this.failures.get(kind);
+        if (a == null) {
+            LongAdder made = new LongAdder();
+            a = this.failures.putIfAbsent(kind, made);
+            if (a == null) {
+                a = made;
+            }
+        }
+        a.increment();
+    }
+
+    /**
+     * Called each time a menu is shown
+     * @param menu - the menu
+     * @param chosen - the option chosen, or null if the menu was left
+     */
+    void chose(CommandLineMenu menu, MenuOption chosen) {
+        if (chosen == null) {
+            this.stats(menu).left.increment();
+        } else {
+            this.stats(chosen).chosen.increment();
+        }
+    }
+
+    /**
+     * Called after an option other than a menu has run and returned
+     * @param o - the option
+     * @param nanos - how long its <code>run()</code> took
+     */
+    void ran(MenuOption o, long nanos) {
+        this.stats(o).runTime.record(nanos);
+    }
+
+    /**
+     * Called each time a menu navigator shows a menu
+     * @param menus - how many menus are open, 1 in the root menu
+     */
+    void atDepth(int menus) {
+        this.depth.record(menus);
+    }
+
+    /**
+     * Copy out everything counted so far
+     * @return the counts, which don't change afterwards
+     */
+    public Snapshot snapshot() {
+        Snapshot s = new Snapshot();
+        s.prompts = this.prompts.sum();
+        s.answers = this.answers.sum();
+        s.rejected = this.rejected.sum();
+        for (Map.Entry<String, LongAdder> e : this.failures.entrySet()) {
+            s.failures.put(e.getKey(), e.getValue().sum());
+        }
+        this.answerTime.copyTo(s.answerTime);
+        this.retries.copyTo(s.retries);
+        this.depth.copyTo(s.depth);
+        // Options which share a name are counted together
+        for (Map.Entry<MenuOption, OptionStats> e : this.options.entrySet()) {
+            String name = e.getKey().getName();
+            OptionStats o = e.getValue();
+            long chosen = o.chosen.sum();
+            if (chosen > 0) {
+                s.chosen.put(name, chosen + orZero(s.chosen.get(name)));
+            }
+            long left = o.left.sum();
+            if (left > 0) {
+                s.left.put(name, left + orZero(s.left.get(name)));
+            }
+            LatencyHistogram h = new LatencyHistogram();
+            o.runTime.copyTo(h);
+            if (h.getCount() > 0) {
+                LatencyHistogram already = s.runTime.get(name);
+                if (already == null) {
+                    s.runTime.put(name, h);
+                } else {
+                    already.add(h);
+                }
+            }
+        }
+        return s;
+    }
+
+    private static long orZero(Long n) {
+        return n == null ? 0 : n;
+    }
+
+    /** <strong>The counts at one moment.</strong><p>
+     * Menu options are listed by name.
+     */
+    public static final class Snapshot {
+        private long prompts;
+        private long answers;
+        private long rejected;
+        private final TreeMap<String, Long> failures = new TreeMap<String, Long>();
+        private final LatencyHistogram answerTime = new LatencyHistogram();
+        private final LatencyHistogram retries = new LatencyHistogram();
+        private final LatencyHistogram depth = new LatencyHistogram();
+        private final TreeMap<String, Long> chosen = new TreeMap<String, Long>();
+        private final TreeMap<String, Long> left = new TreeMap<String, Long>();
+        private final TreeMap<String, LatencyHistogram> runTime = new TreeMap<String, LatencyHistogram>();
+
+        private Snapshot() {
+        }
+
+        /**
+         * Get how many prompts were asked, not counting asking again
+         * @return the number of prompts
+         */
+        public long getPrompts() {
+            return this.prompts;
+        }
+
+        /**
+         * Get how many prompts were answered
+         * @return the number of answers accepted
+         */
+        public long getAnswers() {
+            return this.answers;
+        }
+
+        /**
+         * Get how many answers were rejected
+         * @return the number of answers which had to be asked for again
+         */
+        public long getRejected() {
+            return this.rejected;
+        }
+
+        /**
+         * Get rejected answers by what was asked for
+         * @return counts by type, such as "int", "double", "boolean" or "matching"
+         */
+        public Map<String, Long> getFailures() {
+            return this.failures;
+        }
+
+        /**
+         * Get how long prompts took to answer, from first being shown to an
+         * answer being accepted
+         * @return the times in nanoseconds
+         */
+        public LatencyHistogram getAnswerTime() {
+            return this.answerTime;
+        }
+
+        /**
+         * Get how many answers each prompt rejected before accepting one
+         * @return the retries, one count per answered prompt
+         */
+        public LatencyHistogram getRetries() {
+            return this.retries;
+        }
+
+        /**
+         * Get how deep in the menus users were each time a menu was shown
+         * @return the number of menus open, 1 in the root menu
+         */
+        public LatencyHistogram getMenuDepth() {
+            return this.depth;
+        }
+
+        /**
+         * Get how often each option was chosen
+         * @return counts by option name
+         */
+        public Map<String, Long> getChosen() {
+            return this.chosen;
+        }
+
+        /**
+         * Get how often each menu was left with [0]
+         * @return counts by menu name
+         */
+        public Map<String, Long> getLeft() {
+            return this.left;
+        }
+
+        /**
+         * Get how long each option's <code>run()</code> took. Menus are not
+         * included, since entering one doesn't run it.
+         * @return the times in nanoseconds, by option name
+         */
+        public Map<String, LatencyHistogram> getRunTime() {
+            return this.runTime;
+        }
+
+        /**
+         * Write the counts in the Prometheus text format, to be served or saved
+         * @return the text, one line per value
+         */
+        public String toText() {
+            StringBuilder sb = new StringBuilder();
+            counter(sb, "smartscanner_prompts_total", "Prompts asked, not counting retries", this.prompts);
+            counter(sb, "smartscanner_answers_total", "Prompts answered", this.answers);
+            header(sb, "smartscanner_rejected_total", "Answers rejected, by the type asked for", "counter");
+            for (Map.Entry<String, Long> e : this.failures.entrySet()) {
+                sample(sb, "smartscanner_rejected_total", "type", e.getKey(), e.getValue());
+            }
+            summary(sb, "smartscanner_answer_seconds", "Time from prompt to accepted answer",
+                null, null, this.answerTime, 1e-9);
+            summary(sb, "smartscanner_retries", "Answers rejected per prompt answered",
+                null, null, this.retries, 1);
+            summary(sb, "menu_depth", "Menus open each time a menu is shown", null, null, this.depth, 1);
+            header(sb, "menu_chosen_total", "Times each option was chosen", "counter");
+            for (Map.Entry<String, Long> e : this.chosen.entrySet()) {
+                sample(sb, "menu_chosen_total", "option", e.getKey(), e.getValue());
+            }
+            header(sb, "menu_left_total", "Times each menu was left", "counter");
+            for (Map.Entry<String, Long> e : this.left.entrySet()) {
+                sample(sb, "menu_left_total", "menu", e.getKey(), e.getValue());
+            }
+            header(sb, "menu_run_seconds", "Time each option took to run", "summary");
+            for (Map.Entry<String, LatencyHistogram> e : this.runTime.entrySet()) {
+                summary(sb, "menu_run_seconds", null, "option", e.getKey(), e.getValue(), 1e-9);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return this.toText();
+        }
+
+        private static void header(StringBuilder sb, String name, String help, String type) {
+            sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+
+        private static void counter(StringBuilder sb, String name, String help, long value) {
+            header(sb, name, help, "counter");
+            sb.append(name).append(' ').append(value).append('\n');
+        }
+
+        private static void sample(StringBuilder sb, String name, String label, String value, long n) {
+            sb.append(name).append('{').append(label).append("=\"");
+            escape(sb, value);
+            sb.append("\"} ").append(n).append('\n');
+        }
+
+        private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+        private static void summary(StringBuilder sb, String name, String help,
+                String label, String value, LatencyHistogram h, double scale) {
+            if (help != null) {
+                header(sb, name, help, "summary");
+            }
+            for (double q : QUANTILES) {
+                sb.append(name).append('{');
+                if (label != null) {
+                    sb.append(label).append("=\"");
+                    escape(sb, value);
+                    sb.append("\",");
+                }
+                sb.append("quantile=\"").append(q).append("\"} ").append(h.percentile(q * 100) * scale).append('\n');
+            }
+            sb.append(name).append("_count");
+            if (label != null) {
+                sb.append('{').append(label).append("=\"");
+                escape(sb, value);
+                sb.append("\"}");
+            }
+            sb.append(' ').append(h.getCount()).append('\n');
+        }
+
+        private static void escape(StringBuilder sb, String value) {
+            for (int k = 0; k < value.length(); k++) {
+                char c = value.charAt(k);
+                if (c == '\\' || c == '"') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    sb.append("\\n");
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+    }
+}
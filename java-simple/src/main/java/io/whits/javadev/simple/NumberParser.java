@@ -0,0 +1,373 @@
+package io.whits.javadev.simple;
+
+import java.util.regex.Pattern;
+
+/** <strong>A validating number parser that never throws on bad input.</strong><p>
+ *
+ * <code>NumberParser</code> accepts exactly what <code>Integer.parseInt</code>,
+ * <code>Long.parseLong</code> and <code>Double.parseDouble</code> accept, but
+ * reports failure through its return value and <code>{@link #status()}</code>
+ * rather than by building a <code>NumberFormatException</code> and its stack
+ * trace. The last parsed value is kept in the parser, so one instance can be
+ * reused for every prompt without allocating. Instances are not thread safe.<p>
+ *
+ * Doubles with up to 15 significant digits and a small enough exponent are
+ * computed directly (one exact long, one exact power of ten and a single
+ * correctly rounded multiply or divide). Anything else which passes validation
+ * is handed to <code>Double.parseDouble</code>, so results are always correctly
+ * rounded.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class NumberParser {
+    /** The last parse succeeded. */
+    public static final int OK = 0;
+    /** The input was empty, or only whitespace for a double. */
+    public static final int EMPTY = 1;
+    /** The input was not a number. */
+    public static final int MALFORMED = 2;
+    /** The input was a number too large for the type. */
+    public static final int OVERFLOW = 3;
+    /** The input had more than one decimal point. */
+    public static final int MULTIPLE_POINTS = 4;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+        1e21, 1e22
+    };
+    // The same grammar Double.parseDouble checks hexadecimal input against
+    private static final Pattern HEX_FLOAT = Pattern.compile(
+        "([-+])?0[xX](((\\p{XDigit}+)\\.?)|((\\p{XDigit}*)\\.(\\p{XDigit}+)))[pP]([-+])?(\\p{Digit}+)[fFdD]?");
+
+    private int status;
+    private boolean forDouble;
+    private int intValue;
+    private long longValue;
+    private double doubleValue;
+    // What was parsed, kept only so an error message can be built on request
+    private CharSequence text;
+    private int textStart;
+    private int textEnd;
+
+    /**
+     * Parse a whole string as an int, in the same way as <code>Integer.parseInt</code>.
+     * @param s - the text to parse
+     * @return true if the text was a valid int, which is then in <code>{@link #intValue()}</code>
+     */
+    public boolean parseInt(CharSequence s) {
+        return this.parseInt(s, 0, s.length());
+    }
+
+    /**
+     * Parse part of a string as an int, in the same way as <code>Integer.parseInt</code>.
+     * @param s - the text to parse
+     * @param start - the index of the first character (inclusive)
+     * @param end - the index after the last character (exclusive)
+     * @return true if the text was a valid int, which is then in <code>{@link #intValue()}</code>
+     */
+    public boolean parseInt(CharSequence s, int start, int end) {
+        if (!this.parseInteger(s, start, end, Integer.MIN_VALUE)) {
+            return false;
+        }
+        this.intValue = (int) this.longValue;
+        return true;
+    }
+
+    /**
+     * Parse a whole string as a long, in the same way as <code>Long.parseLong</code>.
+     * @param s - the text to parse
+     * @return true if the text was a valid long, which is then in <code>{@link #longValue()}</code>
+     */
+    public boolean parseLong(CharSequence s) {
+        return this.parseLong(s, 0, s.length());
+    }
+
+    /**
+     * Parse part of a string as a long, in the same way as <code>Long.parseLong</code>.
+     * @param s - the text to parse
+     * @param start - the index of the first character (inclusive)
+     * @param end - the index after the last character (exclusive)
+     * @return true if the text was a valid long, which is then in <code>{@link #longValue()}</code>
+     */
+    public boolean parseLong(CharSequence s, int start, int end) {
+        return this.parseInteger(s, start, end, Long.MIN_VALUE);
+    }
+
+    /**
+     * Parse a whole string as a double, in the same way as <code>Double.parseDouble</code>.
+     * @param s - the text to parse
+     * @return true if the text was a valid double, which is then in <code>{@link #doubleValue()}</code>
+     */
+    public boolean parseDouble(CharSequence s) {
+        return this.parseDouble(s, 0, s.length());
+    }
+
+    /**
+     * Parse part of a string as a double, in the same way as <code>Double.parseDouble</code>.
+     * Surrounding whitespace is ignored.
+     * @param s - the text to parse
+     * @param start - the index of the first character (inclusive)
+     * @param end - the index after the last character (exclusive)
+     * @return true if the text was a valid double, which is then in <code>{@link #doubleValue()}</code>
+     */
+    public boolean parseDouble(CharSequence s, int start, int end) {
+        this.forDouble = true;
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        this.remember(s, start, end);
+        if (start == end) {
+            return this.fail(EMPTY);
+        }
+
+        int i = start;
+        boolean negative = false;
+        char c = s.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            if (++i == end) {
+                return this.fail(MALFORMED);
+            }
+            c = s.charAt(i);
+        }
+        if (c == 'N' || c == 'I') {
+            String word = c == 'N' ? "NaN" : "Infinity";
+            if (end - i != word.length() || !regionMatches(s, i, word)) {
+                return this.fail(MALFORMED);
+            }
+            double special = c == 'N' ? Double.NaN : Double.POSITIVE_INFINITY;
+            return this.succeed(negative ? -special : special);
+        }
+        if (c == '0' && i + 1 < end && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X')) {
+            String hex = s.subSequence(start, end).toString();
+            if (!HEX_FLOAT.matcher(hex).matches()) {
+                return this.fail(MALFORMED);
+            }
+            return this.succeed(Double.parseDouble(hex));
+        }
+
+        // The value so far is mantissa * 10^exponent, with zeros after the last
+        // significant digit held back so they don't use up the long.
+        long mantissa = 0;
+        int significant = 0;
+        int pendingZeros = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean pointSeen = false;
+        for (; i < end; i++) {
+            c = s.charAt(i);
+            if (c == '.') {
+                if (pointSeen) {
+                    return this.fail(MULTIPLE_POINTS);
+                }
+                pointSeen = true;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                break;
+            }
+            anyDigits = true;
+            if (pointSeen) {
+                exponent--;
+            }
+            if (c == '0') {
+                if (significant > 0) {
+                    pendingZeros++;
+                }
+                continue;
+            }
+            significant += pendingZeros + 1;
+            if (significant <= 18) {
+                for (; pendingZeros > 0; pendingZeros--) {
+                    mantissa *= 10;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+            }
+            pendingZeros = 0;
+        }
+        if (!anyDigits) {
+            return this.fail(MALFORMED);
+        }
+        exponent += pendingZeros;
+
+        if (i < end && (c == 'e' || c == 'E')) {
+            if (++i == end) {
+                return this.fail(MALFORMED);
+            }
+            c = s.charAt(i);
+            boolean negativeExponent = c == '-';
+            if (c == '-' || c == '+') {
+                i++;
+            }
+            int digitsStart = i;
+            int value = 0;
+            for (; i < end && (c = s.charAt(i)) >= '0' && c <= '9'; i++) {
+                // Anything this big is already zero or infinity
+                if (value < 100000) {
+                    value = value * 10 + (c - '0');
+                }
+            }
+            if (i == digitsStart) {
+                return this.fail(MALFORMED);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i < end) {
+            c = s.charAt(i);
+            if (i != end - 1 || (c != 'f' && c != 'F' && c != 'd' && c != 'D')) {
+                return this.fail(MALFORMED);
+            }
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (significant <= 15 && exponent >= -22 && exponent <= 22) {
+            value = exponent < 0
+                ? mantissa / POWERS_OF_TEN[-exponent]
+                : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            // Already validated, so this cannot throw
+            value = Double.parseDouble(s.subSequence(start, end).toString());
+            return this.succeed(value);
+        }
+        return this.succeed(negative ? -value : value);
+    }
+
+    /**
+     * Get the outcome of the last parse
+     * @return one of <code>OK</code>, <code>EMPTY</code>, <code>MALFORMED</code>,
+     * <code>OVERFLOW</code> or <code>MULTIPLE_POINTS</code>
+     */
+    public int status() {
+        return this.status;
+    }
+
+    /**
+     * Get the value of the last successful <code>parseInt</code>
+     * @return the parsed int
+     */
+    public int intValue() {
+        return this.intValue;
+    }
+
+    /**
+     * Get the value of the last successful <code>parseLong</code> or <code>parseInt</code>
+     * @return the parsed long
+     */
+    public long longValue() {
+        return this.longValue;
+    }
+
+    /**
+     * Get the value of the last successful <code>parseDouble</code>
+     * @return the parsed double
+     */
+    public double doubleValue() {
+        return this.doubleValue;
+    }
+
+    /**
+     * Describe why the last parse failed. The text is exactly what printing the
+     * <code>NumberFormatException</code> from the matching <code>java.lang</code>
+     * method would have shown, so messages shown to users stay the same.
+     * @return the error description, or null if the last parse succeeded
+     */
+    public String errorText() {
+        switch (this.status) {
+            case OK: return null;
+            case MULTIPLE_POINTS: return "java.lang.NumberFormatException: multiple points";
+            case EMPTY:
+                if (this.forDouble) {
+                    return "java.lang.NumberFormatException: empty String";
+                }
+                // An empty int is reported like any other bad int
+                return this.forInputString();
+            default: return this.forInputString();
+        }
+    }
+
+    private String forInputString() {
+        return "java.lang.NumberFormatException: For input string: \""
+            + this.text.subSequence(this.textStart, this.textEnd) + "\"";
+    }
+
+    private boolean parseInteger(CharSequence s, int start, int end, long min) {
+        this.forDouble = false;
+        this.remember(s, start, end);
+        if (start == end) {
+            return this.fail(EMPTY);
+        }
+        int i = start;
+        long limit = min + 1;
+        boolean negative = false;
+        char first = s.charAt(i);
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = min;
+            } else if (first != '+') {
+                return this.fail(MALFORMED);
+            }
+            if (++i == end) {
+                return this.fail(MALFORMED);
+            }
+        }
+        // Accumulate negatively, since the negative range is the larger one
+        long multmin = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+            if (digit < 0) {
+                return this.fail(MALFORMED);
+            }
+            if (result < multmin || result * 10 < limit + digit) {
+                return this.fail(onlyDigits(s, i + 1, end) ? OVERFLOW : MALFORMED);
+            }
+            result = result * 10 - digit;
+        }
+        this.longValue = negative ? result : -result;
+        this.status = OK;
+        return true;
+    }
+
+    private void remember(CharSequence s, int start, int end) {
+        this.text = s;
+        this.textStart = start;
+        this.textEnd = end;
+    }
+
+    private boolean succeed(double value) {
+        this.doubleValue = value;
+        this.status = OK;
+        return true;
+    }
+
+    private boolean fail(int reason) {
+        this.status = reason;
+        return false;
+    }
+
+    private static boolean onlyDigits(CharSequence s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (Character.digit(s.charAt(i), 10) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(CharSequence s, int start, String word) {
+        for (int k = 0; k < word.length(); k++) {
+            if (s.charAt(start + k) != word.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,300 @@
+package io.whits.javadev.simple;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Formatter;
+
+/** <strong>A buffered destination for prompts and messages.</strong><p>
+ *
+ * <code>OutputSink</code> collects text in one reusable byte buffer and only
+ * writes it out when it fills up or when <code>{@link #flush()}</code> is
+ * called. SmartScanner flushes just before a read from its input would block,
+ * so a whole prompt cycle (error message, prompt and <code>"> "</code>) costs a
+ * single write instead of one per <code>println</code>.<p>
+ *
+ * A sink can write to any <code>OutputStream</code> or blocking
+ * <code>WritableByteChannel</code>, which also makes it easy for tests and
+ * benchmarks to capture output without touching <code>System.out</code>.
+ * Instances are not thread safe.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class OutputSink implements Flushable, Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    // Looks System.out up on every write, so System.setOut is always honoured
+    private static final OutputStream SYSTEM_OUT = new OutputStream() {
+        @Override
+        public void write(int b) {
+            System.out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            System.out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            System.out.flush();
+        }
+    };
+
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+    private final Charset charset;
+    // ASCII text can be copied into the buffer byte for byte
+    private final boolean asciiCompatible;
+    private final byte[] buf;
+    private ByteBuffer channelView;
+    private int count;
+    private StringBuilder formatted;
+    private Formatter formatter;
+
+    /**
+     * Buffer output to a stream using the platform charset.
+     * @param out - the stream to write to
+     */
+    public OutputSink(OutputStream out) {
+        this(out, Charset.defaultCharset(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Buffer output to a stream.
+     * @param out - the stream to write to
+     * @param cs - the charset text is encoded with
+     * @param bufferSize - how many bytes are held before they are written
+     */
+    public OutputSink(OutputStream out, Charset cs, int bufferSize) {
+        this(out, null, cs, bufferSize);
+    }
+
+    /**
+     * Buffer output to a blocking channel using the platform charset.
+     * @param ch - the channel to write to
+     */
+    public OutputSink(WritableByteChannel ch) {
+        this(ch, Charset.defaultCharset(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Buffer output to a blocking channel.
+     * @param ch - the channel to write to
+     * @param cs - the charset text is encoded with
+     * @param bufferSize - how many bytes are held before they are written
+     */
+    public OutputSink(WritableByteChannel ch, Charset cs, int bufferSize) {
+        this(null, ch, cs, bufferSize);
+    }
+
+    private OutputSink(OutputStream out, WritableByteChannel ch, Charset cs, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.stream = out;
+        this.channel = ch;
+        this.charset = cs;
+        String sample = "\t\n\r !09:>AZaz~";
+        this.asciiCompatible = Arrays.equals(sample.getBytes(cs),
+            sample.getBytes(StandardCharsets.US_ASCII));
+        this.buf = new byte[bufferSize];
+    }
+
+    /**
+     * Create a sink writing to whatever <code>System.out</code> is when its
+     * output is written, so a later <code>System.setOut</code> takes effect
+     * from the next flush. Closing the sink leaves <code>System.out</code> open.
+     * @return a new sink over STDOUT
+     */
+    public static OutputSink stdout() {
+        return new OutputSink(SYSTEM_OUT);
+    }
+
+    /**
+     * Get the charset text is encoded with
+     * @return the charset used by this sink
+     */
+    public Charset getCharset() {
+        return this.charset;
+    }
+
+    /**
+     * Get the number of bytes waiting to be written
+     * @return the number of buffered bytes
+     */
+    public int pending() {
+        return this.count;
+    }
+
+    /**
+     * Buffer some text.
+     * @param s - the text to write
+     */
+    public void print(CharSequence s) {
+        CharSequence text = s == null ? "null" : s;
+        int length = text.length();
+        int i = 0;
+        if (this.asciiCompatible) {
+            for (; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                if (this.count == this.buf.length) {
+                    this.drain();
+                }
+                this.buf[this.count++] = (byte) c;
+            }
+        }
+        if (i < length) {
+            byte[] encoded = text.subSequence(i, length).toString().getBytes(this.charset);
+            this.write(encoded, 0, encoded.length);
+        }
+    }
+
+    /**
+     * Buffer a single character.
+     * @param c - the character to write
+     */
+    public void print(char c) {
+        if (this.asciiCompatible && c < 0x80) {
+            if (this.count == this.buf.length) {
+                this.drain();
+            }
+            this.buf[this.count++] = (byte) c;
+        } else {
+            this.print(String.valueOf(c));
+        }
+    }
+
+    /**
+     * Buffer a line separator.
+     */
+    public void println() {
+        this.print(LINE_SEPARATOR);
+    }
+
+    /**
+     * Buffer some text followed by a line separator.
+     * @param s - the text to write
+     */
+    public void println(CharSequence s) {
+        this.print(s);
+        this.print(LINE_SEPARATOR);
+    }
+
+    /**
+     * Buffer formatted text, exactly as <code>PrintStream.printf</code> would format it.
+     * @param format - a <code>java.util.Formatter</code> format string
+     * @param args - the values referenced by the format string
+     */
+    public void printf(String format, Object... args) {
+        if (this.formatter == null) {
+            this.formatted = new StringBuilder();
+            this.formatter = new Formatter(this.formatted);
+        }
+        this.formatted.setLength(0);
+        this.formatter.format(format, args);
+        this.print(this.formatted);
+    }
+
+    /**
+     * Buffer bytes which are already encoded.
+     * @param b - the bytes to write
+     */
+    public void write(byte[] b) {
+        this.write(b, 0, b.length);
+    }
+
+    /**
+     * Buffer bytes which are already encoded. Anything larger than the buffer
+     * is written straight through.
+     * @param b - the bytes to write
+     * @param off - the offset of the first byte
+     * @param len - the number of bytes
+     */
+    public void write(byte[] b, int off, int len) {
+        if (len > this.buf.length - this.count) {
+            this.drain();
+            if (len > this.buf.length) {
+                this.writeOut(b, off, len);
+                return;
+            }
+        }
+        System.arraycopy(b, off, this.buf, this.count, len);
+        this.count += len;
+    }
+
+    /**
+     * Write out everything buffered so far.
+     */
+    public void flush() {
+        this.drain();
+        if (this.stream != null) {
+            try {
+                this.stream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Flush, then close the stream or channel.
+     */
+    public void close() {
+        this.flush();
+        try {
+            if (this.stream != null) {
+                this.stream.close();
+            } else {
+                this.channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() {
+        if (this.count > 0) {
+            int n = this.count;
+            this.count = 0;
+            this.writeOut(this.buf, 0, n);
+        }
+    }
+
+    private void writeOut(byte[] b, int off, int len) {
+        try {
+            if (this.stream != null) {
+                this.stream.write(b, off, len);
+                return;
+            }
+            ByteBuffer bytes = b == this.buf ? this.bufferView() : ByteBuffer.wrap(b);
+            // Through Buffer so this still links against Java 8's ByteBuffer
+            Buffer view = bytes;
+            view.limit(off + len);
+            view.position(off);
+            while (view.hasRemaining()) {
+                this.channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer bufferView() {
+        if (this.channelView == null) {
+            this.channelView = ByteBuffer.wrap(this.buf);
+        }
+        return this.channelView;
+    }
+}
@@ -0,0 +1,135 @@
+package io.whits.javadev.simple;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/** <strong>A bounded cache of compiled regular expressions.</strong><p>
+ *
+ * Call sites which build a regex from a string every time they prompt can get
+ * the compiled <code>Pattern</code> from here instead, so each expression is
+ * only compiled once. When the cache is full the least recently used pattern
+ * is dropped.<p>
+ *
+ * The cache is safe to share between threads. A pattern is compiled outside
+ * the lock, so a slow expression doesn't hold up other lookups.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class PatternCache {
+    private static final PatternCache SHARED = new PatternCache(256);
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Pattern> patterns;
+
+    /** A regex together with the flags it is compiled with. */
+    private static final class Key {
+        private final String regex;
+        private final int flags;
+
+        private Key(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).flags == this.flags && ((Key) o).regex.equals(this.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.regex.hashCode() * 31 + this.flags;
+        }
+    }
+
+    /**
+     * @param capacity - the most patterns kept at once
+     */
+    public PatternCache(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.patterns = new LinkedHashMap<Key, Pattern>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Pattern> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the cache SmartScanner uses for regexes given as strings
+     * @return the shared cache, which holds up to 256 patterns
+     */
+    public static PatternCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get a compiled pattern, compiling it if it isn't cached
+     * @param regex - the expression to compile
+     * @return the compiled pattern
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     */
+    public Pattern get(String regex) {
+        return this.get(regex, 0);
+    }
+
+    /**
+     * Get a compiled pattern, compiling it if it isn't cached
+     * @param regex - the expression to compile
+     * @param flags - flags for <code>Pattern.compile</code>
+     * @return the compiled pattern
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     */
+    public Pattern get(String regex, int flags) {
+        Key key = new Key(regex, flags);
+        Pattern p;
+        synchronized (this.patterns) {
+            p = this.patterns.get(key);
+        }
+        if (p != null) {
+            return p;
+        }
+        p = Pattern.compile(regex, flags);
+        synchronized (this.patterns) {
+            Pattern raced = this.patterns.get(key);
+            if (raced != null) {
+                return raced;
+            }
+            this.patterns.put(key, p);
+        }
+        return p;
+    }
+
+    /**
+     * Get how many patterns the cache holds at most
+     * @return the capacity given when the cache was made
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Get how many patterns are cached
+     * @return the number of cached patterns
+     */
+    public int size() {
+        synchronized (this.patterns) {
+            return this.patterns.size();
+        }
+    }
+
+    /**
+     * Drop every cached pattern.
+     */
+    public void clear() {
+        synchronized (this.patterns) {
+            this.patterns.clear();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package io.whits.javadev.simple;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/** <strong>Several regular expressions checked in one pass.</strong><p>
+ *
+ * A <code>PatternSet</code> joins its patterns into a single alternation,
+ * with each one wrapped in a capturing group, so one <code>find()</code> over
+ * the input says which of them matched. Each pattern's flags are carried over
+ * as inline flags. Where a match is found the same way
+ * <code>Matcher.find()</code> would: the match starting earliest in the input
+ * wins, and of patterns matching at the same place the first one given wins.<p>
+ *
+ * Patterns can't always be joined. Numbered backreferences would point at
+ * the wrong group, <code>\Q</code> quoting may never end, the
+ * <code>LITERAL</code> and <code>CANON_EQ</code> flags have no inline form,
+ * and named groups may clash. In those cases the patterns are tried one at a
+ * time instead, giving the same answer more slowly.<p>
+ *
+ * Sets are immutable and can be shared between threads. Each thread reuses
+ * its own <code>Matcher</code>.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class PatternSet {
+    private final Pattern[] patterns;
+    // The joined pattern, or null if the patterns are tried one at a time
+    private final Pattern combined;
+    // The group in the joined pattern that wraps each pattern
+    private final int[] groups;
+    private final ThreadLocal<Matcher> matchers = new ThreadLocal<Matcher>();
+
+    /** <strong>Which pattern an answer matched.</strong> */
+    public static final class Match {
+        private final int index;
+        private final String input;
+
+        Match(int index, String input) {
+            this.index = index;
+            this.input = input;
+        }
+
+        /**
+         * Get which pattern matched
+         * @return the pattern's position in the set, from 0
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        /**
+         * Get the text that was matched against
+         * @return the whole answer
+         */
+        public String getInput() {
+            return this.input;
+        }
+    }
+
+    /**
+     * @param patterns - the patterns to check, in order of preference
+     */
+    public PatternSet(Pattern... patterns) {
+        if (patterns.length == 0) {
+            throw new IllegalArgumentException("A PatternSet needs at least one pattern");
+        }
+        this.patterns = patterns.clone();
+        this.groups = new int[patterns.length];
+        this.combined = this.join();
+    }
+
+    private Pattern join() {
+        StringBuilder sb = new StringBuilder();
+        int group = 1;
+        for (int k = 0; k < this.patterns.length; k++) {
+            Pattern p = this.patterns[k];
+            String inline = inlineFlags(p.flags());
+            if (inline == null || breaksWhenJoined(p.pattern())) {
+                return null;
+            }
+            if (k > 0) {
+                sb.append('|');
+            }
+            this.groups[k] = group;
+            // A trailing comment in COMMENTS mode would swallow the closing paren
+            sb.append("((?").append(inline).append(':').append(p.pattern())
+                .append((p.flags() & Pattern.COMMENTS) != 0 ? "\n))" : "))");
+            group += 1 + p.matcher("").groupCount();
+        }
+        try {
+            return Pattern.compile(sb.toString());
+        } catch (PatternSyntaxException e) {
+            // Most likely two patterns used the same group name
+            return null;
+        }
+    }
+
+    /**
+     * Spell flags as they are written inside a pattern
+     * @return the flags, or null if some can't be written inline
+     */
+    private static String inlineFlags(int flags) {
+        if ((flags & (Pattern.LITERAL | Pattern.CANON_EQ)) != 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        if ((flags & Pattern.CASE_INSENSITIVE) != 0) {
+            sb.append('i');
+        }
+        if ((flags & Pattern.MULTILINE) != 0) {
+            sb.append('m');
+        }
+        if ((flags & Pattern.DOTALL) != 0) {
+            sb.append('s');
+        }
+        if ((flags & Pattern.UNICODE_CASE) != 0) {
+            sb.append('u');
+        }
+        if ((flags & Pattern.COMMENTS) != 0) {
+            sb.append('x');
+        }
+        if ((flags & Pattern.UNIX_LINES) != 0) {
+            sb.append('d');
+        }
+        if ((flags & Pattern.UNICODE_CHARACTER_CLASS) != 0) {
+            sb.append('U');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Look for numbered backreferences, and quoting which could run past the
+     * end of the pattern. Erring on the side of finding them only costs speed.
+     */
+    private static boolean breaksWhenJoined(String regex) {
+        for (int k = 0; k + 1 < regex.length(); k++) {
+            if (regex.charAt(k) == '\\') {
+                char c = regex.charAt(k + 1);
+                if ((c >= '1' && c <= '9') || c == 'Q') {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get how many patterns are in the set
+     * @return the number of patterns
+     */
+    public int size() {
+        return this.patterns.length;
+    }
+
+    /**
+     * Get one of the patterns
+     * @param index - the pattern's position in the set, from 0
+     * @return the pattern
+     */
+    public Pattern get(int index) {
+        return this.patterns[index];
+    }
+
+    /**
+     * Check whether the patterns are checked in a single pass
+     * @return false if they had to be kept apart
+     */
+    public boolean isCombined() {
+        return this.combined != null;
+    }
+
+    /**
+     * Find which pattern matches the input
+     * @param input - the text to search, as with <code>Matcher.find()</code>
+     * @return the position in the set of the pattern found first, or -1 if
+     * none matched
+     */
+    public int find(CharSequence input) {
+        if (this.combined == null) {
+            return this.findEach(input);
+        }
+        Matcher m = this.matchers.get();
+        if (m == null) {
+            m = this.combined.matcher(input);
+            this.matchers.set(m);
+        } else {
+            m.reset(input);
+        }
+        int found = -1;
+        if (m.find()) {
+            for (int k = 0; k < this.groups.length; k++) {
+                if (m.start(this.groups[k]) >= 0) {
+                    found = k;
+                    break;
+                }
+            }
+        }
+        // Don't keep the input alive
+        m.reset("");
+        return found;
+    }
+
+    private int findEach(CharSequence input) {
+        int best = -1;
+        int bestStart = Integer.MAX_VALUE;
+        for (int k = 0; k < this.patterns.length; k++) {
+            Matcher m = this.patterns[k].matcher(input);
+            if (m.find() && m.start() < bestStart) {
+                best = k;
+                bestStart = m.start();
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < this.patterns.length; k++) {
+            sb.append(k == 0 ? "" : ", ").append(this.patterns[k].pattern());
+        }
+        return sb.toString();
+    }
+}
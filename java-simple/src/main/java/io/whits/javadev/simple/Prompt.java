@@ -0,0 +1,233 @@
+package io.whits.javadev.simple;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** <strong>A prompt for any kind of value.</strong><p>
+ *
+ * A <code>Prompt</code> is a <code>{@link Parser}</code>, which turns the
+ * answer into a value, followed by any number of <code>{@link Check}</code>s,
+ * run in the order they were added. Prompts are immutable, so they can be
+ * built once and asked from any thread. Adding a new type only takes a
+ * parser:
+ * <pre>
+ * private static final Prompt&lt;LocalDate&gt; DATE = Prompt.of(new Prompt.Parser&lt;LocalDate&gt;() {
+ *     public LocalDate parse(CharSequence line, Attempt a) {
+ *         try {
+ *             return LocalDate.parse(line.toString().trim());
+ *         } catch (DateTimeParseException e) {
+ *             a.reject("not a date like 2026-10-17");
+ *             return null;
+ *         }
+ *     }
+ * });
+ * </pre>
+ * For ints and doubles use <code>{@link IntPrompt}</code> and
+ * <code>{@link DoublePrompt}</code>, which don't box.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ * @param <T> the type of value asked for
+ */
+public final class Prompt<T> extends PromptStage {
+    /** <strong>Turns an answer into a value.</strong>
+     * @param <T> the type of value made
+     */
+    public interface Parser<T> {
+        /**
+         * @param line - the answer, only valid until the next read
+         * @param a - where to say why the answer is no good
+         * @return the value, or anything at all after calling <code>a.reject</code>
+         */
+        T parse(CharSequence line, Attempt a);
+    }
+
+    /** <strong>An extra rule for a value.</strong>
+     * @param <T> the type of value checked
+     */
+    public interface Check<T> {
+        /**
+         * @param value - the parsed answer
+         * @return null if the value is fine, otherwise why it isn't
+         */
+        String check(T value);
+    }
+
+    private final String kind;
+    private final String expected;
+    private final Parser<? extends T> parser;
+    private final Check<? super T>[] checks;
+
+    private Prompt(String kind, String expected, Parser<? extends T> parser, Check<? super T>[] checks) {
+        this.kind = kind;
+        this.expected = expected;
+        this.parser = parser;
+        this.checks = checks;
+    }
+
+    /**
+     * Make a prompt from a parser
+     * @param <T> the type of value asked for
+     * @param parser - turns answers into values
+     * @return the prompt
+     */
+    public static <T> Prompt<T> of(Parser<? extends T> parser) {
+        return of("a value", parser);
+    }
+
+    /**
+     * Make a prompt from a parser
+     * @param <T> the type of value asked for
+     * @param expected - what the parser accepts, shown on forms, such as "a date"
+     * @param parser - turns answers into values
+     * @return the prompt
+     */
+    public static <T> Prompt<T> of(String expected, Parser<? extends T> parser) {
+        return of("value", expected, parser);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Prompt<T> of(String kind, String expected, Parser<? extends T> parser) {
+        return new Prompt<T>(kind, expected, parser, (Check<? super T>[]) new Check<?>[0]);
+    }
+
+    /**
+     * Add a rule, checked after the parser and any earlier rules
+     * @param c - the rule
+     * @return a new prompt which also checks <code>c</code>
+     */
+    public Prompt<T> where(Check<? super T> c) {
+        Check<? super T>[] more = Arrays.copyOf(this.checks, this.checks.length + 1);
+        more[this.checks.length] = c;
+        return new Prompt<T>(this.kind, this.expected, this.parser, more);
+    }
+
+    /**
+     * Accept any long, which is boxed
+     * @return the prompt
+     */
+    public static Prompt<Long> longs() {
+        return of("long", "a whole number", new Parser<Long>() {
+            public Long parse(CharSequence line, Attempt a) {
+                NumberParser n = a.numbers();
+                if (!n.parseLong(line)) {
+                    a.reject(n.errorText());
+                    return null;
+                }
+                return n.longValue();
+            }
+        });
+    }
+
+    /**
+     * Accept an exact decimal number, such as an amount of money
+     * @return the prompt
+     */
+    public static Prompt<BigDecimal> decimals() {
+        return of("decimal", "a decimal number", new Parser<BigDecimal>() {
+            public BigDecimal parse(CharSequence line, Attempt a) {
+                try {
+                    return new BigDecimal(line.toString().trim());
+                } catch (NumberFormatException e) {
+                    a.reject("not a decimal number");
+                    return null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Accept the name of one of an enum's constants, in any case
+     * @param <E> the enum
+     * @param type - the enum's class
+     * @return the prompt
+     */
+    public static <E extends Enum<E>> Prompt<E> oneOf(final Class<E> type) {
+        final E[] constants = type.getEnumConstants();
+        return of(type.getSimpleName(), "one of " + Arrays.toString(constants), new Parser<E>() {
+            public E parse(CharSequence line, Attempt a) {
+                String answer = line.toString().trim();
+                for (E e : constants) {
+                    if (e.name().equalsIgnoreCase(answer)) {
+                        return e;
+                    }
+                }
+                a.reject("not one of " + Arrays.toString(constants));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Accept what <code>smartForceNextBoolean(String)</code> accepts
+     * @param r - the words meaning yes and no
+     * @return the prompt
+     */
+    public static Prompt<Boolean> yesOrNo(final BooleanRecognizer r) {
+        return of("boolean", "yes or no", new Parser<Boolean>() {
+            public Boolean parse(CharSequence line, Attempt a) {
+                int value = r.recognize(line);
+                if (value == BooleanRecognizer.UNRECOGNIZED) {
+                    a.reject("not a yes or no answer");
+                    return null;
+                }
+                return value == BooleanRecognizer.YES;
+            }
+        });
+    }
+
+    /**
+     * Accept what <code>smartForceNextStringMatching(String, Pattern)</code> accepts
+     * @param e - the regex to validate against
+     * @return the prompt
+     */
+    public static Prompt<String> matching(final Pattern e) {
+        return of("matching", "text matching " + e.pattern(), new Parser<String>() {
+            // Each thread asking reuses its own matcher
+            private final ThreadLocal<Matcher> matchers = new ThreadLocal<Matcher>();
+
+            public String parse(CharSequence line, Attempt a) {
+                Matcher m = this.matchers.get();
+                if (m == null) {
+                    m = e.matcher("");
+                    this.matchers.set(m);
+                }
+                boolean found = m.reset(line).find();
+                m.reset("");
+                if (!found) {
+                    a.reject("does not match " + e.pattern());
+                    return null;
+                }
+                return line.toString();
+            }
+        });
+    }
+
+    @Override
+    String expected() {
+        return this.expected;
+    }
+
+    @Override
+    String kind() {
+        return this.kind;
+    }
+
+    @Override
+    boolean accept(CharSequence line, Attempt a) {
+        T value = this.parser.parse(line, a);
+        if (a.isRejected()) {
+            return false;
+        }
+        for (Check<? super T> c : this.checks) {
+            String reason = c.check(value);
+            if (reason != null) {
+                a.reject(reason);
+                return false;
+            }
+        }
+        a.value = value;
+        return true;
+    }
+}
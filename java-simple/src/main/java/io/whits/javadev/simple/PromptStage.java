@@ -0,0 +1,43 @@
+package io.whits.javadev.simple;
+
+/** <strong>What every kind of prompt has in common.</strong><p>
+ *
+ * SmartScanner asks for a line, hands it to <code>accept</code>, and asks
+ * again until a line is accepted. <code>{@link Prompt}</code>,
+ * <code>{@link IntPrompt}</code> and <code>{@link DoublePrompt}</code> only
+ * differ in where they leave the value.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+abstract class PromptStage {
+    /**
+     * Parse and check a line
+     * @param line - the answer, only valid until the next read
+     * @param a - where to leave the value, or why it was rejected
+     * @return true if the answer is accepted
+     */
+    abstract boolean accept(CharSequence line, Attempt a);
+
+    /**
+     * Describe what the prompt accepts, for forms
+     * @return a short description, such as "an int between 1 and 5"
+     */
+    abstract String expected();
+
+    /**
+     * Name the type of value asked for, to count rejected answers by
+     * @return a short fixed name, such as "int"
+     */
+    String kind() {
+        return "value";
+    }
+
+    /**
+     * Check whether an answer is always a single word, so that with
+     * typeahead on the rest of the line can be kept for the next prompt
+     * @return true for numbers
+     */
+    boolean takesOneWord() {
+        return false;
+    }
+}
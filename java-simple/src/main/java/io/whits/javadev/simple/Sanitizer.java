@@ -0,0 +1,107 @@
+package io.whits.javadev.simple;
+
+import java.util.Locale;
+
+/** <strong>Lowercases and trims answers, quickly when they are ASCII.</strong><p>
+ *
+ * Used by SmartScanner's <code>smartNextStringSanitized</code> family. An
+ * answer which is all ASCII is trimmed and lowercased in a single pass into a
+ * reusable buffer, which is then either handed out as a view or copied into
+ * one String. Anything else goes through <code>String.toLowerCase(Locale)</code>
+ * and <code>String.trim()</code> as before.<p>
+ *
+ * ASCII folds on its own in every locale except Turkish and Azerbaijani,
+ * where <code>I</code> lowercases to a dotless <code>&#x131;</code>, so those
+ * locales always take the full path. Not thread safe; each SmartScanner has
+ * its own.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+final class Sanitizer {
+    private char[] chars = new char[64];
+    private final View view = new View();
+
+    /**
+     * Check whether lowercasing ASCII in a locale just maps A-Z to a-z
+     * @param locale - the locale to lowercase in
+     * @return false for the locales with their own rules for ASCII letters
+     */
+    static boolean foldsAsciiSimply(Locale locale) {
+        String language = locale.getLanguage();
+        return !"tr".equals(language) && !"az".equals(language);
+    }
+
+    /**
+     * Lowercase and trim an answer into a String
+     * @param s - the answer as read
+     * @param locale - the locale to lowercase in
+     * @return the cleaned answer
+     */
+    String sanitize(CharSequence s, Locale locale) {
+        CharSequence clean = this.sanitizeView(s, locale);
+        return clean == this.view ? new String(this.chars, 0, this.view.length) : clean.toString();
+    }
+
+    /**
+     * Lowercase and trim an answer, copying as little as possible
+     * @param s - the answer as read
+     * @param locale - the locale to lowercase in
+     * @return the cleaned answer, which may only be valid until this is next used
+     */
+    CharSequence sanitizeView(CharSequence s, Locale locale) {
+        if (foldsAsciiSimply(locale)) {
+            int start = 0;
+            int end = s.length();
+            // The same characters String.trim() drops
+            while (start < end && s.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && s.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            int length = end - start;
+            if (this.chars.length < length) {
+                this.chars = new char[Math.max(length, this.chars.length * 2)];
+            }
+            char[] out = this.chars;
+            int k = 0;
+            for (; k < length; k++) {
+                char c = s.charAt(start + k);
+                if (c >= 0x80) {
+                    break;
+                }
+                out[k] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+            }
+            if (k == length) {
+                this.view.length = length;
+                return this.view;
+            }
+        }
+        return s.toString().toLowerCase(locale).trim();
+    }
+
+    /** The start of the buffer, as a CharSequence. */
+    private final class View implements CharSequence {
+        private int length;
+
+        public int length() {
+            return this.length;
+        }
+
+        public char charAt(int index) {
+            if (index < 0 || index >= this.length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + this.length);
+            }
+            return chars[index];
+        }
+
+        public CharSequence subSequence(int from, int to) {
+            return this.toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, this.length);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.whits.javadev.simple;
+
+import java.util.Scanner;
+
+/** <strong>Adapts a <code>java.util.Scanner</code> to a <code>{@link LineSource}</code>.</strong><p>
+ *
+ * This keeps the <code>Scanner</code> based constructors and
+ * <code>setScanner</code> methods of SmartScanner working. It is slower than
+ * <code>{@link ByteLineReader}</code> since every line still goes through the
+ * Scanner's regex tokenizer.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public class ScannerLineSource implements LineSource {
+    private final Scanner scanner;
+
+    /**
+     * Wrap an existing scanner.
+     * @param s - the scanner to read lines from
+     */
+    public ScannerLineSource(Scanner s) {
+        this.scanner = s;
+    }
+
+    /**
+     * Get the wrapped scanner
+     * @return the scanner lines are read from
+     */
+    public Scanner getScanner() {
+        return this.scanner;
+    }
+
+    public String nextLine() {
+        return this.scanner.nextLine();
+    }
+
+    public boolean hasNextLine() {
+        return this.scanner.hasNextLine();
+    }
+
+    public void close() {
+        this.scanner.close();
+    }
+}
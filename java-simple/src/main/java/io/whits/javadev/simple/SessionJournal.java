@@ -0,0 +1,429 @@
+package io.whits.javadev.simple;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/** <strong>Records a session to an append-only file without waiting on the disk.</strong><p>
+ *
+ * Attached to a SmartScanner with <code>setJournal</code>, a
+ * <code>SessionJournal</code> records every prompt, every line read, whether
+ * each answer was accepted or why not, and each menu shown, all with the
+ * time. It is meant for audits, and for collecting real sessions to replay as
+ * load tests with <code>{@link #replay(Path)}</code>.<p>
+ *
+ * The thread answering prompts only encodes each record into a ring buffer in
+ * memory. A background thread copies records from the ring into a file which
+ * is preallocated and memory-mapped, so the answering thread never touches
+ * the disk. If the writer falls a whole ring behind, the answering thread
+ * waits for it rather than lose records. A journal has one writer: records
+ * should come from one thread at a time, as they do from a SmartScanner.<p>
+ *
+ * Each record in the file is its length (an int, written last so a torn
+ * record reads as the end), a type byte, the time in epoch milliseconds (a
+ * long) and UTF-8 text. The length after the last record is always zero, so
+ * records left over from before a crash are never read back as new ones.
+ * Opening an existing journal appends to it. Once the
+ * file is full, further records are counted in <code>getDropped()</code>.
+ * @author Whit Huntley
+ * @since 2026-10-17
+ */
+public final class SessionJournal implements AutoCloseable {
+    /** A prompt was shown. */
+    public static final int PROMPT = 1;
+    /** A line was read from input. */
+    public static final int INPUT = 2;
+    /** A prompt was answered from typeahead or an answer index rather than input. */
+    public static final int ANSWER = 3;
+    /** The last answer was accepted. */
+    public static final int ACCEPTED = 4;
+    /** The last answer was rejected, the text is why. */
+    public static final int REJECTED = 5;
+    /** A menu was shown, the text is its name. */
+    public static final int MENU = 6;
+
+    private static final int MAGIC = 0x53534A31;
+    private static final int HEADER = 8;
+    // Type and time, after the length
+    private static final int RECORD_HEADER = 1 + 8;
+    private static final int DEFAULT_RING = 1 << 20;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer file;
+    // Where the writer puts the next record in the file
+    private int filePos;
+
+    private final byte[] ring;
+    private final int mask;
+    // Bytes ever taken from and put into the ring
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private byte[] scratch = new byte[256];
+    private long stalls;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Open a journal with a 1 MiB ring
+     * @param path - the journal file, created if it doesn't exist
+     * @param capacity - how big the file should be, in bytes
+     * @throws UncheckedIOException if the file can't be opened or mapped
+     */
+    public SessionJournal(Path path, long capacity) {
+        this(path, capacity, DEFAULT_RING);
+    }
+
+    /**
+     * Open a journal
+     * @param path - the journal file, created if it doesn't exist
+     * @param capacity - how big the file should be, in bytes. An existing file
+     * bigger than this keeps its size.
+     * @param ringSize - how many bytes of records can wait for the writer, rounded
+     * up to a power of two
+     * @throws UncheckedIOException if the file can't be opened or mapped
+     */
+    public SessionJournal(Path path, long capacity, int ringSize) {
+        if (capacity <= HEADER || capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal capacity must be more than 8 bytes and under 2 GiB: "
+                + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(ringSize, 64) - 1) << 1;
+        this.ring = new byte[size];
+        this.mask = size - 1;
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            long length = Math.max(capacity, this.channel.size());
+            this.file = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int magic = this.file.getInt(0);
+        if (magic == 0) {
+            this.file.putInt(0, MAGIC);
+        } else if (magic != MAGIC) {
+            this.close();
+            throw new IllegalArgumentException(path + " is not a session journal");
+        }
+        this.filePos = end(this.file);
+        this.writer = new Thread(new Runnable() {
+            public void run() {
+                drainUntilClosed();
+            }
+        }, "session-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Find where the records in a mapped journal end
+     */
+    private static int end(MappedByteBuffer b) {
+        int pos = HEADER;
+        while (pos + 4 <= b.limit()) {
+            int length = b.getInt(pos);
+            if (length <= 0 || pos + 4 + length > b.limit()) {
+                break;
+            }
+            pos += 4 + length;
+        }
+        return pos;
+    }
+
+    /**
+     * Add a record. Only the calling thread's time is spent, encoding it into
+     * memory, unless the writer is a whole ring behind.
+     * @param type - what happened, such as <code>PROMPT</code>
+     * @param text - the prompt, answer or reason, or null for none
+     */
+    public void record(int type, CharSequence text) {
+        if (this.closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int length = RECORD_HEADER + this.encode(text, 4 + RECORD_HEADER);
+        int total = 4 + length;
+        if (total > this.ring.length) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+        byte[] s = this.scratch;
+        putInt(s, 0, length);
+        s[4] = (byte) type;
+        putLong(s, 5, now);
+        long t = this.tail.get();
+        while (t + total - this.head.get() > this.ring.length) {
+            // The writer is a whole ring behind, give it a chance to catch up
+            this.stalls++;
+            LockSupport.unpark(this.writer);
+            Thread.yield();
+            if (this.closed) {
+                return;
+            }
+        }
+        int at = (int) (t & this.mask);
+        int first = Math.min(total, this.ring.length - at);
+        System.arraycopy(s, 0, this.ring, at, first);
+        System.arraycopy(s, first, this.ring, 0, total - first);
+        this.tail.lazySet(t + total);
+    }
+
+    /**
+     * Encode text as UTF-8 into the scratch buffer
+     * @return how many bytes it took
+     */
+    private int encode(CharSequence text, int offset) {
+        if (text == null) {
+            return 0;
+        }
+        int n = text.length();
+        if (this.scratch.length < offset + n * 3) {
+            this.scratch = new byte[Math.max(offset + n * 3, this.scratch.length * 2)];
+        }
+        byte[] s = this.scratch;
+        int p = offset;
+        for (int k = 0; k < n; k++) {
+            char c = text.charAt(k);
+            if (c < 0x80) {
+                s[p++] = (byte) c;
+            } else if (c < 0x800) {
+                s[p++] = (byte) (0xC0 | c >> 6);
+                s[p++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && k + 1 < n && Character.isLowSurrogate(text.charAt(k + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++k));
+                s[p++] = (byte) (0xF0 | cp >> 18);
+                s[p++] = (byte) (0x80 | cp >> 12 & 0x3F);
+                s[p++] = (byte) (0x80 | cp >> 6 & 0x3F);
+                s[p++] = (byte) (0x80 | cp & 0x3F);
+            } else {
+                s[p++] = (byte) (0xE0 | c >> 12);
+                s[p++] = (byte) (0x80 | c >> 6 & 0x3F);
+                s[p++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return p - offset;
+    }
+
+    private void drainUntilClosed() {
+        while (true) {
+            boolean wasClosed = this.closed;
+            if (!this.drain() && wasClosed) {
+                return;
+            }
+            if (this.head.get() == this.tail.get() && !this.closed) {
+                LockSupport.parkNanos(this, 1000000L);
+            }
+        }
+    }
+
+    /**
+     * Copy every record in the ring into the file
+     * @return true if there was anything to copy
+     */
+    private boolean drain() {
+        long h = this.head.get();
+        long t = this.tail.get();
+        if (h == t) {
+            return false;
+        }
+        MappedByteBuffer f = this.file;
+        while (h < t) {
+            int length = this.ringInt(h);
+            int total = 4 + length;
+            if (this.filePos + total + 4 > f.limit()) {
+                // Full, and a zero length must still fit after the last record
+                this.dropped.incrementAndGet();
+            } else {
+                for (int k = 4; k < total; k++) {
+                    f.put(this.filePos + k, this.ring[(int) ((h + k) & this.mask)]);
+                }
+                // End the records here, in case older ones follow from before a crash
+                f.putInt(this.filePos + total, 0);
+                // The length goes in last, so a record is never seen half written
+                f.putInt(this.filePos, length);
+                this.filePos += total;
+            }
+            h += total;
+        }
+        this.head.lazySet(h);
+        return true;
+    }
+
+    private int ringInt(long at) {
+        int v = 0;
+        for (int k = 0; k < 4; k++) {
+            v = v << 8 | this.ring[(int) ((at + k) & this.mask)] & 0xFF;
+        }
+        return v;
+    }
+
+    private static void putInt(byte[] b, int at, int v) {
+        for (int k = 3; k >= 0; k--) {
+            b[at + k] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    private static void putLong(byte[] b, int at, long v) {
+        for (int k = 7; k >= 0; k--) {
+            b[at + k] = (byte) v;
+            v >>>= 8;
+        }
+    }
+
+    /**
+     * Get how often a record had to wait for the writer
+     * @return the number of times the ring was full, counted on the recording thread
+     */
+    public long getStalls() {
+        return this.stalls;
+    }
+
+    /**
+     * Get how many records were lost, because the file was full or a record
+     * was bigger than the ring
+     * @return the number of records not written
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Write out every record, and stop the writer.
+     */
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        if (this.writer != null) {
+            LockSupport.unpark(this.writer);
+            boolean interrupted = false;
+            while (this.writer.isAlive()) {
+                try {
+                    this.writer.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            this.file.force();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** <strong>One record read back from a journal.</strong> */
+    public static final class Entry {
+        private final int type;
+        private final long time;
+        private final String text;
+
+        private Entry(int type, long time, String text) {
+            this.type = type;
+            this.time = time;
+            this.text = text;
+        }
+
+        /**
+         * @return what happened, such as <code>PROMPT</code>
+         */
+        public int getType() {
+            return this.type;
+        }
+
+        /**
+         * @return when it happened, in epoch milliseconds
+         */
+        public long getTime() {
+            return this.time;
+        }
+
+        /**
+         * @return the prompt, answer or reason, empty for none
+         */
+        public String getText() {
+            return this.text;
+        }
+
+        @Override
+        public String toString() {
+            String[] names = {"?", "PROMPT", "INPUT", "ANSWER", "ACCEPTED", "REJECTED", "MENU"};
+            return String.format("%tF %<tT.%<tL %s %s", this.time,
+                this.type > 0 && this.type < names.length ? names[this.type] : names[0], this.text);
+        }
+    }
+
+    /**
+     * Read every record in a journal which is not open for writing
+     * @param path - the journal file
+     * @return the records, in the order they were made
+     * @throws UncheckedIOException if the file can't be read
+     */
+    public static List<Entry> read(Path path) {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (b.limit() < HEADER || b.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException(path + " is not a session journal");
+            }
+            ArrayList<Entry> entries = new ArrayList<Entry>();
+            int end = end(b);
+            int pos = HEADER;
+            byte[] text = new byte[256];
+            while (pos < end) {
+                int length = b.getInt(pos);
+                int type = b.get(pos + 4);
+                long time = b.getLong(pos + 5);
+                int n = length - RECORD_HEADER;
+                if (text.length < n) {
+                    text = new byte[Math.max(n, text.length * 2)];
+                }
+                for (int k = 0; k < n; k++) {
+                    text[k] = b.get(pos + 4 + RECORD_HEADER + k);
+                }
+                entries.add(new Entry(type, time, new String(text, 0, n, StandardCharsets.UTF_8)));
+                pos += 4 + length;
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Turn a journal back into the input which was typed, one line per line
+     * read, to feed to a SmartScanner in place of the user
+     * @param path - the journal file
+     * @return the lines read during the recorded sessions, in UTF-8
+     * @throws UncheckedIOException if the file can't be read
+     */
+    public static InputStream replay(Path path) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        for (Entry e : read(path)) {
+            if (e.getType() == INPUT) {
+                byte[] b = e.getText().getBytes(StandardCharsets.UTF_8);
+                lines.write(b, 0, b.length);
+                lines.write('\n');
+            }
+        }
+        return new ByteArrayInputStream(lines.toByteArray());
+    }
+}
@@ -1,6 +1,18 @@
 package io.whits.javadev.simple;
 
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,14 +41,38 @@ import java.util.regex.Pattern;
  * @since 2021-11-08
 */
 public class SmartScanner {
-    private Scanner input;
+    private LineSource input;
+    private final NumberParser numbers = new NumberParser();
+    private OutputSink out = OutputSink.stdout();
+    private boolean batchMode;
+    private BooleanRecognizer booleans = BooleanRecognizer.standard();
+    private CharSequence lastResponse;
+    private final Sanitizer sanitizer = new Sanitizer();
+    private final Attempt attempt = new Attempt(numbers);
+    private boolean typeahead;
+    // The rest of a line, after the word which answered the last prompt
+    private String typedAhead;
+    private AnswerIndex answers;
+    private AnswerIndex.OnMiss onMiss;
+    // The prompt being answered, for looking up answers
+    private String asked;
+    private SessionJournal journal;
+    private Metrics metrics;
+    // Set while a prompt counted by the metrics is waiting for an accepted answer
+    private boolean prompting;
+    private long promptStart;
+    private int tries;
+    // Reused while the same pattern is asked for again
+    private Matcher matcher;
+    private ArrayReader arrays;
+    private long linesRead;
 
     /**
-     * Construct a SmartScanner creating a new java.util.Scanner which reads
-     * input from STDIN.
+     * Construct a SmartScanner which reads input from STDIN through a
+     * <code>{@link ByteLineReader}</code>.
      */
     public SmartScanner() {
-        this.input = new Scanner(System.in);
+        this.input = new ByteLineReader(System.in);
     }
     /**
      * Construct a new SmartScanner using an existing java.util.Scanner which
@@ -44,15 +80,78 @@ public class SmartScanner {
      * @param s - The existing scanner to be used for the SmartScanner.
      */
     public SmartScanner(Scanner s) {
-        this.input = s;
+        this.input = new ScannerLineSource(s);
+    }
+    /**
+     * Construct a SmartScanner which reads input from a stream.
+     * @param in - The stream to read user input from.
+     */
+    public SmartScanner(InputStream in) {
+        this.input = new ByteLineReader(in);
+    }
+    /**
+     * Construct a SmartScanner which reads input from a blocking channel.
+     * @param ch - The channel to read user input from.
+     */
+    public SmartScanner(ReadableByteChannel ch) {
+        this.input = new ByteLineReader(ch);
+    }
+    /**
+     * Construct a SmartScanner which reads input from any line source.
+     * @param src - The source of user input.
+     */
+    public SmartScanner(LineSource src) {
+        this.input = src;
+    }
+
+    /**
+     * Create a SmartScanner which reads answers from a file, such as a
+     * recording of an earlier session. The file is memory-mapped by a
+     * <code>{@link MappedLineSource}</code>, so it can be any size.
+     * @param path - The file to read, decoded with the platform charset.
+     * @return a SmartScanner reading the file
+     * @throws java.io.UncheckedIOException if the file can't be opened
+     */
+    public static SmartScanner fromFile(Path path) {
+        return new SmartScanner(new MappedLineSource(path));
+    }
+
+    /**
+     * Create a SmartScanner which reads answers from a memory-mapped file.
+     * @param path - The file to read.
+     * @param cs - The charset the file is written in.
+     * @return a SmartScanner reading the file
+     * @throws java.io.UncheckedIOException if the file can't be opened
+     */
+    public static SmartScanner fromFile(Path path, Charset cs) {
+        return new SmartScanner(new MappedLineSource(path, cs));
     }
 
     /**
-     * Get the scanner currently used by SmartScanner
-     * @return the scanner used by the instance of the SmartScanner
+     * Get the scanner currently used by SmartScanner. If the SmartScanner
+     * is reading through a <code>{@link ByteLineReader}</code> or a
+     * <code>{@link MappedLineSource}</code>, a Scanner is
+     * created over the remaining input and used from then on.
+     * @return the scanner used by the instance of the SmartScanner, or null
+     * if the input source cannot be handed to a scanner.
      */
     public Scanner getScanner() {
-        return input;
+        if (input instanceof ScannerLineSource) {
+            return ((ScannerLineSource) input).getScanner();
+        }
+        if (input instanceof ByteLineReader) {
+            ByteLineReader reader = (ByteLineReader) input;
+            Scanner s = new Scanner(reader.asInputStream(), reader.getCharset().name());
+            input = new ScannerLineSource(s);
+            return s;
+        }
+        if (input instanceof MappedLineSource) {
+            MappedLineSource mapped = (MappedLineSource) input;
+            Scanner s = new Scanner(mapped.asInputStream(), mapped.getCharset().name());
+            input = new ScannerLineSource(s);
+            return s;
+        }
+        return null;
     }
     
     /**
@@ -60,7 +159,170 @@ public class SmartScanner {
      * @param s the scanner to be used
      */
     public void setScanner(Scanner s) {
-        input = s;
+        input = new ScannerLineSource(s);
+        typedAhead = null;
+    }
+
+    /**
+     * Get the line source currently used by SmartScanner
+     * @return the source user input is read from
+     */
+    public LineSource getSource() {
+        return input;
+    }
+
+    /**
+     * Set the line source to be used by the SmartScanner
+     * @param src the source user input is read from
+     */
+    public void setSource(LineSource src) {
+        input = src;
+        typedAhead = null;
+    }
+
+    /**
+     * Get the sink prompts and messages are written to
+     * @return the output sink in use
+     */
+    public OutputSink getOutput() {
+        return out;
+    }
+
+    /**
+     * Set the sink prompts and messages are written to. Anything still
+     * buffered in the old sink is written out first.
+     * @param sink - the output sink to use
+     */
+    public void setOutput(OutputSink sink) {
+        out.flush();
+        out = sink;
+    }
+
+    /**
+     * Turn batch mode on or off. In batch mode prompts are not shown, an
+     * invalid answer throws a <code>{@link BatchInputException}</code> instead
+     * of asking again, and output is only written once the sink fills up.
+     * Buffered output is written when batch mode is turned off, when input
+     * runs out, when an answer is rejected, or when <code>flush()</code> is
+     * called.<p>
+     * Outside of batch mode output is written just before a read would block
+     * and before each method returns.
+     * @param batch - true to run without a user at the keyboard
+     */
+    public void setBatchMode(boolean batch) {
+        if (!batch) {
+            out.flush();
+        }
+        batchMode = batch;
+    }
+
+    /**
+     * Turn on batch mode if STDIN is not attached to a console, such as when
+     * input is piped in or redirected from a file.
+     */
+    public void detectBatchMode() {
+        setBatchMode(System.console() == null);
+    }
+
+    /**
+     * Check whether the SmartScanner is in batch mode
+     * @return true if prompts are skipped and invalid answers are fatal
+     */
+    public boolean isBatchMode() {
+        return batchMode;
+    }
+
+    /**
+     * Turn typeahead on or off. With typeahead on, an int or double prompt
+     * answered with several words takes the first, and keeps the rest of the
+     * line as the answer to the prompts which follow. Those prompts, and any
+     * menu asking them, are not shown. So <code>2 1 3</code> typed at a menu
+     * picks option 2, then 1 in the menu that leads to, then 3. If any of
+     * them is not valid, the rest are dropped. Off by default.
+     * @param on - true to keep extra words for the next prompts
+     */
+    public void setTypeahead(boolean on) {
+        typeahead = on;
+        if (!on) {
+            typedAhead = null;
+        }
+    }
+
+    /**
+     * Check whether typeahead is on
+     * @return true if extra words are kept for the next prompts
+     */
+    public boolean isTypeahead() {
+        return typeahead;
+    }
+
+    /**
+     * Check whether the next prompt will be answered by words already typed
+     * @return true if the next prompt will not be shown
+     */
+    public boolean hasTypeahead() {
+        return typedAhead != null;
+    }
+
+    /**
+     * Answer prompts from an index before reading any input. Each time a
+     * prompt is shown its next answer is taken from the index, so answers
+     * need not be in the order the prompts are asked. Answers taken from
+     * the index are checked like any other.
+     * @param index - the answers, or null to read everything from input again
+     * @param onMiss - what to do when the index has no answer to a prompt
+     */
+    public void setAnswers(AnswerIndex index, AnswerIndex.OnMiss onMiss) {
+        answers = index;
+        this.onMiss = onMiss;
+    }
+
+    /**
+     * Get the answers prompts are looked up in
+     * @return the index, or null if there is none
+     */
+    public AnswerIndex getAnswers() {
+        return answers;
+    }
+
+    /**
+     * Record everything asked and answered from now on
+     * @param j - the journal to record to, or null to stop recording
+     */
+    public void setJournal(SessionJournal j) {
+        journal = j;
+    }
+
+    /**
+     * Get the journal the session is recorded to
+     * @return the journal, or null if the session isn't recorded
+     */
+    public SessionJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Count prompts, rejected answers and menu choices from now on
+     * @param m - where to count, which can be shared with other scanners,
+     * or null to stop counting
+     */
+    public void setMetrics(Metrics m) {
+        metrics = m;
+    }
+
+    /**
+     * Get where prompts and menu choices are counted
+     * @return the metrics, or null if nothing is counted
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Write out anything held back by batch mode.
+     */
+    public void flush() {
+        out.flush();
     }
 
     /** <strong>Get user input</strong>
@@ -70,9 +332,9 @@ public class SmartScanner {
      * @return The now cleaner input
      */
     public String nextLine(String prompt) {
-        System.out.println(prompt);
-        System.out.print("> ");
-        String response = input.nextLine();
+        showPrompt(prompt);
+        String response = readResponse();
+        settle();
         return response;
     }
 
@@ -84,8 +346,9 @@ public class SmartScanner {
      */
     public String nextLine() {
         System.err.println("Bad programmer didn't update methods (nextLine() rather than nextLine(String) used).");
-        System.out.print("> ");
-        String response = input.nextLine();
+        showPrompt(null);
+        String response = readResponse();
+        settle();
         return response;
     }
 
@@ -96,11 +359,38 @@ public class SmartScanner {
      * @return The now cleaner input
      */
     public String smartNextStringSanitized(String prompt) {
-        System.out.println(prompt);
-        System.out.print("> ");
-        String response = input.nextLine();
-        response = response.toLowerCase();
-        response = response.trim();
+        return smartNextStringSanitized(prompt, Locale.getDefault());
+    }
+
+    /** <strong>Get user input and sanitize it in a given locale</strong>
+     * Works as <code>smartNextStringSanitized(String)</code>, lowercasing in
+     * <code>locale</code> instead of the default locale. Pass
+     * <code>Locale.ROOT</code> for the same result on every machine, which
+     * also keeps an <code>I</code> typed under a Turkish locale an <code>i</code>.
+     * @param prompt - The prompt to be provided to the user
+     * @param locale - The locale to lowercase in
+     * @return The now cleaner input
+     */
+    public String smartNextStringSanitized(String prompt, Locale locale) {
+        showPrompt(prompt);
+        String response = sanitizer.sanitize(readResponseView(), locale);
+        settle();
+        return response;
+    }
+
+    /** <strong>Get user input and sanitize it without keeping it</strong>
+     * Works as <code>smartNextStringSanitized(String, Locale)</code>, but an
+     * ASCII answer is handed out as a view over a buffer which is reused, so
+     * nothing at all is allocated. The view is only valid until the next
+     * read; call <code>toString()</code> on it to keep it.
+     * @param prompt - The prompt to be provided to the user
+     * @param locale - The locale to lowercase in
+     * @return The now cleaner input
+     */
+    public CharSequence smartNextStringSanitizedView(String prompt, Locale locale) {
+        showPrompt(prompt);
+        CharSequence response = sanitizer.sanitizeView(readResponseView(), locale);
+        settle();
         return response;
     }
 
@@ -113,14 +403,55 @@ public class SmartScanner {
      * @return the user's validated input
      */
     public String smartForceNextStringMatching(String prompt, Pattern e) {
-        String response = "";
+        Matcher m = this.matcher;
+        if (m == null || m.pattern() != e) {
+            m = e.matcher("");
+            this.matcher = m;
+        }
         while (true) {
-            response = this.nextLine(prompt);
-            Matcher m = e.matcher(response);
-            if (m.find()) {
-                return response;
+            showPrompt(prompt);
+            CharSequence response = readResponseView();
+            boolean found = m.reset(response).find();
+            m.reset("");
+            if (found) {
+                settle();
+                return response.toString();
             }
-            System.out.println("That was not a valid response. Please try again.");
+            rejectInBatch("matching", prompt, "does not match " + e.pattern());
+            out.println("That was not a valid response. Please try again.");
+        }
+    }
+
+    /** <strong>Get user input matching a regular expression</strong>
+     * The same as <code>{@link #smartForceNextStringMatching(String, Pattern)}</code>,
+     * but the regex is compiled once and kept in <code>{@link PatternCache#shared()}</code>.
+     * @param prompt - the prompt to be shown to the user
+     * @param regex - the regex to validate against
+     * @return the user's validated input
+     */
+    public String smartForceNextStringMatching(String prompt, String regex) {
+        return this.smartForceNextStringMatching(prompt, PatternCache.shared().get(regex));
+    }
+
+    /** <strong>Get user input matching one of several regular expressions</strong>
+     * <code>smartForceNextStringMatchingAny</code> works like
+     * <code>smartForceNextStringMatching</code>, but accepts input matching
+     * any of the patterns in the set, checking them all in one pass.
+     * @param prompt - the prompt to be shown to the user
+     * @param patterns - the regexes to validate against
+     * @return the user's validated input, and which pattern it matched
+     */
+    public PatternSet.Match smartForceNextStringMatchingAny(String prompt, PatternSet patterns) {
+        while (true) {
+            showPrompt(prompt);
+            CharSequence response = readResponseView();
+            int found = patterns.find(response);
+            if (found >= 0) {
+                settle();
+                return new PatternSet.Match(found, response.toString());
+            }
+            rejectInBatch("matching", prompt, "does not match any of " + patterns);
+            out.println("That was not a valid response. Please try again.");
         }
     }
 
@@ -144,23 +475,7 @@ public class SmartScanner {
      * @return The user's provided value as an integer.
      */
     public int smartForceNextInt(String prompt) {
-        int value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            System.out.println(prompt);
-            System.out.print("> ");
-            try {
-                value = Integer.parseInt(input.nextLine());
-                validResponse = true;
-            } catch (Exception e) {
-                System.out.println("That is not a valid value. Try again.");
-                System.out.println("Detailed error below:");
-                System.out.println(e);
-                System.out.println();
-                validResponse = false;
-            }
-        }
-        return value;
+        return ask(prompt, IntPrompt.any());
     }
 
     /** <strong>Safely parse user input and cast as an int within a range</strong><p>
@@ -173,22 +488,7 @@ public class SmartScanner {
      * @return The user's provided value as an integer.
      */
     public int smartForceNextInt(String prompt, int rangeLower) {
-        int value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            // First get a healthy int value.
-            value = smartForceNextInt(prompt);
-
-            // Now check if within range
-            if (value >= rangeLower) {
-                validResponse = true;
-            } else {
-                System.out.printf("Please enter a value greater than %,d\n",
-                    rangeLower);
-                validResponse = false;
-            }
-        }
-        return value;
+        return ask(prompt, IntPrompt.atLeast(rangeLower));
     }
 
     /** <strong>Safely parse user input and cast as an int within a range</strong><p>
@@ -202,21 +502,7 @@ public class SmartScanner {
      * @return The user's provided value as an int.
      */
     public int smartForceNextInt(String prompt, int rangeLower, int rangeUpper) {
-        int value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            value = smartForceNextInt(prompt);
-            // Now check if within range
-            if (value >= rangeLower && value <= rangeUpper) {
-                validResponse = true;
-            } else {
-                System.out.printf("Please enter a value between %,d and %,d.\n",
-                    rangeLower,
-                    rangeUpper);
-                validResponse = false;
-            }
-        }
-        return value;
+        return ask(prompt, IntPrompt.between(rangeLower, rangeUpper));
     }
 
 
@@ -241,23 +527,7 @@ public class SmartScanner {
      * @return The user's provided value as a double.
      */
     public double smartForceNextDouble(String prompt) {
-        double value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            System.out.println(prompt);
-            System.out.print("> ");
-            try {
-                value = Double.parseDouble(input.nextLine());
-                validResponse = true;
-            } catch (Exception e) {
-                System.out.println("That is not a valid value. Try again.");
-                System.out.println("Detailed error below:");
-                System.out.println(e);
-                System.out.println();
-                validResponse = false;
-            }
-        }
-        return value;
+        return ask(prompt, DoublePrompt.any());
     }
 
     /** <strong>Safely parse user input and cast as a double within a range</strong><p>
@@ -270,21 +540,7 @@ public class SmartScanner {
      * @return The user's provided value as a double.
      */
     public double smartForceNextDouble(String prompt, double rangeLower) {
-        double value = 0;
-        boolean validResponse = false;
-        // Now check if within range
-        while (!validResponse) {
-            // First get a healthy double value.
-            value = smartForceNextDouble(prompt);
-            if (value >= rangeLower) {
-                validResponse = true;
-            } else {
-                System.out.printf("Please enter a value greater than %,f.\n",
-                    rangeLower);
-                validResponse = false;
-            }
-        }
-        return value;
+        return ask(prompt, DoublePrompt.atLeast(rangeLower));
     }
 
     /** <strong>Safely parse user input and cast as a double within a range</strong><p>
@@ -298,23 +554,407 @@ public class SmartScanner {
      * @return The user's provided value as a double.
      */
     public double smartForceNextDouble(String prompt, double rangeLower, double rangeUpper) {
-        double value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            value = smartForceNextDouble(prompt);
-            // Now check if within range
-            if (value >= rangeLower && value <= rangeUpper) {
-                validResponse = true;
-            } else {
-                System.out.printf("Please enter a value between %,f and %,f.\n",
-                    rangeLower,
-                    rangeUpper);
-                validResponse = false;
+        return ask(prompt, DoublePrompt.between(rangeLower, rangeUpper));
+    }
+
+
+    /** <strong>Ask for a value until a valid one is given</strong><p>
+     * <code>ask</code> shows the prompt, hands the answer to <code>p</code>,
+     * and tells the user what was wrong and asks again until <code>p</code>
+     * accepts it. In batch mode a rejected answer throws a
+     * <code>{@link BatchInputException}</code> instead.
+     * @param <T> the type of value asked for
+     * @param prompt - The text to be displayed to the user.
+     * @param p - how to parse and check the answer
+     * @return The user's provided value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T ask(String prompt, Prompt<T> p) {
+        askUntilAccepted(prompt, p);
+        T value = (T) attempt.value;
+        attempt.value = null;
+        return value;
+    }
+
+    /** <strong>Ask for an int until a valid one is given</strong><p>
+     * Works as <code>{@link #ask(String, Prompt)}</code> without boxing.
+     * @param prompt - The text to be displayed to the user.
+     * @param p - how to check the answer
+     * @return The user's provided value as an int.
+     */
+    public int ask(String prompt, IntPrompt p) {
+        askUntilAccepted(prompt, p);
+        return attempt.intValue;
+    }
+
+    /** <strong>Ask for a double until a valid one is given</strong><p>
+     * Works as <code>{@link #ask(String, Prompt)}</code> without boxing.
+     * @param prompt - The text to be displayed to the user.
+     * @param p - how to check the answer
+     * @return The user's provided value as a double.
+     */
+    public double ask(String prompt, DoublePrompt p) {
+        askUntilAccepted(prompt, p);
+        return attempt.doubleValue;
+    }
+
+    /** <strong>Fill in a form</strong><p>
+     * <code>fill</code> shows every field of the form once, then reads
+     * <code>name=value</code> answers until each field has one or a blank
+     * line is entered. Fields whose answers were wrong or missing are listed
+     * with what was wrong and asked for again; the rest are kept. In batch
+     * mode the first wrong or missing answer throws a
+     * <code>{@link BatchInputException}</code> instead.
+     * @param prompt - The text to be displayed to the user.
+     * @param form - the fields to fill in
+     * @return the answers
+     */
+    public Form.Record fill(String prompt, Form form) {
+        Form.Record record = form.newRecord();
+        int size = form.size();
+        boolean[] wanted = new boolean[size];
+        Arrays.fill(wanted, true);
+        int outstanding = size;
+        // Per round: whether each wanted field was answered, and whether that answer was good
+        boolean[] answered = new boolean[size];
+        boolean[] good = new boolean[size];
+        StringBuilder problems = new StringBuilder();
+        if (!batchMode) {
+            if (prompt != null) {
+                out.println(prompt);
             }
+            out.print(form.render(null));
         }
-        return value;
+        while (outstanding > 0) {
+            Arrays.fill(answered, false);
+            Arrays.fill(good, false);
+            problems.setLength(0);
+            int unanswered = outstanding;
+            boolean anyRead = false;
+            while (unanswered > 0) {
+                showPrompt(null);
+                // Every line of a form is filed under the form's prompt
+                asked = prompt;
+                String text;
+                try {
+                    text = readResponseView().toString();
+                } catch (NoSuchElementException e) {
+                    if (!anyRead) {
+                        throw e;
+                    }
+                    break;
+                }
+                anyRead = true;
+                if (text.trim().isEmpty()) {
+                    break;
+                }
+                int at = 0;
+                while (at < text.length()) {
+                    int equals = text.indexOf('=', at);
+                    if (equals < 0) {
+                        String stray = text.substring(at).trim();
+                        rejectInBatch("form", prompt, String.format("expected name=value, not \"%s\"", stray));
+                        problems.append(String.format("  \"%s\" is not name=value%n", stray));
+                        break;
+                    }
+                    String name = text.substring(at, equals).trim();
+                    int end = form.valueEnd(text, equals + 1);
+                    String value = text.substring(equals + 1, end).trim();
+                    at = end + 1;
+                    int k = form.indexOf(name);
+                    if (k < 0) {
+                        rejectInBatch("form", prompt, "no field called " + name);
+                        problems.append(String.format("  there is no field called %s%n", name));
+                        continue;
+                    }
+                    if (!wanted[k]) {
+                        // Already filled in a previous round
+                        continue;
+                    }
+                    attempt.reset();
+                    good[k] = form.stage(k).accept(value, attempt);
+                    if (good[k]) {
+                        record.store(k, attempt);
+                    } else {
+                        rejectInBatch(form.stage(k).kind(), prompt, form.getName(k) + ": " + attempt.reason);
+                        problems.append(String.format("  %s: %s%n", form.getName(k), attempt.reason));
+                    }
+                    if (!answered[k]) {
+                        answered[k] = true;
+                        unanswered--;
+                    }
+                }
+            }
+            for (int k = 0; k < size; k++) {
+                if (!wanted[k]) {
+                    continue;
+                }
+                if (good[k]) {
+                    wanted[k] = false;
+                    outstanding--;
+                } else if (!answered[k]) {
+                    rejectInBatch("form", prompt, form.getName(k) + ": no answer given");
+                    problems.append(String.format("  %s: no answer given%n", form.getName(k)));
+                }
+            }
+            if (outstanding > 0) {
+                out.println("Some answers need another look:");
+                out.print(problems);
+                out.print(form.render(wanted));
+            }
+        }
+        settle();
+        return record;
+    }
+
+    /** <strong>Read a line of ints</strong><p>
+     * <code>nextIntArray</code> will prompt the user for a line of values
+     * separated by spaces, commas or semicolons. If any of them is not a valid
+     * int, every problem is listed at once and the whole line is asked for again.
+     * @param prompt - The text to be displayed to the user.
+     * @return The values, in the order they were given. Empty if the line was.
+     */
+    public int[] nextIntArray(String prompt) {
+        return this.nextIntArrayUntil(prompt, null, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /** <strong>Read a line of ints within a range</strong><p>
+     * Like <code>{@link #nextIntArray(String)}</code>, but every value must
+     * also be within the range.
+     * @param prompt - The text to be displayed to the user.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values, in the order they were given. Empty if the line was.
+     */
+    public int[] nextIntArray(String prompt, int rangeLower, int rangeUpper) {
+        return this.nextIntArrayUntil(prompt, null, rangeLower, rangeUpper);
     }
 
+    /** <strong>Read lines of ints until a terminator</strong><p>
+     * <code>nextIntArrayUntil</code> will prompt once, then read lines of
+     * values until a line which is just the terminator, or the end of input.
+     * This suits a pasted column of numbers. If any value is not a valid int,
+     * every problem is listed at once and all the lines are asked for again.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values, such as
+     * <code>""</code> for a blank line. Surrounding whitespace is ignored.
+     * @return The values from every line, in order.
+     */
+    public int[] nextIntArrayUntil(String prompt, String terminator) {
+        return this.nextIntArrayUntil(prompt, terminator, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /** <strong>Read lines of ints within a range until a terminator</strong><p>
+     * Like <code>{@link #nextIntArrayUntil(String, String)}</code>, but every
+     * value must also be within the range.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values, or null to read a
+     * single line.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values from every line, in order.
+     */
+    public int[] nextIntArrayUntil(String prompt, String terminator, int rangeLower, int rangeUpper) {
+        if (arrays == null) {
+            arrays = new ArrayReader(numbers);
+        }
+        arrays.start(IntPrompt.between(rangeLower, rangeUpper));
+        readValues(prompt, terminator);
+        return arrays.toIntArray();
+    }
+
+    /** <strong>Read a line of longs</strong><p>
+     * <code>nextLongArray</code> will prompt the user for a line of values
+     * separated by spaces, commas or semicolons. If any of them is not a valid
+     * long, every problem is listed at once and the whole line is asked for again.
+     * @param prompt - The text to be displayed to the user.
+     * @return The values, in the order they were given. Empty if the line was.
+     */
+    public long[] nextLongArray(String prompt) {
+        return this.nextLongArrayUntil(prompt, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /** <strong>Read a line of longs within a range</strong><p>
+     * Like <code>{@link #nextLongArray(String)}</code>, but every value must
+     * also be within the range.
+     * @param prompt - The text to be displayed to the user.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values, in the order they were given. Empty if the line was.
+     */
+    public long[] nextLongArray(String prompt, long rangeLower, long rangeUpper) {
+        return this.nextLongArrayUntil(prompt, null, rangeLower, rangeUpper);
+    }
+
+    /** <strong>Read lines of longs until a terminator</strong><p>
+     * <code>nextLongArrayUntil</code> will prompt once, then read lines of
+     * values until a line which is just the terminator, or the end of input.
+     * This suits a pasted column of numbers. If any value is not a valid long,
+     * every problem is listed at once and all the lines are asked for again.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values, such as
+     * <code>""</code> for a blank line. Surrounding whitespace is ignored.
+     * @return The values from every line, in order.
+     */
+    public long[] nextLongArrayUntil(String prompt, String terminator) {
+        return this.nextLongArrayUntil(prompt, terminator, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /** <strong>Read lines of longs within a range until a terminator</strong><p>
+     * Like <code>{@link #nextLongArrayUntil(String, String)}</code>, but every
+     * value must also be within the range.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values, or null to read a
+     * single line.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values from every line, in order.
+     */
+    public long[] nextLongArrayUntil(String prompt, String terminator, long rangeLower, long rangeUpper) {
+        if (arrays == null) {
+            arrays = new ArrayReader(numbers);
+        }
+        arrays.start(rangeLower, rangeUpper);
+        readValues(prompt, terminator);
+        return arrays.toLongArray();
+    }
+
+    /** <strong>Read a line of doubles</strong><p>
+     * <code>nextDoubleArray</code> will prompt the user for a line of values
+     * separated by spaces, commas or semicolons. If any of them is not a valid
+     * double, every problem is listed at once and the whole line is asked for again.
+     * @param prompt - The text to be displayed to the user.
+     * @return The values, in the order they were given. Empty if the line was.
+     */
+    public double[] nextDoubleArray(String prompt) {
+        return this.nextDoubleArrayUntil(prompt, null, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /** <strong>Read a line of doubles within a range</strong><p>
+     * Like <code>{@link #nextDoubleArray(String)}</code>, but every value must
+     * also be within the range.
+     * @param prompt - The text to be displayed to the user.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values, in the order they were given. Empty if the line was.
+     */
+    public double[] nextDoubleArray(String prompt, double rangeLower, double rangeUpper) {
+        return this.nextDoubleArrayUntil(prompt, null, rangeLower, rangeUpper);
+    }
+
+    /** <strong>Read lines of doubles until a terminator</strong><p>
+     * <code>nextDoubleArrayUntil</code> will prompt once, then read lines of
+     * values until a line which is just the terminator, or the end of input.
+     * This suits a pasted column of numbers. If any value is not a valid double,
+     * every problem is listed at once and all the lines are asked for again.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values, such as
+     * <code>""</code> for a blank line. Surrounding whitespace is ignored.
+     * @return The values from every line, in order.
+     */
+    public double[] nextDoubleArrayUntil(String prompt, String terminator) {
+        return this.nextDoubleArrayUntil(prompt, terminator, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /** <strong>Read lines of doubles within a range until a terminator</strong><p>
+     * Like <code>{@link #nextDoubleArrayUntil(String, String)}</code>, but every
+     * value must also be within the range.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values, or null to read a
+     * single line.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values from every line, in order.
+     */
+    public double[] nextDoubleArrayUntil(String prompt, String terminator, double rangeLower, double rangeUpper) {
+        if (arrays == null) {
+            arrays = new ArrayReader(numbers);
+        }
+        arrays.start(DoublePrompt.within(rangeLower, rangeUpper));
+        readValues(prompt, terminator);
+        return arrays.toDoubleArray();
+    }
+
+    /** <strong>Stream the rest of the input</strong><p>
+     * <code>lines</code> gives every remaining line of input, without
+     * prompting. The stream reads lazily from the SmartScanner's source, so
+     * don't prompt for anything else while it is in use. When reading from a
+     * file (see <code>{@link #fromFile(Path)}</code>) a parallel stream splits
+     * the file between threads, and otherwise lines are read in order and
+     * handed out in batches. Encounter order is the order of the input.
+     * @return the remaining lines
+     */
+    public Stream<String> lines() {
+        return StreamSupport.stream(new LineStreams.Lines(LineStreams.cursor(input, linesRead)), false);
+    }
+
+    /** <strong>Stream the rest of the input as ints</strong><p>
+     * Every remaining line must be an int, as accepted by
+     * <code>smartForceNextInt</code>. See <code>{@link #lines()}</code> for how
+     * the input is read.
+     * @return the values, one per line
+     * @throws BatchInputException from the stream's terminal operation if a
+     * line is not an int
+     */
+    public IntStream ints() {
+        return this.ints(Integer.MIN_VALUE, Integer.MAX_VALUE, BadLinePolicy.FAIL);
+    }
+
+    /** <strong>Stream the rest of the input as ints within a range</strong><p>
+     * Like <code>{@link #ints()}</code>, checking each value as
+     * <code>smartForceNextInt(String, int, int)</code> does.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @param policy - whether to skip bad lines or fail on them
+     * @return the values, one per line
+     */
+    public IntStream ints(int rangeLower, int rangeUpper, BadLinePolicy policy) {
+        return StreamSupport.intStream(
+            new LineStreams.Ints(LineStreams.cursor(input, linesRead), IntPrompt.between(rangeLower, rangeUpper), policy), false);
+    }
+
+    /** <strong>Stream the rest of the input as longs</strong><p>
+     * Like <code>{@link #ints()}</code>, for longs.
+     * @return the values, one per line
+     */
+    public LongStream longs() {
+        return this.longs(Long.MIN_VALUE, Long.MAX_VALUE, BadLinePolicy.FAIL);
+    }
+
+    /** <strong>Stream the rest of the input as longs within a range</strong><p>
+     * Like <code>{@link #ints(int, int, BadLinePolicy)}</code>, for longs.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @param policy - whether to skip bad lines or fail on them
+     * @return the values, one per line
+     */
+    public LongStream longs(long rangeLower, long rangeUpper, BadLinePolicy policy) {
+        return StreamSupport.longStream(
+            new LineStreams.Longs(LineStreams.cursor(input, linesRead), rangeLower, rangeUpper, policy), false);
+    }
+
+    /** <strong>Stream the rest of the input as doubles</strong><p>
+     * Like <code>{@link #ints()}</code>, for doubles as accepted by
+     * <code>smartForceNextDouble</code>.
+     * @return the values, one per line
+     */
+    public DoubleStream doubles() {
+        return this.doubles(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, BadLinePolicy.FAIL);
+    }
+
+    /** <strong>Stream the rest of the input as doubles within a range</strong><p>
+     * Like <code>{@link #ints(int, int, BadLinePolicy)}</code>, checking each
+     * value as <code>smartForceNextDouble(String, double, double)</code> does.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @param policy - whether to skip bad lines or fail on them
+     * @return the values, one per line
+     */
+    public DoubleStream doubles(double rangeLower, double rangeUpper, BadLinePolicy policy) {
+        return StreamSupport.doubleStream(
+            new LineStreams.Doubles(LineStreams.cursor(input, linesRead),
+                DoublePrompt.within(rangeLower, rangeUpper), policy), false);
+    }
 
     /** <strong>Safely parse user input and cast as a boolean</strong><p>
      * <code>smartForceNextBoolean</code> will prompt the user for input via STDIN and attempt to
@@ -325,36 +965,18 @@ public class SmartScanner {
      * @return The user's provided value as a boolean.
      */
     public boolean smartForceNextBoolean(String prompt) {
-        boolean value = true;
-        boolean validResponse = false;
-        while (!validResponse) {
-            System.out.println(prompt);
-            System.out.print("> ");
-            String response = input.nextLine();
-            // clean up 
-            response = response.trim();
-            response = response.toLowerCase();
-            // This is like this for java 11 compatibility.
-            switch(response) {
-                case "yes": 
-                case "y":
-                case "1":
-                case "true":
-                case "t": value = true;
-                    validResponse = true;
-                    break;
-                case "no":
-                case "n":
-                case "0":
-                case "false":
-                case "f": value = false;
-                    validResponse = true;
-                    break;
-                default: System.out.printf("Sorry, %s is not a valid response. Try again.\n\n", response);
-                    validResponse = false;
+        while (true) {
+            showPrompt(prompt);
+            CharSequence response = readResponseView();
+            int value = booleans.recognize(response);
+            if (value != BooleanRecognizer.UNRECOGNIZED) {
+                settle();
+                return value == BooleanRecognizer.YES;
             }
+            rejectInBatch("boolean", prompt, "not a yes or no answer");
+            out.printf("Sorry, %s is not a valid response. Try again.\n\n", 
+                response.toString().trim().toLowerCase());
         }
-        return value;
     }
 
     /** <strong>Safely parse user input and attempt to cast as a boolean</strong><p>
@@ -368,23 +990,299 @@ public class SmartScanner {
      * @return The user's provided value as a boolean.
      */
     public boolean smartForceNextBoolean(String prompt, boolean defaultValue) {
-        String response = this.smartNextStringSanitized(prompt);
-        // This is like this for java 11 compatibility.
-        switch(response) {
-            case "yes":
-            case "y":
-            case "1":
-            case "true":
-            case "t": return true;
-            case "no":
-            case "n":
-            case "0":
-            case "false":
-            case "f": return false;
-            default: System.out.printf("Sorry, %s is not a valid response. Assuming default value %b.\n\n", 
-                response,
+        showPrompt(prompt);
+        CharSequence response = readResponseView();
+        int value = booleans.recognize(response);
+        if (value == BooleanRecognizer.UNRECOGNIZED) {
+            out.printf("Sorry, %s is not a valid response. Assuming default value %b.\n\n", 
+                response.toString().toLowerCase().trim(),
                 defaultValue);
-                return defaultValue;
         }
+        settle();
+        return value == BooleanRecognizer.UNRECOGNIZED ? defaultValue : value == BooleanRecognizer.YES;
+    }
+
+    /**
+     * Get the words <code>smartForceNextBoolean</code> accepts
+     * @return the recognizer in use, <code>{@link BooleanRecognizer#standard()}</code> by default
+     */
+    public BooleanRecognizer getBooleanRecognizer() {
+        return this.booleans;
+    }
+
+    /**
+     * Set the words <code>smartForceNextBoolean</code> accepts, for example
+     * to add answers in another language.
+     * @param r - the recognizer to use
+     */
+    public void setBooleanRecognizer(BooleanRecognizer r) {
+        this.booleans = r;
+    }
+
+    private void showPrompt(String prompt) {
+        asked = prompt;
+        if (journal != null && prompt != null) {
+            journal.record(SessionJournal.PROMPT, prompt);
+        }
+        if (metrics != null && !prompting) {
+            // Asking again after a rejected answer is counted as a retry instead
+            metrics.prompted();
+            prompting = true;
+            tries = 0;
+            promptStart = System.nanoTime();
+        }
+        if (batchMode || typedAhead != null) {
+            return;
+        }
+        if (prompt != null) {
+            out.println(prompt);
+        }
+        out.print("> ");
+    }
+
+    private String readResponse() {
+        if (typedAhead != null) {
+            String response = typedAhead;
+            typedAhead = null;
+            lastResponse = response;
+            journalAnswer(SessionJournal.ANSWER, response);
+            return response;
+        }
+        String indexed = answerFromIndex();
+        if (indexed != null) {
+            lastResponse = indexed;
+            journalAnswer(SessionJournal.ANSWER, indexed);
+            return indexed;
+        }
+        if (!batchMode && !input.hasBufferedLine()) {
+            out.flush();
+        }
+        String response;
+        try {
+            response = input.nextLine();
+        } catch (NoSuchElementException e) {
+            // Nothing more is coming, so don't leave anything unwritten
+            throw abandonPrompt(e);
+        }
+        lastResponse = response;
+        linesRead++;
+        journalAnswer(SessionJournal.INPUT, response);
+        return response;
+    }
+
+    /**
+     * Take the answer to the prompt being asked from the answer index.
+     * @return the answer, or null to read one from input
+     */
+    private String answerFromIndex() {
+        if (answers == null || asked == null) {
+            return null;
+        }
+        String answer = answers.next(asked);
+        if (answer == null) {
+            if (onMiss == AnswerIndex.OnMiss.FAIL) {
+                throw abandonPrompt(new NoSuchElementException(
+                    "No answer to \"" + asked + "\" in the answer file"));
+            }
+        } else if (!batchMode) {
+            // Show the answer where the user's would have been
+            out.println(answer);
+        }
+        return answer;
+    }
+
+    /**
+     * Read a response as a view into the input buffer, for answers which are
+     * only looked at before the next read.
+     */
+    private CharSequence readResponseView() {
+        if (typedAhead != null) {
+            lastResponse = typedAhead;
+            typedAhead = null;
+            journalAnswer(SessionJournal.ANSWER, lastResponse);
+            return lastResponse;
+        }
+        String indexed = answerFromIndex();
+        if (indexed != null) {
+            lastResponse = indexed;
+            journalAnswer(SessionJournal.ANSWER, indexed);
+            return indexed;
+        }
+        if (!batchMode && !input.hasBufferedLine()) {
+            out.flush();
+        }
+        try {
+            lastResponse = input.nextLineView();
+        } catch (NoSuchElementException e) {
+            throw abandonPrompt(e);
+        }
+        linesRead++;
+        journalAnswer(SessionJournal.INPUT, lastResponse);
+        return lastResponse;
+    }
+
+    private void journalAnswer(int type, CharSequence answer) {
+        if (journal != null) {
+            journal.record(type, answer);
+        }
+    }
+
+    /**
+     * Write out whatever was printed after the last read, so that it can't be
+     * overtaken by output the caller writes to STDOUT itself.
+     */
+    private void settle() {
+        if (journal != null) {
+            journal.record(SessionJournal.ACCEPTED, null);
+        }
+        if (prompting) {
+            prompting = false;
+            if (metrics != null) {
+                metrics.answered(System.nanoTime() - promptStart, tries);
+            }
+        }
+        if (!batchMode && out.pending() > 0) {
+            out.flush();
+        }
+    }
+
+    /**
+     * The one prompt loop every kind of prompt goes through.
+     */
+    private void askUntilAccepted(String prompt, PromptStage p) {
+        while (true) {
+            showPrompt(prompt);
+            CharSequence response = readResponseView();
+            if (typeahead && p.takesOneWord()) {
+                response = firstWord(response);
+            }
+            attempt.reset();
+            if (p.accept(response, attempt)) {
+                settle();
+                return;
+            }
+            // Whatever was typed after a bad answer was meant for prompts which won't come
+            typedAhead = null;
+            rejectInBatch(p.kind(), prompt, attempt.reason);
+            out.print(attempt.advice);
+        }
+    }
+
+    /**
+     * Split the first word off an answer, keeping the rest for the next prompt.
+     */
+    private CharSequence firstWord(CharSequence response) {
+        int length = response.length();
+        int start = 0;
+        while (start < length && response.charAt(start) <= ' ') {
+            start++;
+        }
+        int end = start;
+        while (end < length && response.charAt(end) > ' ') {
+            end++;
+        }
+        int rest = end;
+        while (rest < length && response.charAt(rest) <= ' ') {
+            rest++;
+        }
+        if (rest == length) {
+            // Only one word, the usual case
+            return response;
+        }
+        String line = response.toString();
+        typedAhead = line.substring(rest);
+        lastResponse = line.substring(start, end);
+        return lastResponse;
+    }
+
+    /**
+     * Read one line, or lines up to the terminator, into the array reader,
+     * asking again until every value is valid.
+     */
+    private void readValues(String prompt, String terminator) {
+        while (true) {
+            arrays.clear();
+            showPrompt(prompt);
+            if (terminator == null) {
+                arrays.add(readResponseView(), linesRead);
+            } else {
+                boolean anyRead = false;
+                while (true) {
+                    CharSequence line;
+                    try {
+                        line = readResponseView();
+                    } catch (NoSuchElementException e) {
+                        if (!anyRead) {
+                            throw e;
+                        }
+                        break;
+                    }
+                    anyRead = true;
+                    if (isTerminator(line, terminator)) {
+                        break;
+                    }
+                    arrays.add(line, linesRead);
+                }
+            }
+            if (!arrays.failed()) {
+                settle();
+                return;
+            }
+            if (metrics != null) {
+                metrics.rejected("array");
+                tries++;
+            }
+            if (batchMode) {
+                throw abandonPrompt(new BatchInputException(prompt, arrays.firstProblem(),
+                    arrays.report().trim(), arrays.firstProblemLine()));
+            }
+            out.print(arrays.report());
+            out.println("Try again.");
+            out.println();
+        }
+    }
+
+    private static boolean isTerminator(CharSequence line, String terminator) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end - start != terminator.length()) {
+            return false;
+        }
+        for (int k = 0; k < terminator.length(); k++) {
+            if (line.charAt(start + k) != terminator.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rejectInBatch(String kind, String prompt, String reason) {
+        if (journal != null) {
+            journal.record(SessionJournal.REJECTED, reason);
+        }
+        if (metrics != null) {
+            metrics.rejected(kind);
+            tries++;
+        }
+        if (batchMode) {
+            throw abandonPrompt(new BatchInputException(prompt, lastResponse.toString(), reason, linesRead));
+        }
+    }
+
+    /**
+     * Give up on the prompt being asked, so the next one starts afresh, and
+     * write out anything held back before the exception is thrown.
+     * @return the exception, to be thrown
+     */
+    private RuntimeException abandonPrompt(RuntimeException e) {
+        out.flush();
+        prompting = false;
+        return e;
     }
 }
@@ -1,18 +1,146 @@
 package io.whits.javadev.simple;
 
+import java.io.InputStream;
+import java.util.Locale;
 import java.util.Scanner;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 /** <p><strong>A static instance of <code>{@link io.whits.javadev.simple.SmartScanner SmartScanner}</code>.</strong></p>
  * <p>This is likely bad practice, and it feels like a hack, but nobody has
  * told me otherwise so I'm gonna roll with it.</p>
+ * <p>Every static method forwards to a SmartScanner. By default that is one
+ * scanner shared by the whole JVM, reading STDIN. It is created the first
+ * time it is needed, so <code>System.setIn</code> before then is honoured;
+ * to redirect afterwards, use <code>{@link #setShared(SmartScanner)}</code>.
+ * A thread can open its own
+ * {@link Session} instead, after which the static methods called on that
+ * thread use the session's input and output. This lets a server run one
+ * <code>{@link CommandLineMenu}</code> per connection, each on its own thread,
+ * without the sessions seeing each other's input. Looking up the session is a
+ * <code>ThreadLocal</code> read, so no locking is involved.</p>
  * @author Whit Huntley
- * @version 1.0.0
+ * @version 1.1.0
  * @since 2022-06-22
 */
 public class StaticSmartScanner {
-    private static Scanner input;
+    // Created on first use, so System.in can be replaced before then
+    private static volatile SmartScanner shared;
+    private static final ThreadLocal<Session> session = new ThreadLocal<Session>();
+
+    /** <strong>A SmartScanner bound to the thread which opened it.</strong><p>
+     * Sessions nest: closing one restores whichever session (or the shared
+     * scanner) was in use when it was opened. Close it on the same thread,
+     * ideally with try-with-resources.
+     */
+    public static final class Session implements AutoCloseable {
+        private final SmartScanner scanner;
+        private final Session previous;
+        private final Thread owner;
+
+        private Session(SmartScanner scanner, Session previous) {
+            this.scanner = scanner;
+            this.previous = previous;
+            this.owner = Thread.currentThread();
+        }
+
+        /**
+         * Get the scanner the static methods use while this session is open
+         * @return the session's SmartScanner
+         */
+        public SmartScanner getSmartScanner() {
+            return this.scanner;
+        }
+
+        /**
+         * Flush the session's output and unbind it from its thread.
+         */
+        public void close() {
+            if (Thread.currentThread() != this.owner) {
+                throw new IllegalStateException("A session must be closed by the thread which opened it");
+            }
+            if (session.get() != this) {
+                throw new IllegalStateException("Sessions must be closed in the reverse order they were opened");
+            }
+            this.scanner.flush();
+            if (this.previous == null) {
+                session.remove();
+            } else {
+                session.set(this.previous);
+            }
+        }
+    }
+
+    /**
+     * Bind a SmartScanner to the calling thread until the returned session is closed.
+     * @param s - the scanner the static methods should use on this thread
+     * @return the open session
+     */
+    public static Session openSession(SmartScanner s) {
+        Session opened = new Session(s, session.get());
+        session.set(opened);
+        return opened;
+    }
+
+    /**
+     * Bind new input and output to the calling thread until the returned
+     * session is closed.
+     * @param in - the stream user input is read from
+     * @param out - the sink prompts and messages are written to
+     * @return the open session
+     */
+    public static Session openSession(InputStream in, OutputSink out) {
+        SmartScanner s = new SmartScanner(in);
+        s.setOutput(out);
+        return openSession(s);
+    }
+
+    /**
+     * Run some code with a SmartScanner bound to the calling thread.
+     * @param s - the scanner the static methods should use
+     * @param r - the code to run, such as a <code>CommandLineMenu</code>
+     */
+    public static void runInSession(SmartScanner s, Runnable r) {
+        Session opened = openSession(s);
+        try {
+            r.run();
+        } finally {
+            opened.close();
+        }
+    }
+
+    /**
+     * Get the SmartScanner the static methods use on the calling thread
+     * @return the current session's scanner, or the shared one
+     */
+    public static SmartScanner current() {
+        Session s = session.get();
+        if (s != null) {
+            return s.scanner;
+        }
+        SmartScanner sh = shared;
+        return sh != null ? sh : sharedScanner();
+    }
+
+    private static synchronized SmartScanner sharedScanner() {
+        if (shared == null) {
+            shared = new SmartScanner();
+        }
+        return shared;
+    }
+
+    /**
+     * Replace the SmartScanner used by threads without a session of their own.
+     * This is how to redirect input once the shared scanner has been used.
+     * @param s - the new shared scanner, or null to have a new one created
+     * over whatever <code>System.in</code> is when it is next needed
+     */
+    public static void setShared(SmartScanner s) {
+        shared = s;
+    }
 
     /**
      * Construct a new SmartScanner using an existing java.util.Scanner which
@@ -20,17 +148,182 @@ public class StaticSmartScanner {
      * @param s - The existing scanner to be used for the SmartScanner.
      */
     public static void setScanner(Scanner s) {
-        input = s;
+        current().setScanner(s);
     }
 
     /**
-     * Get the scanner currently used by SmartScanner
-     * @return the scanner used by the instance of the SmartScanner
+     * Get the scanner currently used by SmartScanner. If the input is being
+     * read through a <code>{@link ByteLineReader}</code>, a Scanner is created
+     * over the remaining input and used from then on.
+     * @return the scanner used by the instance of the SmartScanner, or null
+     * if the input source cannot be handed to a scanner.
      */
     public static Scanner getScanner() {
-        return input;
+        return current().getScanner();
+    }
+
+    /**
+     * Read input from a stream through a <code>{@link ByteLineReader}</code>.
+     * @param in - The stream to read user input from.
+     */
+    public static void setInput(InputStream in) {
+        current().setSource(new ByteLineReader(in));
+    }
+
+    /**
+     * Set the line source to be used by the StaticSmartScanner
+     * @param src the source user input is read from
+     */
+    public static void setSource(LineSource src) {
+        current().setSource(src);
+    }
+
+    /**
+     * Get the line source currently used by the StaticSmartScanner
+     * @return the source user input is read from
+     */
+    public static LineSource getSource() {
+        return current().getSource();
+    }
+
+    /**
+     * Get the sink prompts and messages are written to
+     * @return the output sink in use
+     */
+    public static OutputSink getOutput() {
+        return current().getOutput();
+    }
+
+    /**
+     * Set the sink prompts and messages are written to. Anything still
+     * buffered in the old sink is written out first.
+     * @param sink - the output sink to use
+     */
+    public static void setOutput(OutputSink sink) {
+        current().setOutput(sink);
+    }
+
+    /**
+     * Turn batch mode on or off, see <code>{@link SmartScanner#setBatchMode(boolean)}</code>.
+     * @param batch - true to run without a user at the keyboard
+     */
+    public static void setBatchMode(boolean batch) {
+        current().setBatchMode(batch);
+    }
+
+    /**
+     * Answer prompts from an index before reading any input, see
+     * <code>{@link SmartScanner#setAnswers(AnswerIndex, AnswerIndex.OnMiss)}</code>.
+     * @param index - the answers, or null to read everything from input again
+     * @param onMiss - what to do when the index has no answer to a prompt
+     */
+    public static void setAnswers(AnswerIndex index, AnswerIndex.OnMiss onMiss) {
+        current().setAnswers(index, onMiss);
+    }
+
+    /**
+     * Get the answers prompts are looked up in
+     * @return the index, or null if there is none
+     */
+    public static AnswerIndex getAnswers() {
+        return current().getAnswers();
+    }
+
+    /**
+     * Record everything asked and answered from now on
+     * @param j - the journal to record to, or null to stop recording
+     */
+    public static void setJournal(SessionJournal j) {
+        current().setJournal(j);
+    }
+
+    /**
+     * Get the journal the session is recorded to
+     * @return the journal, or null if the session isn't recorded
+     */
+    public static SessionJournal getJournal() {
+        return current().getJournal();
+    }
+
+    /**
+     * Count prompts, rejected answers and menu choices from now on
+     * @param m - where to count, which can be shared with other scanners,
+     * or null to stop counting
+     */
+    public static void setMetrics(Metrics m) {
+        current().setMetrics(m);
+    }
+
+    /**
+     * Get where prompts and menu choices are counted
+     * @return the metrics, or null if nothing is counted
+     */
+    public static Metrics getMetrics() {
+        return current().getMetrics();
+    }
+
+    /**
+     * Turn typeahead on or off, see <code>{@link SmartScanner#setTypeahead(boolean)}</code>.
+     * @param on - true to keep extra words for the next prompts
+     */
+    public static void setTypeahead(boolean on) {
+        current().setTypeahead(on);
+    }
+
+    /**
+     * Check whether typeahead is on
+     * @return true if extra words are kept for the next prompts
+     */
+    public static boolean isTypeahead() {
+        return current().isTypeahead();
+    }
+
+    /**
+     * Check whether the next prompt will be answered by words already typed
+     * @return true if the next prompt will not be shown
+     */
+    public static boolean hasTypeahead() {
+        return current().hasTypeahead();
+    }
+
+    /**
+     * Turn on batch mode if STDIN is not attached to a console, such as when
+     * input is piped in or redirected from a file.
+     */
+    public static void detectBatchMode() {
+        current().detectBatchMode();
+    }
+
+    /**
+     * Check whether the StaticSmartScanner is in batch mode
+     * @return true if prompts are skipped and invalid answers are fatal
+     */
+    public static boolean isBatchMode() {
+        return current().isBatchMode();
+    }
+
+    /**
+     * Get the words <code>smartForceNextBoolean</code> accepts
+     * @return the recognizer in use
+     */
+    public static BooleanRecognizer getBooleanRecognizer() {
+        return current().getBooleanRecognizer();
+    }
+
+    /**
+     * Set the words <code>smartForceNextBoolean</code> accepts
+     * @param r - the recognizer to use
+     */
+    public static void setBooleanRecognizer(BooleanRecognizer r) {
+        current().setBooleanRecognizer(r);
     }
 
+    /**
+     * Write out anything held back by batch mode.
+     */
+    public static void flush() {
+        current().flush();
+    }
 
     /** <strong>Get user input</strong>
      * <code>nextLine</code> is just a call to the default scanner nextline
@@ -39,10 +332,7 @@ public class StaticSmartScanner {
      * @return The now cleaner input
      */
     public static String nextLine(String prompt) {
-        System.out.println(prompt);
-        System.out.print("> ");
-        String response = input.nextLine();
-        return response;
+        return current().nextLine(prompt);
     }
 
     /** <strong>Get user input</strong>
@@ -52,10 +342,7 @@ public class StaticSmartScanner {
      * @return The now cleaner input
      */
     public static String nextLine() {
-        System.err.println("Bad programmer didn't update methods (nextLine() rather than nextLine(String) used).");
-        System.out.print("> ");
-        String response = input.nextLine();
-        return response;
+        return current().nextLine();
     }
 
     /** <strong>Get user input and sanitize it</strong>
@@ -65,12 +352,33 @@ public class StaticSmartScanner {
      * @return The now cleaner input
      */
     public static String smartNextStringSanitized(String prompt) {
-        System.out.println(prompt);
-        System.out.print("> ");
-        String response = input.nextLine();
-        response = response.toLowerCase();
-        response = response.trim();
-        return response;
+        return current().smartNextStringSanitized(prompt);
+    }
+
+    /** <strong>Get user input and sanitize it in a given locale</strong>
+     * Works as <code>smartNextStringSanitized(String)</code>, lowercasing in
+     * <code>locale</code> instead of the default locale. Pass
+     * <code>Locale.ROOT</code> for the same result on every machine, which
+     * also keeps an <code>I</code> typed under a Turkish locale an <code>i</code>.
+     * @param prompt - The prompt to be provided to the user
+     * @param locale - The locale to lowercase in
+     * @return The now cleaner input
+     */
+    public static String smartNextStringSanitized(String prompt, Locale locale) {
+        return current().smartNextStringSanitized(prompt, locale);
+    }
+
+    /** <strong>Get user input and sanitize it without keeping it</strong>
+     * Works as <code>smartNextStringSanitized(String, Locale)</code>, but an
+     * ASCII answer is handed out as a view over a buffer which is reused, so
+     * nothing at all is allocated. The view is only valid until the next
+     * read; call <code>toString()</code> on it to keep it.
+     * @param prompt - The prompt to be provided to the user
+     * @param locale - The locale to lowercase in
+     * @return The now cleaner input
+     */
+    public static CharSequence smartNextStringSanitizedView(String prompt, Locale locale) {
+        return current().smartNextStringSanitizedView(prompt, locale);
     }
 
     /** <strong>Get user input matching a regular expression</strong>
@@ -82,15 +390,27 @@ public class StaticSmartScanner {
      * @return the user's validated input
      */
     public static String smartForceNextStringMatching(String prompt, Pattern e) {
-        String response = "";
-        while (true) {
-            response = nextLine(prompt);
-            Matcher m = e.matcher(response);
-            if (m.find()) {
-                return response;
-            }
-            System.out.println("That was not a valid response. Please try again.");
-        }
+        return current().smartForceNextStringMatching(prompt, e);
+    }
+
+    /** <strong>Get user input matching a regular expression</strong>
+     * The regex is compiled once and kept in <code>{@link PatternCache#shared()}</code>.
+     * @param prompt - the prompt to be shown to the user
+     * @param regex - the regex to validate against
+     * @return the user's validated input
+     */
+    public static String smartForceNextStringMatching(String prompt, String regex) {
+        return current().smartForceNextStringMatching(prompt, regex);
+    }
+
+    /** <strong>Get user input matching one of several regular expressions</strong>
+     * See <code>{@link SmartScanner#smartForceNextStringMatchingAny(String, PatternSet)}</code>.
+     * @param prompt - the prompt to be shown to the user
+     * @param patterns - the regexes to validate against
+     * @return the user's validated input, and which pattern it matched
+     */
+    public static PatternSet.Match smartForceNextStringMatchingAny(String prompt, PatternSet patterns) {
+        return current().smartForceNextStringMatchingAny(prompt, patterns);
     }
 
     /** <strong>Get the next valid integer</strong><p>
@@ -100,8 +420,7 @@ public class StaticSmartScanner {
      * @return The user's provided value as an integer.
      */
     public static int nextInt() {
-        System.err.println("Bad programmer didn't update methods (nextInt rather than smartForceNextInt used).");
-        return smartForceNextInt("");
+        return current().nextInt();
     }
 
     /** <strong>Safely parse user input and cast as an int</strong><p>
@@ -113,23 +432,7 @@ public class StaticSmartScanner {
      * @return The user's provided value as an integer.
      */
     public static int smartForceNextInt(String prompt) {
-        int value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            System.out.println(prompt);
-            System.out.print("> ");
-            try {
-                value = Integer.parseInt(input.nextLine());
-                validResponse = true;
-            } catch (Exception e) {
-                System.out.println("That is not a valid value. Try again.");
-                System.out.println("Detailed error below:");
-                System.out.println(e);
-                System.out.println();
-                validResponse = false;
-            }
-        }
-        return value;
+        return current().smartForceNextInt(prompt);
     }
 
     /** <strong>Safely parse user input and cast as an int within a range</strong><p>
@@ -142,22 +445,7 @@ public class StaticSmartScanner {
      * @return The user's provided value as an integer.
      */
     public static int smartForceNextInt(String prompt, int rangeLower) {
-        int value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            // First get a healthy int value.
-            value = smartForceNextInt(prompt);
-
-            // Now check if within range
-            if (value >= rangeLower) {
-                validResponse = true;
-            } else {
-                System.out.printf("Please enter a value greater than %,d\n",
-                    rangeLower);
-                validResponse = false;
-            }
-        }
-        return value;
+        return current().smartForceNextInt(prompt, rangeLower);
     }
 
     /** <strong>Safely parse user input and cast as an int within a range</strong><p>
@@ -171,24 +459,9 @@ public class StaticSmartScanner {
      * @return The user's provided value as an int.
      */
     public static int smartForceNextInt(String prompt, int rangeLower, int rangeUpper) {
-        int value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            value = smartForceNextInt(prompt);
-            // Now check if within range
-            if (value >= rangeLower && value <= rangeUpper) {
-                validResponse = true;
-            } else {
-                System.out.printf("Please enter a value between %,d and %,d.\n",
-                    rangeLower,
-                    rangeUpper);
-                validResponse = false;
-            }
-        }
-        return value;
+        return current().smartForceNextInt(prompt, rangeLower, rangeUpper);
     }
 
-
     /** <strong>Get the next valid double</strong><p>
      * <code>nextInt</code> will continually loop until the user provides a 
      * valid double value. Do not use this method if it can be avoided, it
@@ -196,11 +469,9 @@ public class StaticSmartScanner {
      * @return The user's provided value as an integer.
      */
     public static int nextDouble() {
-        System.err.println("Bad programmer didn't update methods (nextInt rather than smartForceNextDouble used).");
-        return smartForceNextInt("");
+        return current().nextDouble();
     }
 
-
     /** <strong>Safely parse user input and cast as a double</strong><p>
      * <code>smartForceNextDouble</code> will prompt the user for input via STDIN and attempt to
      * cast the resulting value as a double. If the user fails to enter a valid
@@ -210,23 +481,7 @@ public class StaticSmartScanner {
      * @return The user's provided value as a double.
      */
     public static double smartForceNextDouble(String prompt) {
-        double value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            System.out.println(prompt);
-            System.out.print("> ");
-            try {
-                value = Double.parseDouble(input.nextLine());
-                validResponse = true;
-            } catch (Exception e) {
-                System.out.println("That is not a valid value. Try again.");
-                System.out.println("Detailed error below:");
-                System.out.println(e);
-                System.out.println();
-                validResponse = false;
-            }
-        }
-        return value;
+        return current().smartForceNextDouble(prompt);
     }
 
     /** <strong>Safely parse user input and cast as a double within a range</strong><p>
@@ -239,21 +494,7 @@ public class StaticSmartScanner {
      * @return The user's provided value as a double.
      */
     public static double smartForceNextDouble(String prompt, double rangeLower) {
-        double value = 0;
-        boolean validResponse = false;
-        // Now check if within range
-        while (!validResponse) {
-            // First get a healthy double value.
-            value = smartForceNextDouble(prompt);
-            if (value >= rangeLower) {
-                validResponse = true;
-            } else {
-                System.out.printf("Please enter a value greater than %,f.\n",
-                    rangeLower);
-                validResponse = false;
-            }
-        }
-        return value;
+        return current().smartForceNextDouble(prompt, rangeLower);
     }
 
     /** <strong>Safely parse user input and cast as a double within a range</strong><p>
@@ -267,23 +508,224 @@ public class StaticSmartScanner {
      * @return The user's provided value as a double.
      */
     public static double smartForceNextDouble(String prompt, double rangeLower, double rangeUpper) {
-        double value = 0;
-        boolean validResponse = false;
-        while (!validResponse) {
-            value = smartForceNextDouble(prompt);
-            // Now check if within range
-            if (value >= rangeLower && value <= rangeUpper) {
-                validResponse = true;
-            } else {
-                System.out.printf("Please enter a value between %,f and %,f.\n",
-                    rangeLower,
-                    rangeUpper);
-                validResponse = false;
-            }
-        }
-        return value;
+        return current().smartForceNextDouble(prompt, rangeLower, rangeUpper);
+    }
+
+    /** <strong>Ask for a value until a valid one is given</strong><p>
+     * <code>ask</code> shows the prompt, hands the answer to <code>p</code>,
+     * and tells the user what was wrong and asks again until <code>p</code>
+     * accepts it. In batch mode a rejected answer throws a
+     * <code>{@link BatchInputException}</code> instead.
+     * @param <T> the type of value asked for
+     * @param prompt - The text to be displayed to the user.
+     * @param p - how to parse and check the answer
+     * @return The user's provided value.
+     */
+    public static <T> T ask(String prompt, Prompt<T> p) {
+        return current().ask(prompt, p);
+    }
+
+    /** <strong>Ask for an int until a valid one is given</strong><p>
+     * Works as <code>{@link #ask(String, Prompt)}</code> without boxing.
+     * @param prompt - The text to be displayed to the user.
+     * @param p - how to check the answer
+     * @return The user's provided value as an int.
+     */
+    public static int ask(String prompt, IntPrompt p) {
+        return current().ask(prompt, p);
+    }
+
+    /** <strong>Ask for a double until a valid one is given</strong><p>
+     * Works as <code>{@link #ask(String, Prompt)}</code> without boxing.
+     * @param prompt - The text to be displayed to the user.
+     * @param p - how to check the answer
+     * @return The user's provided value as a double.
+     */
+    public static double ask(String prompt, DoublePrompt p) {
+        return current().ask(prompt, p);
+    }
+
+    /** <strong>Fill in a form</strong><p>
+     * <code>fill</code> shows every field of the form once, then reads
+     * <code>name=value</code> answers until each field has one or a blank
+     * line is entered. Fields whose answers were wrong or missing are listed
+     * with what was wrong and asked for again; the rest are kept. In batch
+     * mode the first wrong or missing answer throws a
+     * <code>{@link BatchInputException}</code> instead.
+     * @param prompt - The text to be displayed to the user.
+     * @param form - the fields to fill in
+     * @return the answers
+     */
+    public static Form.Record fill(String prompt, Form form) {
+        return current().fill(prompt, form);
+    }
+
+    /** <strong>Read a line of ints</strong><p>
+     * See <code>{@link SmartScanner#nextIntArray(String)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @return The values, in the order they were given.
+     */
+    public static int[] nextIntArray(String prompt) {
+        return current().nextIntArray(prompt);
+    }
+
+    /** <strong>Read a line of ints within a range</strong><p>
+     * See <code>{@link SmartScanner#nextIntArray(String, int, int)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values, in the order they were given.
+     */
+    public static int[] nextIntArray(String prompt, int rangeLower, int rangeUpper) {
+        return current().nextIntArray(prompt, rangeLower, rangeUpper);
     }
 
+    /** <strong>Read lines of ints until a terminator</strong><p>
+     * See <code>{@link SmartScanner#nextIntArrayUntil(String, String)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values
+     * @return The values from every line, in order.
+     */
+    public static int[] nextIntArrayUntil(String prompt, String terminator) {
+        return current().nextIntArrayUntil(prompt, terminator);
+    }
+
+    /** <strong>Read lines of ints within a range until a terminator</strong><p>
+     * See <code>{@link SmartScanner#nextIntArrayUntil(String, String, int, int)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values, or null for one line
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values from every line, in order.
+     */
+    public static int[] nextIntArrayUntil(String prompt, String terminator, int rangeLower, int rangeUpper) {
+        return current().nextIntArrayUntil(prompt, terminator, rangeLower, rangeUpper);
+    }
+
+    /** <strong>Read a line of longs</strong><p>
+     * See <code>{@link SmartScanner#nextLongArray(String)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @return The values, in the order they were given.
+     */
+    public static long[] nextLongArray(String prompt) {
+        return current().nextLongArray(prompt);
+    }
+
+    /** <strong>Read a line of longs within a range</strong><p>
+     * See <code>{@link SmartScanner#nextLongArray(String, long, long)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values, in the order they were given.
+     */
+    public static long[] nextLongArray(String prompt, long rangeLower, long rangeUpper) {
+        return current().nextLongArray(prompt, rangeLower, rangeUpper);
+    }
+
+    /** <strong>Read lines of longs until a terminator</strong><p>
+     * See <code>{@link SmartScanner#nextLongArrayUntil(String, String)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values
+     * @return The values from every line, in order.
+     */
+    public static long[] nextLongArrayUntil(String prompt, String terminator) {
+        return current().nextLongArrayUntil(prompt, terminator);
+    }
+
+    /** <strong>Read lines of longs within a range until a terminator</strong><p>
+     * See <code>{@link SmartScanner#nextLongArrayUntil(String, String, long, long)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values, or null for one line
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values from every line, in order.
+     */
+    public static long[] nextLongArrayUntil(String prompt, String terminator, long rangeLower, long rangeUpper) {
+        return current().nextLongArrayUntil(prompt, terminator, rangeLower, rangeUpper);
+    }
+
+    /** <strong>Read a line of doubles</strong><p>
+     * See <code>{@link SmartScanner#nextDoubleArray(String)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @return The values, in the order they were given.
+     */
+    public static double[] nextDoubleArray(String prompt) {
+        return current().nextDoubleArray(prompt);
+    }
+
+    /** <strong>Read a line of doubles within a range</strong><p>
+     * See <code>{@link SmartScanner#nextDoubleArray(String, double, double)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values, in the order they were given.
+     */
+    public static double[] nextDoubleArray(String prompt, double rangeLower, double rangeUpper) {
+        return current().nextDoubleArray(prompt, rangeLower, rangeUpper);
+    }
+
+    /** <strong>Read lines of doubles until a terminator</strong><p>
+     * See <code>{@link SmartScanner#nextDoubleArrayUntil(String, String)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values
+     * @return The values from every line, in order.
+     */
+    public static double[] nextDoubleArrayUntil(String prompt, String terminator) {
+        return current().nextDoubleArrayUntil(prompt, terminator);
+    }
+
+    /** <strong>Read lines of doubles within a range until a terminator</strong><p>
+     * See <code>{@link SmartScanner#nextDoubleArrayUntil(String, String, double, double)}</code>.
+     * @param prompt - The text to be displayed to the user.
+     * @param terminator - The line which ends the values, or null for one line
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @return The values from every line, in order.
+     */
+    public static double[] nextDoubleArrayUntil(String prompt, String terminator, double rangeLower, double rangeUpper) {
+        return current().nextDoubleArrayUntil(prompt, terminator, rangeLower, rangeUpper);
+    }
+
+    /** <strong>Stream the rest of the input</strong><p>
+     * See <code>{@link SmartScanner#lines()}</code>.
+     * @return the remaining lines
+     */
+    public static Stream<String> lines() {
+        return current().lines();
+    }
+
+    /** <strong>Stream the rest of the input as ints</strong><p>
+     * See <code>{@link SmartScanner#ints(int, int, BadLinePolicy)}</code>.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @param policy - whether to skip bad lines or fail on them
+     * @return the values, one per line
+     */
+    public static IntStream ints(int rangeLower, int rangeUpper, BadLinePolicy policy) {
+        return current().ints(rangeLower, rangeUpper, policy);
+    }
+
+    /** <strong>Stream the rest of the input as longs</strong><p>
+     * See <code>{@link SmartScanner#longs(long, long, BadLinePolicy)}</code>.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @param policy - whether to skip bad lines or fail on them
+     * @return the values, one per line
+     */
+    public static LongStream longs(long rangeLower, long rangeUpper, BadLinePolicy policy) {
+        return current().longs(rangeLower, rangeUpper, policy);
+    }
+
+    /** <strong>Stream the rest of the input as doubles</strong><p>
+     * See <code>{@link SmartScanner#doubles(double, double, BadLinePolicy)}</code>.
+     * @param rangeLower - The lower limit of allowed values (inclusive)
+     * @param rangeUpper - The upper limit of allowed values (inclusive)
+     * @param policy - whether to skip bad lines or fail on them
+     * @return the values, one per line
+     */
+    public static DoubleStream doubles(double rangeLower, double rangeUpper, BadLinePolicy policy) {
+        return current().doubles(rangeLower, rangeUpper, policy);
+    }
 
     /** <strong>Safely parse user input and cast as a boolean</strong><p>
      * <code>smartForceNextBoolean</code> will prompt the user for input via STDIN and attempt to
@@ -294,36 +736,7 @@ public class StaticSmartScanner {
      * @return The user's provided value as a boolean.
      */
     public static boolean smartForceNextBoolean(String prompt) {
-        boolean value = true;
-        boolean validResponse = false;
-        while (!validResponse) {
-            System.out.println(prompt);
-            System.out.print("> ");
-            String response = input.nextLine();
-            // clean up 
-            response = response.trim();
-            response = response.toLowerCase();
-            // This is like this for java 11 compatibility.
-            switch(response) {
-                case "yes": 
-                case "y":
-                case "1":
-                case "true":
-                case "t": value = true;
-                    validResponse = true;
-                    break;
-                case "no":
-                case "n":
-                case "0":
-                case "false":
-                case "f": value = false;
-                    validResponse = true;
-                    break;
-                default: System.out.printf("Sorry, %s is not a valid response. Try again.\n\n", response);
-                    validResponse = false;
-            }
-        }
-        return value;
+        return current().smartForceNextBoolean(prompt);
     }
 
     /** <strong>Safely parse user input and attempt to cast as a boolean</strong><p>
@@ -337,23 +750,6 @@ public class StaticSmartScanner {
      * @return The user's provided value as a boolean.
      */
     public static boolean smartForceNextBoolean(String prompt, boolean defaultValue) {
-        String response = smartNextStringSanitized(prompt);
-        // This is like this for java 11 compatibility.
-        switch(response) {
-            case "yes":
-            case "y":
-            case "1":
-            case "true":
-            case "t": return true;
-            case "no":
-            case "n":
-            case "0":
-            case "false":
-            case "f": return false;
-            default: System.out.printf("Sorry, %s is not a valid response. Assuming default value %b.\n\n", 
-                response,
-                defaultValue);
-                return defaultValue;
-        }
+        return current().smartForceNextBoolean(prompt, defaultValue);
     }
 }
@@ -0,0 +1,64 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for validating answer files in parallel.
+ */
+public class AnswerFileValidatorTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reportsBadLinesInFileOrder() throws IOException
+    {
+        // Records of: menu choice, amount, confirmation, name
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < 50000; k++) {
+            sb.append(k == 7000 ? "9" : "2").append('\n');
+            sb.append(k == 31000 ? "lots" : "12.5").append("\r\n");
+            sb.append(k == 123 ? "maybe" : "yes").append('\n');
+            sb.append("name").append(k).append('\n');
+        }
+        File f = this.folder.newFile();
+        Files.write(f.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+        Path p = f.toPath();
+
+        AnswerFileValidator v = new AnswerFileValidator(
+            LineRule.intBetween(0, 3),
+            LineRule.doubleBetween(0, 100),
+            LineRule.yesOrNo(BooleanRecognizer.standard()),
+            LineRule.matching(Pattern.compile("^name\\d+$")));
+        // Small chunks so the file is cut up many times
+        v.setChunkSize(4096);
+        AnswerFileValidator.Report r = v.validate(p, StandardCharsets.UTF_8);
+        assertEquals(200000, r.getLines());
+        assertEquals(3, r.getProblemCount());
+        List<AnswerFileValidator.Problem> problems = r.getProblems();
+        assertEquals(123 * 4 + 3, problems.get(0).getLineNumber());
+        assertEquals("not a yes or no answer", problems.get(0).getReason());
+        assertEquals(7000 * 4 + 1, problems.get(1).getLineNumber());
+        assertEquals("must be between 0 and 3", problems.get(1).getReason());
+        assertEquals(31000 * 4 + 2, problems.get(2).getLineNumber());
+        assertEquals("lots", problems.get(2).getInput());
+        assertTrue(r.toString(), r.toString().startsWith("200,000 lines checked, 3 not valid"));
+
+        AnswerFileValidator one = new AnswerFileValidator(LineRule.anyLine());
+        one.setChunkSize(4096);
+        assertTrue(one.validate(p).isValid());
+    }
+}
@@ -0,0 +1,80 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for answering prompts by name.
+ */
+public class AnswerIndexTest
+{
+    private static SmartScanner scannerFor(String input) {
+        SmartScanner s = new SmartScanner(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        s.setBatchMode(true);
+        return s;
+    }
+
+    @Test
+    public void answersFollowThePromptNotThePosition()
+    {
+        AnswerIndex index = AnswerIndex.parse("# Answers for a nightly run\n"
+            + "Pick = 2\n"
+            + "Amount =  12.5\n"
+            + "Pick = 3\n"
+            + AnswerIndex.keyOf("Is 1 + 1 = 2?") + " = yes\n");
+        assertEquals(4, index.size());
+        SmartScanner s = scannerFor("");
+        s.setAnswers(index, AnswerIndex.OnMiss.FAIL);
+        assertEquals(12.5, s.smartForceNextDouble("Amount"), 0);
+        assertEquals(2, s.smartForceNextInt("Pick", 1, 5));
+        assertEquals(true, s.smartForceNextBoolean("Is 1 + 1 = 2?"));
+        assertEquals(3, s.smartForceNextInt("Pick", 1, 5));
+        try {
+            s.smartForceNextInt("Pick", 1, 5);
+            fail("Expected the third Pick to have no answer");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        index.rewind();
+        assertEquals(2, s.smartForceNextInt("Pick", 1, 5));
+    }
+
+    @Test
+    public void answersByHashFollowThoseByText()
+    {
+        AnswerIndex index = AnswerIndex.parse("Pick = 2\n" + AnswerIndex.keyOf("Pick") + " = 4\n");
+        SmartScanner s = scannerFor("");
+        s.setAnswers(index, AnswerIndex.OnMiss.FAIL);
+        assertEquals(2, s.smartForceNextInt("Pick", 1, 5));
+        assertEquals(4, s.smartForceNextInt("Pick", 1, 5));
+        try {
+            s.smartForceNextInt("Pick", 1, 5);
+            fail("Expected the third Pick to have no answer");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void missesCanFallBackToInput()
+    {
+        SmartScanner s = scannerFor("typed\n");
+        s.setAnswers(AnswerIndex.parse("Name = Ada\n"), AnswerIndex.OnMiss.READ_INPUT);
+        assertEquals("typed", s.smartNextStringSanitized("Colour"));
+        assertEquals("ada", s.smartNextStringSanitized("Name"));
+        assertFalse(s.getSource().hasNextLine());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void linesNeedAnEqualsSign()
+    {
+        AnswerIndex.parse("Name Ada\n");
+    }
+}
@@ -0,0 +1,46 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Tests for BooleanRecognizer.
+ */
+public class BooleanRecognizerTest
+{
+    @Test
+    public void recognizesTheStandardWords()
+    {
+        BooleanRecognizer r = BooleanRecognizer.standard();
+        String[] yes = {"yes", "Y", "  TRUE\t", "1", "t", "yEs"};
+        String[] no = {"no", "N", " false ", "0", "F"};
+        String[] neither = {"", "   ", "ye", "yess", "nope", "2", "tru", "y e s", "ÿes"};
+        for (String s : yes) {
+            assertEquals(s, BooleanRecognizer.YES, r.recognize(s));
+        }
+        for (String s : no) {
+            assertEquals(s, BooleanRecognizer.NO, r.recognize(s));
+        }
+        for (String s : neither) {
+            assertEquals(s, BooleanRecognizer.UNRECOGNIZED, r.recognize(s));
+        }
+        assertEquals(BooleanRecognizer.YES, r.recognize("[yes]", 1, 4));
+    }
+
+    @Test
+    public void acceptsCustomWords()
+    {
+        BooleanRecognizer r = new BooleanRecognizer(new String[] {"Ja", "oui"}, new String[] {"nein", "non"});
+        assertEquals(BooleanRecognizer.YES, r.recognize("JA"));
+        assertEquals(BooleanRecognizer.NO, r.recognize("non"));
+        assertEquals(BooleanRecognizer.UNRECOGNIZED, r.recognize("yes"));
+        try {
+            new BooleanRecognizer(new String[] {"ok"}, new String[] {"OK"});
+            fail("Accepted a word meaning both yes and no");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
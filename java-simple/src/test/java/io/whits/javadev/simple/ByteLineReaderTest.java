@@ -0,0 +1,66 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the byte level line reader.
+ */
+public class ByteLineReaderTest
+{
+    private static InputStream stream(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void splitsOnEveryKindOfLineBreak()
+    {
+        // A tiny buffer forces refills and growth in the middle of lines
+        ByteLineReader r = new ByteLineReader(stream("one\ntwo\r\nthree\rfour\r\n\nlast"),
+            StandardCharsets.UTF_8, 2);
+        assertEquals("one", r.nextLine());
+        assertEquals("two", r.nextLine());
+        assertEquals("three", r.nextLine());
+        assertEquals("four", r.nextLine());
+        assertEquals("", r.nextLine());
+        assertEquals("last", r.nextLine());
+        assertFalse(r.hasNextLine());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void throwsLikeScannerWhenExhausted()
+    {
+        ByteLineReader r = new ByteLineReader(stream("only\n"));
+        r.nextLine();
+        r.nextLine();
+    }
+
+    @Test
+    public void readsChannelsAndDecodesUtf8()
+    {
+        ByteLineReader r = new ByteLineReader(Channels.newChannel(stream("café\nüber\n")),
+            StandardCharsets.UTF_8, 3);
+        assertEquals("café", r.nextLine());
+        assertEquals("über", r.nextLine());
+        assertFalse(r.hasNextLine());
+    }
+
+    @Test
+    public void scannerTakesOverWithoutLosingInput()
+    {
+        SmartScanner s = new SmartScanner(stream("1\r\n2\n3\n"));
+        assertEquals(1, s.smartForceNextInt(""));
+        Scanner sc = s.getScanner();
+        assertEquals("2", sc.nextLine());
+        assertEquals(3, s.smartForceNextInt(""));
+    }
+}
@@ -0,0 +1,58 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the word at a time byte scanner.
+ */
+public class ByteScannerTest
+{
+    @Test
+    public void agreesWithScalarScanning()
+    {
+        byte[] targets = {'\n', '\r', ','};
+        ByteScanner wide = new ByteScanner(targets, true);
+        ByteScanner scalar = new ByteScanner(targets, false);
+        Random random = new Random(17);
+        byte[] a = new byte[300];
+        for (int round = 0; round < 2000; round++) {
+            // Mostly bytes next to the targets and high bytes, which trip up careless bit tricks
+            for (int k = 0; k < a.length; k++) {
+                int r = random.nextInt(100);
+                a[k] = r == 0 ? targets[random.nextInt(3)] : r < 30 ? (byte) (0x80 | random.nextInt(128))
+                    : (byte) ('\t' + random.nextInt(40));
+            }
+            int from = random.nextInt(a.length);
+            int to = from + random.nextInt(a.length - from + 1);
+            int expected = scalar.indexOf(a, from, to);
+            assertEquals(expected, wide.indexOf(a, from, to));
+            assertEquals(expected, wide.indexOf(ByteBuffer.wrap(a), from, to));
+            assertEquals(expected, wide.indexOf(ByteBuffer.wrap(a).order(ByteOrder.LITTLE_ENDIAN), from, to));
+            ByteBuffer direct = ByteBuffer.allocateDirect(a.length);
+            direct.put(a);
+            assertEquals(expected, wide.indexOf(direct, from, to));
+        }
+    }
+
+    @Test
+    public void findsLineBreaksAndNonAscii()
+    {
+        byte[] a = "0123456789abcdef\r\nxyz".getBytes();
+        assertEquals(16, ByteScanner.lineBreaks().indexOf(a, 0, a.length));
+        assertEquals(17, ByteScanner.lineBreaks().indexOf(a, 17, a.length));
+        assertEquals(-1, ByteScanner.lineBreaks().indexOf(a, 18, a.length));
+        assertTrue(ByteScanner.isAscii(a, 0, a.length));
+        a[12] = (byte) 0xC3;
+        assertFalse(ByteScanner.isAscii(a, 0, a.length));
+        assertFalse(ByteScanner.isAscii(ByteBuffer.wrap(a), 3, 13));
+        assertTrue(ByteScanner.isAscii(ByteBuffer.wrap(a), 0, 12));
+    }
+}
@@ -0,0 +1,173 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/**
+ * Tests for CommandLineMenu driven from in-memory input.
+ */
+public class CommandLineMenuTest
+{
+    private static final String NL = System.lineSeparator();
+
+    static MenuOption leaf(final String name, final StringBuilder log) {
+        return new MenuOption() {
+            public String getName() {
+                return name;
+            }
+
+            public String getDescription() {
+                return "Runs " + name;
+            }
+
+            public String[] getFlags() {
+                return new String[] {"--" + name.toLowerCase()};
+            }
+
+            public void run() {
+                log.append(name).append(';');
+            }
+        };
+    }
+
+    /**
+     * Run a menu against some answers on this thread's StaticSmartScanner.
+     * @return everything the menu printed
+     */
+    static String runWith(final MenuOption menu, String answers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SmartScanner s = new SmartScanner(new ByteArrayInputStream(answers.getBytes(StandardCharsets.UTF_8)));
+        s.setOutput(new OutputSink(out, StandardCharsets.UTF_8, 8192));
+        StaticSmartScanner.runInSession(s, new Runnable() {
+            public void run() {
+                menu.run();
+            }
+        });
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void rendersTheSameTextAsBefore()
+    {
+        StringBuilder log = new StringBuilder();
+        ArrayList<MenuOption> o = new ArrayList<MenuOption>();
+        o.add(leaf("Alpha", log));
+        o.add(leaf("Beta", log));
+        CommandLineMenu menu = new CommandLineMenu("Main", "Main menu", "Pick one.", new String[0], o);
+        String frame = "Main menu\nPick one.\n\n[1]\tAlpha - Runs Alpha\n[2]\tBeta - Runs Beta\n[0]\tLeave this menu"
+            + "Select an option" + NL + "> ";
+        assertEquals(frame + frame, runWith(menu, "2\n0\n"));
+        assertEquals("Beta;", log.toString());
+    }
+
+    @Test
+    public void noticesChangedOptions()
+    {
+        StringBuilder log = new StringBuilder();
+        ArrayList<MenuOption> o = new ArrayList<MenuOption>();
+        o.add(leaf("Alpha", log));
+        CommandLineMenu menu = new CommandLineMenu("Main", "Main menu", "Pick one.", new String[0], o);
+        runWith(menu, "0\n");
+        o.add(leaf("Gamma", log));
+        String shown = runWith(menu, "2\n0\n");
+        assertEquals(true, shown.contains("[2]\tGamma - Runs Gamma"));
+        assertEquals("Gamma;", log.toString());
+    }
+
+    private static CommandLineMenu reports(StringBuilder log) {
+        ArrayList<MenuOption> r = new ArrayList<MenuOption>();
+        r.add(leaf("Weekly", log));
+        r.add(leaf("Monthly", log));
+        ArrayList<MenuOption> main = new ArrayList<MenuOption>();
+        main.add(leaf("Alpha", log));
+        main.add(new CommandLineMenu("Report", "Reports", "Pick a report.", new String[] {"--report", "-r"}, r));
+        return new CommandLineMenu("Main", "Main menu", "Pick one.", new String[0], main);
+    }
+
+    @Test
+    public void flagsSkipStraightToTheOption()
+    {
+        StringBuilder log = new StringBuilder();
+        CommandLineMenu menu = reports(log);
+        assertEquals("", runWithFlags(menu, new String[] {"--report", "--monthly"}));
+        assertEquals("", runWithFlags(menu, new String[] {"--monthly", "--", "ignored"}));
+        assertEquals("Monthly;Monthly;", log.toString());
+        assertEquals(2, menu.resolve(new String[] {"-r", "--weekly"}).size());
+    }
+
+    @Test
+    public void findsFlagsAddedBelowTheMenuLater()
+    {
+        StringBuilder log = new StringBuilder();
+        CommandLineMenu menu = reports(log);
+        assertEquals(2, menu.resolve(new String[] {"--weekly"}).size());
+        // Only the submenu's list changes, which the root's index can't see
+        ((CommandLineMenu) menu.getOptions().get(1)).getOptions().add(leaf("Yearly", log));
+        assertEquals(2, menu.resolve(new String[] {"--yearly"}).size());
+        assertEquals("", runWithFlags(menu, new String[] {"--report", "--yearly"}));
+        assertEquals("Yearly;", log.toString());
+    }
+
+    @Test
+    public void typeaheadSkipsTheMenusPassedThrough()
+    {
+        StringBuilder log = new StringBuilder();
+        final CommandLineMenu menu = reports(log);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SmartScanner s = new SmartScanner(new ByteArrayInputStream("2 2\n0 0\n".getBytes(StandardCharsets.UTF_8)));
+        s.setOutput(new OutputSink(out, StandardCharsets.UTF_8, 8192));
+        s.setTypeahead(true);
+        StaticSmartScanner.runInSession(s, new Runnable() {
+            public void run() {
+                menu.run();
+            }
+        });
+        assertEquals("Monthly;", log.toString());
+        String shown = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        // Main is drawn on the way in and Reports after Monthly, the rest is typed ahead
+        assertEquals(1, shown.split("Main menu", -1).length - 1);
+        assertEquals(1, shown.split("Pick a report", -1).length - 1);
+    }
+
+    @Test
+    public void badFlagsAreRejected()
+    {
+        CommandLineMenu menu = reports(new StringBuilder());
+        String[][] bad = {{"--yearly"}, {"--alpha", "--weekly"}, {"report"}};
+        for (String[] args : bad) {
+            try {
+                menu.resolve(args);
+                fail("Accepted " + args[0]);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    private static String runWithFlags(final CommandLineMenu menu, final String[] args) {
+        return runWith(new MenuOption() {
+            public String getName() {
+                return menu.getName();
+            }
+
+            public String getDescription() {
+                return menu.getDescription();
+            }
+
+            public String[] getFlags() {
+                return menu.getFlags();
+            }
+
+            public void run() {
+                menu.run(args);
+            }
+        }, "");
+    }
+}
@@ -0,0 +1,74 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for filling in forms.
+ */
+public class FormTest
+{
+    private static final Form ORDER = new Form()
+        .field("item", Prompt.matching(Pattern.compile("^[A-Z]{3}-\\d{4}$")))
+        .field("count", IntPrompt.between(1, 99))
+        .field("price", DoublePrompt.atLeast(0))
+        .field("gift", Prompt.yesOrNo(BooleanRecognizer.standard()));
+
+    private static SmartScanner scannerFor(String input, ByteArrayOutputStream printed) {
+        SmartScanner s = new SmartScanner(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        s.setOutput(new OutputSink(printed, StandardCharsets.UTF_8, 8192));
+        return s;
+    }
+
+    @Test
+    public void takesAWholeFormOnOneLine()
+    {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        SmartScanner s = scannerFor("item=ABC-1234; count=3; Price = 9.99; gift=no\n", printed);
+        Form.Record r = s.fill("New order", ORDER);
+        assertEquals("ABC-1234", r.get("item", String.class));
+        assertEquals(3, r.getInt("count"));
+        assertEquals(9.99, r.getDouble("price"), 0);
+        assertFalse(r.get("gift", Boolean.class));
+        String out = new String(printed.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(out, out.contains("count: an int between 1 and 99"));
+    }
+
+    @Test
+    public void asksAgainOnlyForBadFields()
+    {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        SmartScanner s = scannerFor("item=ABC-1234\ncount=300\n\ncount=30\nprice=1.5;gift=yes\n", printed);
+        Form.Record r = s.fill("New order", ORDER);
+        assertEquals(30, r.getInt("count"));
+        assertTrue(r.get("gift", Boolean.class));
+        String out = new String(printed.toByteArray(), StandardCharsets.UTF_8);
+        String second = out.substring(out.indexOf("another look"));
+        assertTrue(second, second.contains("count: must be between 1 and 99"));
+        assertTrue(second, second.contains("price: no answer given"));
+        assertFalse(second, second.contains("item:"));
+    }
+
+    @Test
+    public void batchModeStopsAtTheFirstBadField()
+    {
+        SmartScanner s = scannerFor("item=ABC-1234; count=0; price=1; gift=yes\n", new ByteArrayOutputStream());
+        s.setBatchMode(true);
+        try {
+            s.fill("New order", ORDER);
+            fail("Expected the bad count to be rejected");
+        } catch (BatchInputException e) {
+            assertEquals("count: must be between 1 and 99", e.getReason());
+            assertEquals(1, e.getLineNumber());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+/**
+ * Runs scripted sessions through a small menu tree and checks what is reported.
+ */
+public class LoadGeneratorTest
+{
+    private static MenuOption leaf(final String name, final Runnable action) {
+        return new MenuOption() {
+            public String getName() {
+                return name;
+            }
+
+            public String getDescription() {
+                return name;
+            }
+
+            public String[] getFlags() {
+                return new String[0];
+            }
+
+            public void run() {
+                action.run();
+            }
+        };
+    }
+
+    private static CommandLineMenu menuTree() {
+        ArrayList<MenuOption> sub = new ArrayList<MenuOption>();
+        sub.add(leaf("Fail", new Runnable() {
+            public void run() {
+                throw new IllegalStateException("broken option");
+            }
+        }));
+        sub.add(leaf("Lookup", new Runnable() {
+            public void run() {
+                throw new NoSuchElementException("no such record");
+            }
+        }));
+        ArrayList<MenuOption> main = new ArrayList<MenuOption>();
+        main.add(leaf("Echo", new Runnable() {
+            public void run() {
+                String said = StaticSmartScanner.nextLine("Say something");
+                StaticSmartScanner.getOutput().println("You said " + said);
+            }
+        }));
+        main.add(new CommandLineMenu("Tools", "Tools menu", "Some tools.", new String[0], sub));
+        return new CommandLineMenu("Main", "Main menu", "Pick one.", new String[0], main);
+    }
+
+    @Test(timeout = 60000)
+    public void reportsStepsAndLatenciesPerOption()
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            LoadGenerator load = new LoadGenerator(menuTree(), pool)
+                .addScript("1\nhello\n1\nagain\n0\n")
+                .addScript("2\n0\n1\n");
+            LoadGenerator.Report r = load.run(200);
+            assertEquals(200, r.getSessions());
+            // The second script leaves Tools, echoes, then runs out of answers
+            assertEquals(100, r.getCutShort());
+            assertEquals(0, r.getFailed());
+            assertNull(r.getFirstFailure());
+            // The echo which ran out of answers never finished, so is not a step
+            assertEquals(100 * 3 + 100 * 2, r.getSteps());
+            assertEquals(200, r.getLatency("Main", "Echo").getCount());
+            assertEquals(100, r.getLatency("Main", "Tools").getCount());
+            assertEquals(100, r.getLatency("Tools", null).getCount());
+            assertEquals(100, r.getLatency("Main", null).getCount());
+            assertNull(r.getLatency("Tools", "Fail"));
+            assertTrue(r.getStepsPerSecond() > 0);
+            // Sessions always allocate, so a count of nothing means a lost counter
+            double perStep = r.getBytesPerStep();
+            assertTrue("" + perStep, perStep == -1 || perStep > 0);
+            assertTrue(r.toString(), r.toString().contains("Main > Echo"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void countsOptionsWhichThrow()
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            LoadGenerator.Report r = new LoadGenerator(menuTree(), pool).addScript("2\n1\n").run(10);
+            assertEquals(10, r.getFailed());
+            assertEquals(0, r.getCutShort());
+            assertEquals("broken option", r.getFirstFailure().getMessage());
+            // Only entering Tools; the step which threw is counted as a failure
+            assertEquals(10, r.getSteps());
+            assertNull(r.getLatency("Tools", "Fail"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void tellsAnOptionsOwnNoSuchElementFromTheScriptEnding()
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            LoadGenerator.Report r = new LoadGenerator(menuTree(), pool).addScript("2\n2\n0\n0\n").run(10);
+            assertEquals(10, r.getFailed());
+            assertEquals(0, r.getCutShort());
+            assertEquals("no such record", r.getFirstFailure().getMessage());
+            assertNull(r.getLatency("Tools", "Lookup"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void histogramPercentilesAreCloseToTheTruth()
+    {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        for (long n = 1; n <= 5000; n++) {
+            a.record(n * 1000);
+            b.record((n + 5000) * 1000);
+        }
+        a.add(b);
+        assertEquals(10000, a.getCount());
+        assertEquals(10000000, a.getMax());
+        assertEquals(5000000, a.percentile(50), 5000000 * 0.07);
+        assertEquals(9900000, a.percentile(99), 9900000 * 0.07);
+        assertEquals(1000, a.percentile(0), 1000 * 0.07);
+        assertEquals(10000000, a.percentile(100));
+        assertEquals(0, new LatencyHistogram().percentile(50));
+    }
+}
@@ -0,0 +1,93 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for reading memory-mapped answer files.
+ */
+public class MappedLineSourceTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file(String contents) throws IOException {
+        File f = this.folder.newFile();
+        Files.write(f.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return f.toPath();
+    }
+
+    @Test
+    public void agreesWithByteLineReaderAcrossWindows() throws IOException
+    {
+        String text = "one\ntwo\r\nthree\rfour\r\n\ncafé über alles\na much longer line than the window\r\nlast";
+        Path p = this.file(text);
+        // Windows of a few bytes force the mapping to slide and to grow
+        for (int window = 1; window < 12; window++) {
+            MappedLineSource mapped = new MappedLineSource(
+                FileChannel.open(p, StandardOpenOption.READ), StandardCharsets.UTF_8, window);
+            ByteLineReader reader = new ByteLineReader(Files.newInputStream(p), StandardCharsets.UTF_8);
+            boolean view = false;
+            while (reader.hasNextLine()) {
+                String expected = reader.nextLine();
+                assertEquals(expected, view ? mapped.nextLineView().toString() : mapped.nextLine());
+                view = !view;
+            }
+            assertFalse(mapped.hasNextLine());
+            mapped.close();
+        }
+    }
+
+    @Test
+    public void smartScannerReadsFromAFile() throws IOException
+    {
+        SmartScanner s = SmartScanner.fromFile(this.file("7\nyes\n1,2,3\nrest\n"), StandardCharsets.UTF_8);
+        s.setBatchMode(true);
+        assertEquals(7, s.smartForceNextInt("Number"));
+        assertEquals(true, s.smartForceNextBoolean("Sure?"));
+        assertEquals(3, s.nextIntArray("Values").length);
+        assertEquals("rest", s.getScanner().nextLine());
+    }
+
+    @Test
+    public void parallelStreamsSplitTheFileInOrder() throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        int[] expected = new int[200000];
+        for (int k = 0; k < expected.length; k++) {
+            expected[k] = k * 7 % 1000;
+            sb.append(expected[k]).append(k % 3 == 0 ? "\r\n" : "\n");
+        }
+        sb.append("bad\n");
+        Path p = this.file(sb.toString());
+
+        int[] seen = SmartScanner.fromFile(p).ints(0, 999, BadLinePolicy.SKIP).parallel().toArray();
+        assertArrayEquals(expected, seen);
+        assertEquals(200001, SmartScanner.fromFile(p).lines().parallel().count());
+
+        SmartScanner s = SmartScanner.fromFile(p);
+        s.setBatchMode(true);
+        s.smartForceNextInt("First");
+        try {
+            s.ints(0, 999, BadLinePolicy.FAIL).parallel().sum();
+            fail("Expected the bad line to be rejected");
+        } catch (BatchInputException e) {
+            assertEquals("bad", e.getInput());
+            assertEquals(200001, e.getLineNumber());
+        }
+    }
+}
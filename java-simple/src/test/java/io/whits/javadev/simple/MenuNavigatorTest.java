@@ -0,0 +1,106 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/**
+ * Tests for MenuNavigator.
+ */
+public class MenuNavigatorTest
+{
+    private static MenuOption action(final String name, final Runnable r) {
+        return new MenuOption() {
+            public String getName() {
+                return name;
+            }
+
+            public String getDescription() {
+                return name;
+            }
+
+            public String[] getFlags() {
+                return new String[0];
+            }
+
+            public void run() {
+                r.run();
+            }
+        };
+    }
+
+    @Test
+    public void cyclicMenusGoDeepWithoutRecursion()
+    {
+        final int levels = 20000;
+        final int[] seen = new int[1];
+        ArrayList<MenuOption> o = new ArrayList<MenuOption>();
+        CommandLineMenu loop = new CommandLineMenu("Loop", "Loop", "Round again?", new String[0], o);
+        o.add(loop);
+        o.add(action("Home", new Runnable() {
+            public void run() {
+                MenuNavigator nav = MenuNavigator.current();
+                seen[0] = nav.getDepth();
+                nav.toRoot();
+            }
+        }));
+        StringBuilder answers = new StringBuilder();
+        for (int k = 0; k < levels; k++) {
+            answers.append("1\n");
+        }
+        answers.append("2\n0\n");
+        CommandLineMenuTest.runWith(loop, answers.toString());
+        assertEquals(levels + 1, seen[0]);
+    }
+
+    @Test
+    public void submenusWithTheirOwnRunAreRun()
+    {
+        final StringBuilder log = new StringBuilder();
+        ArrayList<MenuOption> inner = new ArrayList<MenuOption>();
+        inner.add(action("Work", new Runnable() {
+            public void run() {
+                log.append("work;");
+            }
+        }));
+        ArrayList<MenuOption> o = new ArrayList<MenuOption>();
+        o.add(new CommandLineMenu("Guarded", "Guarded", "", new String[0], inner) {
+            @Override
+            public void run() {
+                log.append("setup;");
+                super.run();
+                log.append("teardown;");
+            }
+        });
+        o.add(new CommandLineMenu("Plain", "Plain", "", new String[0], inner));
+        CommandLineMenu root = new CommandLineMenu("Root", "Root", "", new String[0], o);
+        CommandLineMenuTest.runWith(root, "1\n1\n0\n2\n1\n0\n0\n");
+        assertEquals("setup;work;teardown;work;", log.toString());
+    }
+
+    @Test
+    public void snapshotsRestoreThePosition()
+    {
+        ArrayList<MenuOption> none = new ArrayList<MenuOption>();
+        CommandLineMenu root = new CommandLineMenu("Root", "Root", "", new String[0], none);
+        CommandLineMenu a = new CommandLineMenu("A", "A", "", new String[0], none);
+        CommandLineMenu b = new CommandLineMenu("B", "B", "", new String[0], none);
+        MenuNavigator nav = new MenuNavigator(root);
+        nav.push(a);
+        nav.push(b);
+        MenuNavigator.Position p = nav.snapshot();
+        nav.back(2);
+        nav.push(b);
+        nav.restore(p);
+        assertEquals(3, nav.getDepth());
+        assertSame(b, nav.getMenu());
+        nav.back(1);
+        assertSame(a, nav.getMenu());
+        assertSame(b, p.getMenu());
+        nav.back(5);
+        assertEquals(0, nav.getDepth());
+    }
+}
@@ -0,0 +1,247 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Drives many concurrent loopback sessions through a MenuServer and reports
+ * the latency of each menu step.
+ */
+public class MenuServerTest
+{
+    private static final int CLIENTS = 200;
+    // What each client types, one entry per menu step
+    private static final String[] STEPS = {"1", "hello", "2", "1", "0", "0"};
+
+    private static MenuOption leaf(final String name, final Runnable action) {
+        return new MenuOption() {
+            public String getName() {
+                return name;
+            }
+
+            public String getDescription() {
+                return name;
+            }
+
+            public String[] getFlags() {
+                return new String[0];
+            }
+
+            public void run() {
+                action.run();
+            }
+        };
+    }
+
+    private static CommandLineMenu menuTree() {
+        ArrayList<MenuOption> sub = new ArrayList<MenuOption>();
+        sub.add(leaf("Ping", new Runnable() {
+            public void run() {
+                StaticSmartScanner.getOutput().println("pong");
+            }
+        }));
+        ArrayList<MenuOption> main = new ArrayList<MenuOption>();
+        main.add(leaf("Echo", new Runnable() {
+            public void run() {
+                String said = StaticSmartScanner.nextLine("Say something");
+                StaticSmartScanner.getOutput().println("You said " + said);
+            }
+        }));
+        main.add(new CommandLineMenu("Tools", "Tools menu", "Some tools.", new String[0], sub));
+        return new CommandLineMenu("Main", "Main menu", "Pick one.", new String[0], main);
+    }
+
+    @Test(timeout = 60000)
+    public void servesManyConcurrentSessions() throws Exception
+    {
+        ExecutorService sessions = Executors.newCachedThreadPool();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        MenuServer server = new MenuServer(menuTree(), sessions);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        try {
+            final InetSocketAddress address = (InetSocketAddress) server.getLocalAddress();
+            List<Future<long[]>> runs = new ArrayList<Future<long[]>>();
+            for (int k = 0; k < CLIENTS; k++) {
+                runs.add(clients.submit(new Callable<long[]>() {
+                    public long[] call() throws IOException {
+                        return drive(address);
+                    }
+                }));
+            }
+            long[][] latencies = new long[STEPS.length][CLIENTS];
+            for (int k = 0; k < CLIENTS; k++) {
+                long[] run = runs.get(k).get();
+                for (int step = 0; step < STEPS.length; step++) {
+                    latencies[step][k] = run[step];
+                }
+            }
+            for (int step = 0; step < STEPS.length; step++) {
+                long[] l = latencies[step];
+                Arrays.sort(l);
+                String summary = String.format("step %d (%s): p50 %,d us, p99 %,d us, max %,d us",
+                    step, STEPS[step], l[CLIENTS / 2] / 1000, l[CLIENTS * 99 / 100] / 1000,
+                    l[CLIENTS - 1] / 1000);
+                assertTrue(summary, l[0] > 0);
+                // Loopback steps take a few milliseconds even with every
+                // client at once, so these only leave room for a slow machine
+                assertTrue(summary, l[CLIENTS / 2] < TimeUnit.MILLISECONDS.toNanos(100));
+                assertTrue(summary, l[CLIENTS * 99 / 100] < TimeUnit.MILLISECONDS.toNanos(500));
+            }
+        } finally {
+            server.close();
+            clients.shutdown();
+            sessions.shutdown();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void holdsBackAClientWhichFloodsOrStopsReading() throws Exception
+    {
+        final int lineLength = 1 << 20;
+        final int outputLines = 512 * 1024;
+        ArrayList<MenuOption> main = new ArrayList<MenuOption>();
+        main.add(leaf("Flood", new Runnable() {
+            public void run() {
+                String line = StaticSmartScanner.nextLine("Send a lot");
+                OutputSink out = StaticSmartScanner.getOutput();
+                out.println("Got " + line.length());
+                // 16 MiB, far more than the server or the sockets hold for a client
+                for (int k = 0; k < outputLines; k++) {
+                    out.println("0123456789abcdefghijklmnopqrst#");
+                }
+            }
+        }));
+        ExecutorService sessions = Executors.newCachedThreadPool();
+        MenuServer server = new MenuServer(
+            new CommandLineMenu("Main", "Main menu", "Pick one.", new String[0], main), sessions);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        SocketChannel ch = SocketChannel.open();
+        try {
+            // A small window, so the kernel can't soak up the output instead
+            ch.setOption(StandardSocketOptions.SO_RCVBUF, 16 * 1024);
+            ch.connect(server.getLocalAddress());
+            readUntilPrompt(ch);
+            byte[] flood = new byte[lineLength + 7];
+            Arrays.fill(flood, (byte) 'x');
+            flood[0] = '1';
+            flood[1] = '\n';
+            flood[lineLength + 2] = '\n';
+            flood[lineLength + 3] = '0';
+            flood[lineLength + 4] = '\n';
+            flood[lineLength + 5] = '\n';
+            flood[lineLength + 6] = '\n';
+            ByteBuffer out = ByteBuffer.wrap(flood);
+            while (out.hasRemaining()) {
+                ch.write(out);
+            }
+            // Wait, without reading, until the session is held back
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (server.getOutboundHighWater() < MenuServer.OUTBOUND_LIMIT) {
+                assertTrue("The session never filled the output limit", System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+            String start = null;
+            StringBuilder head = new StringBuilder();
+            long lines = 0;
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+            int n;
+            while ((n = ch.read(buf)) >= 0) {
+                byte[] got = buf.array();
+                for (int k = 0; k < n; k++) {
+                    if (got[k] == '#') {
+                        lines++;
+                    }
+                }
+                if (start == null) {
+                    head.append(new String(got, 0, n, StandardCharsets.UTF_8));
+                    if (head.length() > 1024) {
+                        start = head.toString();
+                    }
+                }
+                ((Buffer) buf).clear();
+            }
+            assertTrue(start, start.contains("Got " + lineLength));
+            assertEquals(outputLines, lines);
+            // Only one read or one sink buffer past each limit, however much was sent
+            assertTrue("Held " + server.getInboundHighWater() + " bytes of input",
+                server.getInboundHighWater() < MenuServer.INBOUND_LIMIT + MenuServer.READ_BUFFER);
+            assertTrue("Held " + server.getOutboundHighWater() + " bytes of output",
+                server.getOutboundHighWater() < MenuServer.OUTBOUND_LIMIT + 8192);
+        } finally {
+            ch.close();
+            server.close();
+            sessions.shutdown();
+        }
+    }
+
+    /**
+     * Walk one session through every step, timing from sending an answer to
+     * receiving the next prompt, and check the server hangs up at the end.
+     */
+    private static long[] drive(InetSocketAddress address) throws IOException {
+        long[] latency = new long[STEPS.length];
+        SocketChannel ch = SocketChannel.open(address);
+        try {
+            String first = readUntilPrompt(ch);
+            assertTrue(first, first.contains("[2]\tTools - Tools menu"));
+            for (int step = 0; step < STEPS.length; step++) {
+                long start = System.nanoTime();
+                ch.write(ByteBuffer.wrap((STEPS[step] + "\n").getBytes(StandardCharsets.UTF_8)));
+                String reply = step == STEPS.length - 1 ? readToEnd(ch) : readUntilPrompt(ch);
+                latency[step] = System.nanoTime() - start;
+                if (step == 1) {
+                    assertTrue(reply, reply.startsWith("You said hello"));
+                }
+                if (step == 3) {
+                    assertTrue(reply, reply.startsWith("pong"));
+                }
+            }
+        } finally {
+            ch.close();
+        }
+        return latency;
+    }
+
+    private static String readUntilPrompt(SocketChannel ch) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        while (sb.length() < 2 || !sb.substring(sb.length() - 2).equals("> ")) {
+            // Through Buffer so this still links against Java 8's ByteBuffer
+            ((Buffer) buf).clear();
+            int n = ch.read(buf);
+            assertTrue("Server hung up early after: " + sb, n >= 0);
+            sb.append(new String(buf.array(), 0, n, StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    private static String readToEnd(SocketChannel ch) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        int n;
+        while ((((Buffer) buf).clear() != null) && (n = ch.read(buf)) >= 0) {
+            sb.append(new String(buf.array(), 0, n, StandardCharsets.UTF_8));
+        }
+        assertEquals("", sb.toString());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * Counts a scripted session through a small menu tree.
+ */
+public class MetricsTest
+{
+    private static CommandLineMenu menuTree() {
+        ArrayList<MenuOption> main = new ArrayList<MenuOption>();
+        main.add(new MenuOption() {
+            public String getName() {
+                return "Order";
+            }
+
+            public String getDescription() {
+                return "Order some things";
+            }
+
+            public String[] getFlags() {
+                return new String[0];
+            }
+
+            public void run() {
+                StaticSmartScanner.smartForceNextInt("How many?", 1, 5);
+                StaticSmartScanner.smartForceNextBoolean("Gift wrap?");
+            }
+        });
+        main.add(new CommandLineMenu("Tools", "Tools menu", "Some tools.", new String[0],
+            new ArrayList<MenuOption>()));
+        return new CommandLineMenu("Main", "Main menu", "Pick one.", new String[0], main);
+    }
+
+    @Test
+    public void countsPromptsRetriesAndMenuChoices()
+    {
+        Metrics metrics = new Metrics();
+        SmartScanner s = new SmartScanner(new ByteArrayInputStream(
+            "1\nseven\n9\n3\nmaybe\ny\n2\n0\n0\n".getBytes(StandardCharsets.UTF_8)));
+        s.setOutput(new OutputSink(new ByteArrayOutputStream()));
+        s.setMetrics(metrics);
+        final CommandLineMenu menu = menuTree();
+        StaticSmartScanner.runInSession(s, new Runnable() {
+            public void run() {
+                menu.run();
+            }
+        });
+
+        Metrics.Snapshot snap = metrics.snapshot();
+        // Four menus shown, then the two prompts the option asks
+        assertEquals(6, snap.getPrompts());
+        assertEquals(6, snap.getAnswers());
+        assertEquals(3, snap.getRejected());
+        assertEquals(Long.valueOf(2), snap.getFailures().get("int"));
+        assertEquals(Long.valueOf(1), snap.getFailures().get("boolean"));
+        assertEquals(6, snap.getRetries().getCount());
+        assertEquals(2, snap.getRetries().getMax());
+        assertEquals(6, snap.getAnswerTime().getCount());
+        assertEquals(4, snap.getMenuDepth().getCount());
+        assertEquals(2, snap.getMenuDepth().getMax());
+        assertEquals(Long.valueOf(1), snap.getChosen().get("Order"));
+        assertEquals(Long.valueOf(1), snap.getChosen().get("Tools"));
+        assertEquals(Long.valueOf(1), snap.getLeft().get("Main"));
+        assertEquals(Long.valueOf(1), snap.getLeft().get("Tools"));
+        assertEquals(1, snap.getRunTime().get("Order").getCount());
+        assertFalse(snap.getRunTime().containsKey("Tools"));
+
+        String text = snap.toText();
+        assertTrue(text, text.contains("smartscanner_prompts_total 6\n"));
+        assertTrue(text, text.contains("smartscanner_rejected_total{type=\"int\"} 2\n"));
+        assertTrue(text, text.contains("menu_run_seconds_count{option=\"Order\"} 1\n"));
+    }
+
+    @Test
+    public void startsAfreshAfterInputRunsOut()
+    {
+        Metrics metrics = new Metrics();
+        SmartScanner s = new SmartScanner(new ByteArrayInputStream(
+            "x\n".getBytes(StandardCharsets.UTF_8)));
+        s.setOutput(new OutputSink(new ByteArrayOutputStream()));
+        s.setMetrics(metrics);
+        try {
+            s.smartForceNextInt("Pick");
+        } catch (NoSuchElementException e) {
+            // Expected, the only answer was no good
+        }
+        s.setSource(new ByteLineReader(new ByteArrayInputStream("4\n".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(4, s.smartForceNextInt("Pick"));
+        s.setMetrics(null);
+        s.setSource(new ByteLineReader(new ByteArrayInputStream("5\n".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(5, s.smartForceNextInt("Pick"));
+
+        Metrics.Snapshot snap = metrics.snapshot();
+        assertEquals(2, snap.getPrompts());
+        assertEquals(1, snap.getAnswers());
+        assertEquals(0, snap.getRetries().getMax());
+        assertEquals(Long.valueOf(1), snap.getFailures().get("int"));
+    }
+
+    @Test
+    public void startsAfreshAfterABatchRejectionOrMissingAnswer()
+    {
+        Metrics metrics = new Metrics();
+        SmartScanner s = new SmartScanner(new ByteArrayInputStream(
+            "x\n4\n".getBytes(StandardCharsets.UTF_8)));
+        s.setOutput(new OutputSink(new ByteArrayOutputStream()));
+        s.setBatchMode(true);
+        s.setMetrics(metrics);
+        try {
+            s.smartForceNextInt("Pick");
+        } catch (BatchInputException e) {
+            // Expected, batch mode doesn't ask again
+        }
+        assertEquals(4, s.smartForceNextInt("Pick"));
+        s.setAnswers(AnswerIndex.parse("Size = 2\n"), AnswerIndex.OnMiss.FAIL);
+        try {
+            s.smartForceNextInt("Colour");
+        } catch (NoSuchElementException e) {
+            // Expected, the answer file has nothing for this prompt
+        }
+        assertEquals(2, s.smartForceNextInt("Size"));
+
+        Metrics.Snapshot snap = metrics.snapshot();
+        assertEquals(4, snap.getPrompts());
+        assertEquals(2, snap.getAnswers());
+        assertEquals(2, snap.getRetries().getCount());
+        assertEquals(0, snap.getRetries().getMax());
+        assertEquals(Long.valueOf(1), snap.getFailures().get("int"));
+    }
+}
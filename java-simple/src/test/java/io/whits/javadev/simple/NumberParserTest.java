@@ -0,0 +1,101 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks NumberParser against the java.lang parsers it replaces.
+ */
+public class NumberParserTest
+{
+    private static final String[] INTS = {
+        "0", "-0", "+7", "42", "-2147483648", "2147483647", "2147483648",
+        "-2147483649", "99999999999", "", "-", "+", " 5", "5 ", "1.0", "abc",
+        "12a", "١٢", "00012", "9223372036854775807", "-9223372036854775808",
+        "9223372036854775808"
+    };
+    private static final String[] DOUBLES = {
+        "0", "-0", "1", "1.5", ".5", "5.", "+.5e3", "1e-5", "1E+22", "1e23",
+        "123456789012345678901234567890", "0.1", "3.14159265358979323846",
+        "  2.5  ", "", "   ", ".", "-", "1.2.3", "..", "1e", "1e+", "e5",
+        "1.5f", "1.5D", "1.5ff", "NaN", "-Infinity", "Infinityx", "0x1p3",
+        "0x1.8p1", "0x1", "1,5", "4.9e-324", "1e-400", "1.7976931348623157e308",
+        "1e309", "0.000000000000000000000000001", "1_0", "12e5.5"
+    };
+
+    @Test
+    public void intsMatchIntegerParseInt()
+    {
+        NumberParser p = new NumberParser();
+        for (String s : INTS) {
+            try {
+                int expected = Integer.parseInt(s);
+                assertTrue(s, p.parseInt(s));
+                assertEquals(s, expected, p.intValue());
+                assertNull(p.errorText());
+            } catch (NumberFormatException e) {
+                assertFalse(s, p.parseInt(s));
+                assertEquals(s, e.toString(), p.errorText());
+            }
+        }
+    }
+
+    @Test
+    public void longsMatchLongParseLong()
+    {
+        NumberParser p = new NumberParser();
+        for (String s : INTS) {
+            try {
+                long expected = Long.parseLong(s);
+                assertTrue(s, p.parseLong(s));
+                assertEquals(s, expected, p.longValue());
+            } catch (NumberFormatException e) {
+                assertFalse(s, p.parseLong(s));
+            }
+        }
+    }
+
+    @Test
+    public void doublesMatchDoubleParseDouble()
+    {
+        NumberParser p = new NumberParser();
+        for (String s : DOUBLES) {
+            checkDouble(p, s);
+        }
+        // Random short decimals all take the fast path and must round the same way
+        Random r = new Random(11);
+        for (int k = 0; k < 100000; k++) {
+            String s = (r.nextLong() % 1000000000000L) + "." + r.nextInt(1000) + "e" + (r.nextInt(40) - 20);
+            checkDouble(p, s);
+        }
+    }
+
+    @Test
+    public void overflowIsReported()
+    {
+        NumberParser p = new NumberParser();
+        assertFalse(p.parseInt("2147483648"));
+        assertEquals(NumberParser.OVERFLOW, p.status());
+        assertFalse(p.parseInt("21474836480x"));
+        assertEquals(NumberParser.MALFORMED, p.status());
+        assertFalse(p.parseDouble("1.2.3"));
+        assertEquals(NumberParser.MULTIPLE_POINTS, p.status());
+    }
+
+    private static void checkDouble(NumberParser p, String s) {
+        try {
+            double expected = Double.parseDouble(s);
+            assertTrue(s, p.parseDouble(s));
+            assertEquals(s, Double.doubleToLongBits(expected), Double.doubleToLongBits(p.doubleValue()));
+        } catch (NumberFormatException e) {
+            assertFalse(s, p.parseDouble(s));
+            assertEquals(s, e.toString(), p.errorText());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Tests for PatternSet and PatternCache.
+ */
+public class PatternSetTest
+{
+    private static final String[] INPUTS = {
+        "", "abc", "ABC", "2026-10-17", "call 555-1234", "x = y", "yes", "  # not a comment",
+        "aa", "abab", "hello world", "HELLO", "line\nbreak"
+    };
+
+    private static void assertSameAsOneAtATime(PatternSet set) {
+        for (String in : INPUTS) {
+            int best = -1;
+            int bestStart = Integer.MAX_VALUE;
+            for (int k = 0; k < set.size(); k++) {
+                java.util.regex.Matcher m = set.get(k).matcher(in);
+                if (m.find() && m.start() < bestStart) {
+                    best = k;
+                    bestStart = m.start();
+                }
+            }
+            assertEquals(in, best, set.find(in));
+        }
+    }
+
+    @Test
+    public void joinedPatternsAgreeWithSeparateOnes()
+    {
+        PatternSet set = new PatternSet(
+            Pattern.compile("^\\d{4}-(\\d{2})-(\\d{2})$"),
+            Pattern.compile("hello", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("(?<word>[a-c]+)"),
+            Pattern.compile("\\d{3} - \\d{4}  # a phone number", Pattern.COMMENTS),
+            Pattern.compile("^.*$", Pattern.DOTALL | Pattern.MULTILINE));
+        assertTrue(set.isCombined());
+        assertSameAsOneAtATime(set);
+        assertEquals(3, set.find("555-1234"));
+        assertEquals(-1, new PatternSet(Pattern.compile("z")).find("abc"));
+    }
+
+    @Test
+    public void unjoinablePatternsStillWork()
+    {
+        PatternSet backref = new PatternSet(Pattern.compile("(a)\\1"), Pattern.compile("(ab)\\1"));
+        PatternSet literal = new PatternSet(Pattern.compile("x = y", Pattern.LITERAL), Pattern.compile("yes"));
+        PatternSet names = new PatternSet(Pattern.compile("(?<n>abc)"), Pattern.compile("(?<n>yes)"));
+        for (PatternSet set : new PatternSet[] {backref, literal, names}) {
+            assertFalse(set.toString(), set.isCombined());
+            assertSameAsOneAtATime(set);
+        }
+    }
+
+    @Test
+    public void promptsUntilOneMatches()
+    {
+        SmartScanner s = new SmartScanner(new ByteArrayInputStream("nope\n42\n".getBytes(StandardCharsets.UTF_8)));
+        s.setOutput(new OutputSink(new ByteArrayOutputStream(), StandardCharsets.UTF_8, 256));
+        PatternSet.Match m = s.smartForceNextStringMatchingAny("Answer",
+            new PatternSet(Pattern.compile("^yes$"), Pattern.compile("^\\d+$")));
+        assertEquals(1, m.getIndex());
+        assertEquals("42", m.getInput());
+    }
+
+    @Test
+    public void cacheEvictsTheLeastRecentlyUsed()
+    {
+        PatternCache cache = new PatternCache(2);
+        Pattern a = cache.get("a+");
+        Pattern b = cache.get("b+");
+        assertSame(a, cache.get("a+"));
+        cache.get("c+");
+        assertEquals(2, cache.size());
+        assertSame(a, cache.get("a+"));
+        assertNotSame(b, cache.get("b+"));
+        assertNotSame(cache.get("a+", Pattern.CASE_INSENSITIVE), cache.get("a+"));
+    }
+}
@@ -0,0 +1,114 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for recording sessions and replaying them.
+ */
+public class SessionJournalTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsASessionAndReplaysItsInput() throws IOException
+    {
+        Path path = this.folder.newFile().toPath();
+        SmartScanner s = new SmartScanner(new ByteLineReader(new ByteArrayInputStream(
+            "seven\n7\nna\u00efve \u2603\n".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        s.setOutput(new OutputSink(new ByteArrayOutputStream(), StandardCharsets.UTF_8, 256));
+        SessionJournal journal = new SessionJournal(path, 4096);
+        s.setJournal(journal);
+        assertEquals(7, s.smartForceNextInt("Pick"));
+        s.nextLine("Name");
+        journal.close();
+
+        List<SessionJournal.Entry> entries = SessionJournal.read(path);
+        int[] types = {SessionJournal.PROMPT, SessionJournal.INPUT, SessionJournal.REJECTED,
+            SessionJournal.PROMPT, SessionJournal.INPUT, SessionJournal.ACCEPTED,
+            SessionJournal.PROMPT, SessionJournal.INPUT, SessionJournal.ACCEPTED};
+        assertEquals(types.length, entries.size());
+        for (int k = 0; k < types.length; k++) {
+            assertEquals(entries.get(k).toString(), types[k], entries.get(k).getType());
+        }
+        assertEquals("na\u00efve \u2603", entries.get(7).getText());
+
+        SmartScanner replayed = new SmartScanner(new ByteLineReader(SessionJournal.replay(path),
+            StandardCharsets.UTF_8));
+        replayed.setBatchMode(true);
+        assertEquals("seven", replayed.nextLine("Pick"));
+        assertEquals(7, replayed.smartForceNextInt("Pick"));
+    }
+
+    @Test
+    public void keepsEveryRecordThroughASmallRingAndAppends() throws IOException
+    {
+        Path path = this.folder.newFile().toPath();
+        SessionJournal journal = new SessionJournal(path, 1 << 20, 64);
+        for (int k = 0; k < 5000; k++) {
+            journal.record(SessionJournal.INPUT, "answer " + k);
+        }
+        journal.close();
+        assertEquals(0, journal.getDropped());
+        journal = new SessionJournal(path, 1 << 20, 64);
+        journal.record(SessionJournal.INPUT, "appended");
+        journal.close();
+
+        List<SessionJournal.Entry> entries = SessionJournal.read(path);
+        assertEquals(5001, entries.size());
+        assertEquals("answer 4321", entries.get(4321).getText());
+        assertEquals("appended", entries.get(5000).getText());
+    }
+
+    @Test
+    public void neverReadsRecordsLeftFromBeforeACrash() throws IOException
+    {
+        Path path = this.folder.newFile().toPath();
+        SessionJournal journal = new SessionJournal(path, 4096);
+        journal.record(SessionJournal.INPUT, "one");
+        journal.record(SessionJournal.INPUT, "two");
+        journal.record(SessionJournal.INPUT, "three");
+        journal.close();
+        // Tear the first record, as if the writer died before its length went in
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4), 8);
+        }
+        journal = new SessionJournal(path, 4096);
+        journal.record(SessionJournal.INPUT, "uno");
+        journal.close();
+
+        List<SessionJournal.Entry> entries = SessionJournal.read(path);
+        assertEquals(1, entries.size());
+        assertEquals("uno", entries.get(0).getText());
+    }
+
+    @Test
+    public void countsRecordsWhichDoNotFit() throws IOException
+    {
+        Path path = this.folder.newFile().toPath();
+        SessionJournal journal = new SessionJournal(path, 100);
+        for (int k = 0; k < 10; k++) {
+            journal.record(SessionJournal.PROMPT, "0123456789");
+        }
+        journal.close();
+        // Each record takes 23 bytes after the 8 byte header, with 4 bytes kept for the end
+        assertEquals(3, SessionJournal.read(path).size());
+        assertEquals(7, journal.getDropped());
+        assertTrue(SessionJournal.read(path).get(0).toString().endsWith("PROMPT 0123456789"));
+    }
+}
@@ -0,0 +1,219 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for SmartScanner fed from in-memory input.
+ */
+public class SmartScannerTest
+{
+    private static SmartScanner scannerFor(String input) {
+        return new SmartScanner(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void batchModeAcceptsValidAnswers()
+    {
+        SmartScanner s = scannerFor("3\n2.5\nyes\n");
+        s.setBatchMode(true);
+        assertEquals(3, s.smartForceNextInt("Pick", 1, 5));
+        assertEquals(2.5, s.smartForceNextDouble("Amount"), 0);
+        assertTrue(s.smartForceNextBoolean("Sure?"));
+    }
+
+    @Test
+    public void batchModeFailsFastOnInvalidAnswers()
+    {
+        SmartScanner s = scannerFor("1\nseven\n");
+        s.setBatchMode(true);
+        s.smartForceNextInt("First");
+        try {
+            s.smartForceNextInt("Second");
+            fail("Expected the bad answer to be rejected");
+        } catch (BatchInputException e) {
+            assertEquals("Second", e.getPrompt());
+            assertEquals("seven", e.getInput());
+            assertEquals(2, e.getLineNumber());
+        }
+    }
+
+    @Test
+    public void batchModeRejectsOutOfRangeAnswers()
+    {
+        SmartScanner s = scannerFor("9\n");
+        s.setBatchMode(true);
+        try {
+            s.smartForceNextInt("Pick", 1, 5);
+            fail("Expected the bad answer to be rejected");
+        } catch (BatchInputException e) {
+            assertEquals("9", e.getInput());
+            assertEquals("must be between 1 and 5", e.getReason());
+        }
+    }
+
+    @Test
+    public void promptCycleIsWrittenInOneGo()
+    {
+        final int[] writes = {0};
+        ByteArrayOutputStream captured = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                writes[0]++;
+                super.write(b, off, len);
+            }
+        };
+        SmartScanner s = scannerFor("abc\n5\n");
+        s.setOutput(new OutputSink(captured, StandardCharsets.UTF_8, 8192));
+        assertEquals(5, s.smartForceNextInt("Pick"));
+        String nl = System.lineSeparator();
+        assertEquals("Pick" + nl + "> That is not a valid value. Try again." + nl
+            + "Detailed error below:" + nl
+            + "java.lang.NumberFormatException: For input string: \"abc\"" + nl + nl
+            + "Pick" + nl + "> ", new String(captured.toByteArray(), StandardCharsets.UTF_8));
+        // The first prompt goes out before the reader has anything buffered,
+        // the retry is already buffered so the rest is written on return
+        assertEquals(2, writes[0]);
+    }
+
+    @Test
+    public void defaultOutputFollowsSystemSetOut()
+    {
+        SmartScanner s = scannerFor("5\n");
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        try {
+            // Redirected after the scanner and its sink were made
+            System.setOut(new PrintStream(captured, true));
+            assertEquals(5, s.smartForceNextInt("Pick"));
+            s.flush();
+        } finally {
+            System.setOut(stdout);
+        }
+        assertEquals("Pick" + System.lineSeparator() + "> ", new String(captured.toByteArray()));
+    }
+
+    @Test
+    public void booleanAnswersAreReadFromTheBuffer()
+    {
+        SmartScanner s = scannerFor("  Yes \nmaybe\nF\nmaybe\n\u00e9\n");
+        s.setOutput(new OutputSink(new ByteArrayOutputStream(), StandardCharsets.UTF_8, 256));
+        assertTrue(s.smartForceNextBoolean("Sure?"));
+        assertEquals(false, s.smartForceNextBoolean("Sure?"));
+        assertTrue(s.smartForceNextBoolean("Sure?", true));
+        assertEquals(false, s.smartForceNextBoolean("Sure?", false));
+    }
+
+    @Test
+    public void readsArraysOfNumbers()
+    {
+        SmartScanner s = scannerFor("1, 2;3  -4\n10\n20 30\n\n1.5 -2e3\n9223372036854775807\n");
+        s.setBatchMode(true);
+        assertArrayEquals(new int[] {1, 2, 3, -4}, s.nextIntArray("Values"));
+        assertArrayEquals(new int[] {10, 20, 30}, s.nextIntArrayUntil("Column", "", 0, 100));
+        assertArrayEquals(new double[] {1.5, -2e3}, s.nextDoubleArray("Amounts"), 0);
+        assertArrayEquals(new long[] {Long.MAX_VALUE}, s.nextLongArrayUntil("Rest", "end"));
+    }
+
+    @Test
+    public void arrayProblemsAreReportedTogether()
+    {
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        SmartScanner s = scannerFor("1 x 3 200\n5 6\n");
+        s.setOutput(new OutputSink(captured, StandardCharsets.UTF_8, 256));
+        assertArrayEquals(new int[] {5, 6}, s.nextIntArray("Values", 0, 100));
+        String nl = System.lineSeparator();
+        String shown = new String(captured.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(shown, shown.contains("2 of 4 values were not valid:" + nl
+            + "value #2 (x): java.lang.NumberFormatException: For input string: \"x\"" + nl
+            + "value #4 (200): must be between 0 and 100" + nl));
+
+        s = scannerFor("1\n2\nthree\n4\n");
+        s.setBatchMode(true);
+        try {
+            s.nextIntArrayUntil("Column", "");
+            fail("Expected the bad value to be rejected");
+        } catch (BatchInputException e) {
+            assertEquals("three", e.getInput());
+            assertEquals(3, e.getLineNumber());
+        }
+    }
+
+    @Test
+    public void streamsValidateLikePrompts()
+    {
+        SmartScanner s = scannerFor("5\nx\n50\n7\n");
+        assertArrayEquals(new int[] {5, 7}, s.ints(0, 10, BadLinePolicy.SKIP).toArray());
+        s = scannerFor("1.5\n2.5\n");
+        assertEquals(4.0, s.doubles().parallel().sum(), 0);
+        s = scannerFor("1\n2\n99999999999\n");
+        try {
+            s.ints().sum();
+            fail("Expected the bad line to be rejected");
+        } catch (BatchInputException e) {
+            assertEquals(3, e.getLineNumber());
+        }
+    }
+
+    @Test
+    public void sanitizesAsciiAndUnicodeAlike()
+    {
+        SmartScanner s = new SmartScanner(new ByteLineReader(new ByteArrayInputStream(
+            "  Hello World \n\t\u00c9COLE  \nTITLE\nTITLE\n  MiXeD\t\n".getBytes(StandardCharsets.UTF_8)),
+            StandardCharsets.UTF_8));
+        s.setBatchMode(true);
+        assertEquals("hello world", s.smartNextStringSanitized("Greeting", Locale.ROOT));
+        assertEquals("\u00e9cole", s.smartNextStringSanitized("School", Locale.ROOT));
+        // Turkish lowercases a dotted capital I to a dotless one
+        assertEquals("t\u0131tle", s.smartNextStringSanitized("Title", new Locale("tr")));
+        assertEquals("title", s.smartNextStringSanitized("Title", Locale.ROOT));
+        CharSequence view = s.smartNextStringSanitizedView("Mixed", Locale.ENGLISH);
+        assertEquals("mixed", view.toString());
+    }
+
+    private enum Size { SMALL, LARGE }
+
+    @Test
+    public void typedPromptsCheckEveryStage()
+    {
+        IntPrompt even = IntPrompt.between(0, 100).where(new IntPrompt.Check() {
+            public String check(int value) {
+                return value % 2 == 0 ? null : "must be even";
+            }
+        });
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        SmartScanner s = scannerFor("seven\n101\n7\n8\n-1\n2.5\nhuge\nlarge\n1.10\n");
+        s.setOutput(new OutputSink(printed, StandardCharsets.UTF_8, 64));
+        assertEquals(8, s.ask("Even", even));
+        String out = new String(printed.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(out, out.contains("Please enter a value between 0 and 100."));
+        assertTrue(out, out.contains("must be even"));
+        assertEquals(2.5, s.ask("Positive", DoublePrompt.atLeast(0)), 0);
+        assertEquals(Size.LARGE, s.ask("Size", Prompt.oneOf(Size.class)));
+        assertEquals(new BigDecimal("1.10"), s.ask("Amount", Prompt.decimals()));
+
+        s = scannerFor("12\n");
+        s.setBatchMode(true);
+        try {
+            s.ask("Odd", IntPrompt.any().where(new IntPrompt.Check() {
+                public String check(int value) {
+                    return value % 2 == 1 ? null : "must be odd";
+                }
+            }));
+            fail("Expected the even answer to be rejected");
+        } catch (BatchInputException e) {
+            assertEquals("must be odd", e.getReason());
+        }
+    }
+}
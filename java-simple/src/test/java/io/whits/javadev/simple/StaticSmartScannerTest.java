@@ -0,0 +1,94 @@
+package io.whits.javadev.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests for thread-bound StaticSmartScanner sessions.
+ */
+public class StaticSmartScannerTest
+{
+    private static SmartScanner scannerFor(String input, ByteArrayOutputStream out) {
+        SmartScanner s = new SmartScanner(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        s.setOutput(new OutputSink(out, StandardCharsets.UTF_8, 256));
+        return s;
+    }
+
+    @Test
+    public void sessionsNestAndRestore()
+    {
+        SmartScanner shared = StaticSmartScanner.current();
+        SmartScanner outer = scannerFor("1\n", new ByteArrayOutputStream());
+        SmartScanner inner = scannerFor("2\n", new ByteArrayOutputStream());
+        try (StaticSmartScanner.Session a = StaticSmartScanner.openSession(outer)) {
+            try (StaticSmartScanner.Session b = StaticSmartScanner.openSession(inner)) {
+                assertSame(b.getSmartScanner(), StaticSmartScanner.current());
+                assertEquals(2, StaticSmartScanner.smartForceNextInt("Inner"));
+            }
+            assertSame(a.getSmartScanner(), StaticSmartScanner.current());
+            assertEquals(1, StaticSmartScanner.smartForceNextInt("Outer"));
+        }
+        assertSame(shared, StaticSmartScanner.current());
+    }
+
+    @Test
+    public void sharedScannerReadsSystemInAsItIsWhenCreated()
+    {
+        SmartScanner before = StaticSmartScanner.current();
+        InputStream stdin = System.in;
+        PrintStream stdout = System.out;
+        try {
+            System.setIn(new ByteArrayInputStream("7\n".getBytes(StandardCharsets.UTF_8)));
+            System.setOut(new PrintStream(new ByteArrayOutputStream()));
+            StaticSmartScanner.setShared(null);
+            assertEquals(7, StaticSmartScanner.smartForceNextInt("Number"));
+        } finally {
+            System.setIn(stdin);
+            System.setOut(stdout);
+            StaticSmartScanner.setShared(before);
+        }
+    }
+
+    @Test
+    public void concurrentSessionsKeepTheirOwnInput() throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int k = 0; k < 64; k++) {
+                final int answer = k;
+                results.add(pool.submit(new Callable<Integer>() {
+                    public Integer call() {
+                        final int[] seen = new int[1];
+                        SmartScanner s = scannerFor("x\n" + answer + "\n", new ByteArrayOutputStream());
+                        StaticSmartScanner.runInSession(s, new Runnable() {
+                            public void run() {
+                                seen[0] = StaticSmartScanner.smartForceNextInt("Number", 0, 100);
+                            }
+                        });
+                        return seen[0];
+                    }
+                }));
+            }
+            for (int k = 0; k < results.size(); k++) {
+                assertEquals(Integer.valueOf(k), results.get(k).get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}